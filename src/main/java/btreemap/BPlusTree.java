@@ -0,0 +1,612 @@
+package btreemap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+/**
+ * B+-дерево: значения хранятся только в листьях, а внутренние узлы содержат лишь ключи-разделители,
+ * поэтому при том же размере узла у них больше потомков. Листья связаны в список по возрастанию ключей,
+ * и обход диапазона после одного спуска идет последовательно по листьям.
+ * <p>
+ * Каждый узел, кроме корня, содержит от {@code t} до {@code 2t} ключей.
+ * Разделитель {@code keys[i]} внутреннего узла больше всех ключей поддерева {@code children[i]} и не больше
+ * ключей поддерева {@code children[i + 1]}. При вставке разделитель - наименьший ключ правого поддерева,
+ * после удаления этого ключа разделитель остается прежним.
+ * @param <K> Тип данных ключа
+ * @param <V> Тип данных значения
+ */
+public class BPlusTree<K extends Comparable<K>, V> {
+    private final int tParameter;
+
+    private TreeNode<K, V> root = null;
+    // Самый левый лист: начало полного обхода
+    private Leaf<K, V> head = null;
+    private int size = 0;
+    private int height = 0;
+
+    /**
+     * Общая часть листа и внутреннего узла: ключи (в листе) или разделители (во внутреннем узле)
+     */
+    private abstract static class TreeNode<K, V> {
+        final Object[] keys;
+        int keysSize = 0;
+
+        TreeNode(int capacity) {
+            keys = new Object[capacity];
+        }
+
+        @SuppressWarnings("unchecked")
+        K key(int index) {
+            return (K) keys[index];
+        }
+    }
+
+    /**
+     * Лист: ключи и значения в параллельных массивах и ссылка на следующий лист
+     */
+    private static final class Leaf<K, V> extends TreeNode<K, V> {
+        final Object[] values;
+        Leaf<K, V> next = null;
+
+        Leaf(int capacity) {
+            super(capacity);
+            values = new Object[capacity];
+        }
+
+        @SuppressWarnings("unchecked")
+        V value(int index) {
+            return (V) values[index];
+        }
+    }
+
+    /**
+     * Внутренний узел: {@code keysSize} разделителей и {@code keysSize + 1} потомков
+     */
+    private static final class Inner<K, V> extends TreeNode<K, V> {
+        final TreeNode<K, V>[] children;
+
+        Inner(int capacity) {
+            super(capacity);
+            children = newNodeArray(capacity + 1);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <K, V> TreeNode<K, V>[] newNodeArray(int length) {
+        return (TreeNode<K, V>[]) new TreeNode[length];
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <K, V> Inner<K, V>[] newInnerArray(int length) {
+        return (Inner<K, V>[]) new Inner[length];
+    }
+
+    private Leaf<K, V> newLeaf() {
+        return new Leaf<>(2 * tParameter + 1);
+    }
+
+    private Inner<K, V> newInner() {
+        return new Inner<>(2 * tParameter + 1);
+    }
+
+    /**
+     * @param treeParameter Минимальное количество ключей в узле, кроме корня
+     */
+    public BPlusTree(int treeParameter) {
+        if (treeParameter < 1) {
+            throw new IllegalArgumentException("Tree parameter should be positive: " + treeParameter);
+        }
+        this.tParameter = treeParameter;
+    }
+
+    /**
+     * Ищет позицию ключа в листе
+     * @return Индекс ключа или {@code -(точка вставки) - 1}, если ключа нет
+     */
+    private int indexInLeaf(Leaf<K, V> leaf, K key) {
+        int low = 0;
+        int high = leaf.keysSize - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int cmp = leaf.key(middle).compareTo(key);
+            if (cmp < 0) {
+                low = middle + 1;
+            } else if (cmp > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * @return Индекс потомка, в поддереве которого находится ключ: количество разделителей, не больших ключа
+     */
+    private int childIndex(Inner<K, V> inner, K key) {
+        int low = 0;
+        int high = inner.keysSize;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (inner.key(middle).compareTo(key) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private Leaf<K, V> findLeaf(K key) {
+        TreeNode<K, V> node = root;
+        for (int level = 1; level < height; level++) {
+            Inner<K, V> inner = (Inner<K, V>) node;
+            node = inner.children[childIndex(inner, key)];
+        }
+        return (Leaf<K, V>) node;
+    }
+
+    /**
+     * Возвращает значение по ключу
+     * @param key Ключ
+     * @return Значение или {@code null}, если ключа нет
+     */
+    public V get(K key) {
+        if (root == null) {
+            return null;
+        }
+        Leaf<K, V> leaf = findLeaf(key);
+        int index = indexInLeaf(leaf, key);
+        return index >= 0 ? leaf.value(index) : null;
+    }
+
+    /**
+     * Проверяет наличие ключа
+     * @param key Ключ
+     * @return true, если ключ есть
+     */
+    public boolean contains(K key) {
+        if (root == null) {
+            return false;
+        }
+        return indexInLeaf(findLeaf(key), key) >= 0;
+    }
+
+    /**
+     * Заменяет значение существующего ключа
+     * @param key Ключ
+     * @param value Новое значение
+     * @return true, если ключ был найден
+     */
+    public boolean set(K key, V value) {
+        if (root == null) {
+            return false;
+        }
+        Leaf<K, V> leaf = findLeaf(key);
+        int index = indexInLeaf(leaf, key);
+        if (index < 0) {
+            return false;
+        }
+        leaf.values[index] = value;
+        return true;
+    }
+
+    /**
+     * Добавляет пару, если такого ключа нет
+     * @param key Ключ
+     * @param value Значение
+     * @return true, если пара была добавлена
+     */
+    public boolean add(K key, V value) {
+        if (root == null) {
+            Leaf<K, V> leaf = newLeaf();
+            leaf.keys[0] = key;
+            leaf.values[0] = value;
+            leaf.keysSize = 1;
+            root = leaf;
+            head = leaf;
+            height = 1;
+            size = 1;
+            return true;
+        }
+
+        // Remember the path: inner nodes and the child index taken in each
+        Inner<K, V>[] path = newInnerArray(height - 1);
+        int[] pathIndex = new int[height];
+        TreeNode<K, V> node = root;
+        for (int level = 0; level < height - 1; level++) {
+            Inner<K, V> inner = (Inner<K, V>) node;
+            int index = childIndex(inner, key);
+            path[level] = inner;
+            pathIndex[level] = index;
+            node = inner.children[index];
+        }
+        Leaf<K, V> leaf = (Leaf<K, V>) node;
+        int index = indexInLeaf(leaf, key);
+        if (index >= 0) {
+            return false; // Not insert if exist
+        }
+        index = -index - 1;
+        System.arraycopy(leaf.keys, index, leaf.keys, index + 1, leaf.keysSize - index);
+        System.arraycopy(leaf.values, index, leaf.values, index + 1, leaf.keysSize - index);
+        leaf.keys[index] = key;
+        leaf.values[index] = value;
+        leaf.keysSize++;
+        size++;
+        if (leaf.keysSize <= 2 * tParameter) {
+            return true;
+        }
+
+        // Split the leaf: the smallest key of the right half is copied up as separator
+        Leaf<K, V> right = newLeaf();
+        int half = leaf.keysSize / 2;
+        right.keysSize = leaf.keysSize - half;
+        System.arraycopy(leaf.keys, half, right.keys, 0, right.keysSize);
+        System.arraycopy(leaf.values, half, right.values, 0, right.keysSize);
+        Arrays.fill(leaf.keys, half, leaf.keysSize, null);
+        Arrays.fill(leaf.values, half, leaf.keysSize, null);
+        leaf.keysSize = half;
+        right.next = leaf.next;
+        leaf.next = right;
+
+        Object separator = right.keys[0];
+        TreeNode<K, V> newChild = right;
+        for (int level = height - 2; level >= 0; level--) {
+            Inner<K, V> parent = path[level];
+            int position = pathIndex[level];
+            System.arraycopy(parent.keys, position, parent.keys, position + 1, parent.keysSize - position);
+            System.arraycopy(parent.children, position + 1, parent.children, position + 2, parent.keysSize - position);
+            parent.keys[position] = separator;
+            parent.children[position + 1] = newChild;
+            parent.keysSize++;
+            if (parent.keysSize <= 2 * tParameter) {
+                return true;
+            }
+            // Split the inner node: the middle separator moves up
+            Inner<K, V> rightInner = newInner();
+            int middle = parent.keysSize / 2;
+            separator = parent.keys[middle];
+            rightInner.keysSize = parent.keysSize - middle - 1;
+            System.arraycopy(parent.keys, middle + 1, rightInner.keys, 0, rightInner.keysSize);
+            System.arraycopy(parent.children, middle + 1, rightInner.children, 0, rightInner.keysSize + 1);
+            Arrays.fill(parent.keys, middle, parent.keysSize, null);
+            Arrays.fill(parent.children, middle + 1, parent.keysSize + 1, null);
+            parent.keysSize = middle;
+            newChild = rightInner;
+        }
+
+        // The root was split, height of tree is increased
+        Inner<K, V> newRoot = newInner();
+        newRoot.keys[0] = separator;
+        newRoot.children[0] = root;
+        newRoot.children[1] = newChild;
+        newRoot.keysSize = 1;
+        root = newRoot;
+        height++;
+        return true;
+    }
+
+    /**
+     * Удаляет пару по ключу. Узел, в котором осталось меньше {@code t} ключей, занимает ключ у соседа
+     * или сливается с ним; корень без ключей заменяется единственным потомком.
+     * @param key Ключ
+     * @return Значение удаленной пары или {@code null}, если ключа не было
+     */
+    public V remove(K key) {
+        if (root == null) {
+            return null;
+        }
+        Inner<K, V>[] path = newInnerArray(height - 1);
+        int[] pathIndex = new int[height];
+        TreeNode<K, V> node = root;
+        for (int level = 0; level < height - 1; level++) {
+            Inner<K, V> inner = (Inner<K, V>) node;
+            int index = childIndex(inner, key);
+            path[level] = inner;
+            pathIndex[level] = index;
+            node = inner.children[index];
+        }
+        Leaf<K, V> leaf = (Leaf<K, V>) node;
+        int index = indexInLeaf(leaf, key);
+        if (index < 0) {
+            return null;
+        }
+        V removed = leaf.value(index);
+        System.arraycopy(leaf.keys, index + 1, leaf.keys, index, leaf.keysSize - index - 1);
+        System.arraycopy(leaf.values, index + 1, leaf.values, index, leaf.keysSize - index - 1);
+        leaf.keysSize--;
+        leaf.keys[leaf.keysSize] = null;
+        leaf.values[leaf.keysSize] = null;
+        size--;
+
+        if (height == 1) {
+            if (leaf.keysSize == 0) {
+                clear();
+            }
+            return removed;
+        }
+        if (leaf.keysSize < tParameter) {
+            fixLeaf(leaf, path[height - 2], pathIndex[height - 2]);
+        }
+        for (int level = height - 2; level > 0; level--) {
+            Inner<K, V> inner = path[level];
+            if (inner.keysSize >= tParameter) {
+                break;
+            }
+            fixInner(inner, path[level - 1], pathIndex[level - 1]);
+        }
+        Inner<K, V> top = (Inner<K, V>) root;
+        if (top.keysSize == 0) {
+            // Root collapse, height of tree is decreased
+            root = top.children[0];
+            height--;
+        }
+        return removed;
+    }
+
+    /**
+     * Восстанавливает заполненность листа {@code leaf}, который является потомком {@code index} узла {@code parent}
+     */
+    private void fixLeaf(Leaf<K, V> leaf, Inner<K, V> parent, int index) {
+        Leaf<K, V> left = index > 0 ? (Leaf<K, V>) parent.children[index - 1] : null;
+        Leaf<K, V> right = index < parent.keysSize ? (Leaf<K, V>) parent.children[index + 1] : null;
+        if (left != null && left.keysSize > tParameter) {
+            // Borrow the last pair of the left sibling, it becomes the new separator
+            System.arraycopy(leaf.keys, 0, leaf.keys, 1, leaf.keysSize);
+            System.arraycopy(leaf.values, 0, leaf.values, 1, leaf.keysSize);
+            left.keysSize--;
+            leaf.keys[0] = left.keys[left.keysSize];
+            leaf.values[0] = left.values[left.keysSize];
+            left.keys[left.keysSize] = null;
+            left.values[left.keysSize] = null;
+            leaf.keysSize++;
+            parent.keys[index - 1] = leaf.keys[0];
+        } else if (right != null && right.keysSize > tParameter) {
+            // Borrow the first pair of the right sibling
+            leaf.keys[leaf.keysSize] = right.keys[0];
+            leaf.values[leaf.keysSize] = right.values[0];
+            leaf.keysSize++;
+            right.keysSize--;
+            System.arraycopy(right.keys, 1, right.keys, 0, right.keysSize);
+            System.arraycopy(right.values, 1, right.values, 0, right.keysSize);
+            right.keys[right.keysSize] = null;
+            right.values[right.keysSize] = null;
+            parent.keys[index] = right.keys[0];
+        } else if (left != null) {
+            mergeLeaves(left, leaf, parent, index - 1);
+        } else {
+            mergeLeaves(leaf, right, parent, index);
+        }
+    }
+
+    /**
+     * Переносит пары {@code right} в {@code left} и удаляет {@code right} и разделитель между ними из родителя
+     */
+    private void mergeLeaves(Leaf<K, V> left, Leaf<K, V> right, Inner<K, V> parent, int separatorIndex) {
+        System.arraycopy(right.keys, 0, left.keys, left.keysSize, right.keysSize);
+        System.arraycopy(right.values, 0, left.values, left.keysSize, right.keysSize);
+        left.keysSize += right.keysSize;
+        left.next = right.next;
+        removeSeparator(parent, separatorIndex);
+    }
+
+    /**
+     * Восстанавливает заполненность внутреннего узла {@code inner}, который является потомком {@code index} узла {@code parent}
+     */
+    private void fixInner(Inner<K, V> inner, Inner<K, V> parent, int index) {
+        Inner<K, V> left = index > 0 ? (Inner<K, V>) parent.children[index - 1] : null;
+        Inner<K, V> right = index < parent.keysSize ? (Inner<K, V>) parent.children[index + 1] : null;
+        if (left != null && left.keysSize > tParameter) {
+            // Rotate through the parent: separator comes down, last key of the left sibling goes up
+            System.arraycopy(inner.keys, 0, inner.keys, 1, inner.keysSize);
+            System.arraycopy(inner.children, 0, inner.children, 1, inner.keysSize + 1);
+            inner.keys[0] = parent.keys[index - 1];
+            inner.children[0] = left.children[left.keysSize];
+            inner.keysSize++;
+            parent.keys[index - 1] = left.keys[left.keysSize - 1];
+            left.keys[left.keysSize - 1] = null;
+            left.children[left.keysSize] = null;
+            left.keysSize--;
+        } else if (right != null && right.keysSize > tParameter) {
+            inner.keys[inner.keysSize] = parent.keys[index];
+            inner.children[inner.keysSize + 1] = right.children[0];
+            inner.keysSize++;
+            parent.keys[index] = right.keys[0];
+            System.arraycopy(right.keys, 1, right.keys, 0, right.keysSize - 1);
+            System.arraycopy(right.children, 1, right.children, 0, right.keysSize);
+            right.keys[right.keysSize - 1] = null;
+            right.children[right.keysSize] = null;
+            right.keysSize--;
+        } else if (left != null) {
+            mergeInner(left, inner, parent, index - 1);
+        } else {
+            mergeInner(inner, right, parent, index);
+        }
+    }
+
+    /**
+     * Переносит разделитель, ключи и потомков {@code right} в {@code left} и удаляет {@code right} из родителя
+     */
+    private void mergeInner(Inner<K, V> left, Inner<K, V> right, Inner<K, V> parent, int separatorIndex) {
+        left.keys[left.keysSize] = parent.keys[separatorIndex];
+        System.arraycopy(right.keys, 0, left.keys, left.keysSize + 1, right.keysSize);
+        System.arraycopy(right.children, 0, left.children, left.keysSize + 1, right.keysSize + 1);
+        left.keysSize += right.keysSize + 1;
+        removeSeparator(parent, separatorIndex);
+    }
+
+    /**
+     * Удаляет из узла разделитель {@code separatorIndex} и потомка справа от него
+     */
+    private void removeSeparator(Inner<K, V> inner, int separatorIndex) {
+        System.arraycopy(inner.keys, separatorIndex + 1, inner.keys, separatorIndex, inner.keysSize - separatorIndex - 1);
+        System.arraycopy(inner.children, separatorIndex + 2, inner.children, separatorIndex + 1,
+                inner.keysSize - separatorIndex - 1);
+        inner.keysSize--;
+        inner.keys[inner.keysSize] = null;
+        inner.children[inner.keysSize + 1] = null;
+    }
+
+    /**
+     * Возвращает пары с ключами из диапазона [{@code from}, {@code to}) в порядке возрастания ключей.
+     * После одного спуска к первому листу обход идет по списку листьев. Изменение дерева во время обхода не допускается.
+     * @param from Нижняя граница (включительно)
+     * @param to Верхняя граница (не включительно)
+     * @return Пары диапазона
+     */
+    public Iterable<Pair<K, V>> range(K from, K to) {
+        return () -> {
+            if (root == null) {
+                return new RangeIterator(null, 0, to);
+            }
+            Leaf<K, V> leaf = findLeaf(from);
+            int index = indexInLeaf(leaf, from);
+            return new RangeIterator(leaf, index >= 0 ? index : -index - 1, to);
+        };
+    }
+
+    /**
+     * Перебирает все пары в порядке возрастания ключей, последовательно проходя по списку листьев
+     * @param action Действие над парой
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (Leaf<K, V> leaf = head; leaf != null; leaf = leaf.next) {
+            for (int i = 0; i < leaf.keysSize; i++) {
+                action.accept(leaf.key(i), leaf.value(i));
+            }
+        }
+    }
+
+    private final class RangeIterator implements Iterator<Pair<K, V>> {
+        private Leaf<K, V> leaf;
+        private int index;
+        private final K to;
+
+        private RangeIterator(Leaf<K, V> leaf, int index, K to) {
+            this.leaf = leaf;
+            this.index = index;
+            this.to = to;
+            skipExhaustedLeaves();
+        }
+
+        private void skipExhaustedLeaves() {
+            while (leaf != null && index >= leaf.keysSize) {
+                leaf = leaf.next;
+                index = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return leaf != null && leaf.key(index).compareTo(to) < 0;
+        }
+
+        @Override
+        public Pair<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Pair<K, V> pair = new Pair<>(leaf.key(index), leaf.value(index));
+            index++;
+            skipExhaustedLeaves();
+            return pair;
+        }
+    }
+
+    /**
+     * Проверяет свойства B+-дерева: заполненность узлов, порядок ключей, разделители, одинаковую глубину листьев,
+     * связность списка листьев и размер.
+     * @throws IllegalStateException Если свойство нарушено
+     */
+    void checkInvariants() {
+        if (root == null) {
+            if (size != 0 || head != null || height != 0) {
+                throw new IllegalStateException("Empty tree has size " + size);
+            }
+            return;
+        }
+        List<Leaf<K, V>> leaves = new ArrayList<>();
+        int count = checkSubtree(root, 1, null, null, leaves);
+        for (int i = 0; i < leaves.size(); i++) {
+            Leaf<K, V> expected = i + 1 < leaves.size() ? leaves.get(i + 1) : null;
+            if (leaves.get(i).next != expected) {
+                throw new IllegalStateException("Leaf list is broken after " + leaves.get(i).key(0));
+            }
+        }
+        if (head != leaves.get(0)) {
+            throw new IllegalStateException("Head is not the first leaf");
+        }
+        if (count != size) {
+            throw new IllegalStateException("Size is " + size + ", but tree has " + count + " keys");
+        }
+    }
+
+    /**
+     * @param leaves Листья поддерева дописываются в порядке обхода
+     * @return Количество ключей в листьях поддерева
+     */
+    private int checkSubtree(TreeNode<K, V> node, int level, K lowerBound, K upperBound, List<Leaf<K, V>> leaves) {
+        boolean isRoot = node == root;
+        if (level == height) {
+            if (!(node instanceof Leaf)) {
+                throw new IllegalStateException("Inner node at leaf level");
+            }
+            Leaf<K, V> leaf = (Leaf<K, V>) node;
+            checkKeys(leaf.keys, leaf.keysSize, isRoot, lowerBound, upperBound);
+            leaves.add(leaf);
+            return leaf.keysSize;
+        }
+        if (!(node instanceof Inner)) {
+            throw new IllegalStateException("Leaf at level " + level + " of " + height);
+        }
+        Inner<K, V> inner = (Inner<K, V>) node;
+        checkKeys(inner.keys, inner.keysSize, isRoot, lowerBound, upperBound);
+        int count = 0;
+        for (int i = 0; i <= inner.keysSize; i++) {
+            K lower = i == 0 ? lowerBound : inner.key(i - 1);
+            K upper = i == inner.keysSize ? upperBound : inner.key(i);
+            count += checkSubtree(inner.children[i], level + 1, lower, upper, leaves);
+        }
+        return count;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void checkKeys(Object[] keys, int keysSize, boolean isRoot, K lowerBound, K upperBound) {
+        if (keysSize > 2 * tParameter || keysSize < (isRoot ? 1 : tParameter)) {
+            throw new IllegalStateException("Node has " + keysSize + " keys");
+        }
+        for (int i = 0; i < keysSize; i++) {
+            K key = (K) keys[i];
+            if ((i > 0 && ((K) keys[i - 1]).compareTo(key) >= 0) ||
+                    (lowerBound != null && key.compareTo(lowerBound) < 0) ||
+                    (upperBound != null && key.compareTo(upperBound) >= 0)) {
+                throw new IllegalStateException("Order is broken at " + key);
+            }
+        }
+    }
+
+    /**
+     * Удаляет все элементы
+     */
+    public void clear() {
+        root = null;
+        head = null;
+        size = 0;
+        height = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Количество уровней (0 для пустого дерева)
+     */
+    public int height() {
+        return height;
+    }
+}
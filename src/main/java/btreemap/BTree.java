@@ -1,5 +1,12 @@
 package btreemap;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
 public class BTree<T extends Comparable<T>> {
     // Default to 2-3 Tree
     private int tParameter;
@@ -38,39 +45,196 @@ public class BTree<T extends Comparable<T>> {
                     split(node);
                     break;
                 }
-                // Navigate
+                // Navigate: lesser or equal values go to the child left of the key
+                int index = node.search(value);
+                node = node.getChild(index >= 0 ? index : -index - 1);
+            }
+        }
 
-                // Lesser or equal
-                T lesser = node.getKey(0);
-                if (value.compareTo(lesser) <= 0) {
-                    node = node.getChild(0);
-                    continue;
-                }
+        size++;
 
-                // Greater
-                int numberOfKeys = node.numberOfKeys();
-                int last = numberOfKeys - 1;
-                T greater = node.getKey(last);
-                if (value.compareTo(greater) > 0) {
-                    node = node.getChild(numberOfKeys);
-                    continue;
-                }
+        return true;
+    }
 
-                // Search internal nodes
-                for (int i = 1; i < node.numberOfKeys(); i++) {
-                    T prev = node.getKey(i - 1);
-                    T next = node.getKey(i);
-                    if (value.compareTo(prev) > 0 && value.compareTo(next) <= 0) {
-                        node = node.getChild(i);
-                        break;
-                    }
+    /**
+     * Adds the value unless an equal value is already in the tree. The tree is descended once:
+     * the search for an equal value also finds the leaf and the position to insert at.
+     *
+     * @param value to add.
+     * @return value already stored in the tree, or {@code null} if the value was added.
+     */
+    public T addIfAbsent(T value) {
+        return upsert(value, false);
+    }
+
+    /**
+     * Adds the value or replaces an equal value stored in the tree, in one descent.
+     *
+     * @param value to add.
+     * @return replaced value, or {@code null} if the value was added.
+     */
+    public T addOrReplace(T value) {
+        return upsert(value, true);
+    }
+
+    private T upsert(T value, boolean replace) {
+        if (root == null) {
+            root = new Node<>(null, tParameter);
+            root.addKey(value);
+            size++;
+            return null;
+        }
+        Node<T> node = root;
+        while (true) {
+            int index = node.search(value);
+            if (index >= 0) {
+                T existing = node.getKey(index);
+                if (replace) {
+                    node.setKey(index, value);
                 }
+                return existing;
+            }
+            if (node.numberOfChildren() == 0) {
+                insertIntoLeaf(node, -index - 1, value);
+                return null;
             }
+            node = node.getChild(-index - 1);
         }
+    }
 
+    private void insertIntoLeaf(Node<T> leaf, int index, T value) {
+        leaf.addKey(index, value);
+        if (leaf.numberOfKeys() > 2 * tParameter) {
+            split(leaf);
+        }
         size++;
+    }
 
-        return true;
+    /**
+     * Finds a value by its key without building a value to compare with.
+     *
+     * @param key to find.
+     * @param keyOf extracts the key of a value; values are ordered as their keys.
+     * @return value with the key, or {@code null}.
+     */
+    public <K extends Comparable<? super K>> T get(K key, Function<? super T, ? extends K> keyOf) {
+        Node<T> node = root;
+        while (node != null) {
+            int index = node.search(key, keyOf);
+            if (index >= 0) {
+                return node.getKey(index);
+            }
+            node = node.getChild(-index - 1); // null for a leaf
+        }
+        return null;
+    }
+
+    /**
+     * Computes a new value for the key in one descent. The remapping function gets the stored value
+     * (or {@code null}) and returns the value to store, which must have the same key, or {@code null}
+     * to remove the stored value.
+     *
+     * @param key to find.
+     * @param keyOf extracts the key of a value; values are ordered as their keys.
+     * @param remapping computes the new value.
+     * @return new value, or {@code null} if there is no value with the key after the call.
+     */
+    public <K extends Comparable<? super K>> T compute(K key, Function<? super T, ? extends K> keyOf,
+                                                        UnaryOperator<T> remapping) {
+        Node<T> node = root;
+        while (node != null) {
+            int index = node.search(key, keyOf);
+            if (index >= 0) {
+                T existing = node.getKey(index);
+                T newValue = remapping.apply(existing);
+                if (newValue == null) {
+                    remove(existing); // Removal may rebalance the whole path, so it descends again
+                } else {
+                    node.setKey(index, newValue);
+                }
+                return newValue;
+            }
+            if (node.numberOfChildren() == 0) {
+                T newValue = remapping.apply(null);
+                if (newValue != null) {
+                    insertIntoLeaf(node, -index - 1, newValue);
+                }
+                return newValue;
+            }
+            node = node.getChild(-index - 1);
+        }
+        // Empty tree
+        T newValue = remapping.apply(null);
+        if (newValue != null) {
+            upsert(newValue, false);
+        }
+        return newValue;
+    }
+
+    /**
+     * Replaces the content of the tree with sorted values, building it bottom-up in O(n) without splits.
+     * Every level is cut into nodes of about {@code fillFactor * 2 * tParameter} keys, with single keys
+     * between neighbouring nodes moving up to the next level. Sizes are spread evenly, so every node
+     * except the root keeps at least tParameter keys.
+     *
+     * @param sorted values in strictly ascending order.
+     * @param fillFactor share of 2 * tParameter keys to put into a node, in (0, 1].
+     * @throws IllegalArgumentException if values are not strictly ascending or fill factor is out of range.
+     */
+    public void buildFromSorted(Iterator<T> sorted, double fillFactor) {
+        if (!(fillFactor > 0 && fillFactor <= 1)) {
+            throw new IllegalArgumentException("Fill factor should be in (0, 1]: " + fillFactor);
+        }
+        List<T> items = new ArrayList<>();
+        while (sorted.hasNext()) {
+            T value = sorted.next();
+            if (!items.isEmpty() && items.get(items.size() - 1).compareTo(value) >= 0) {
+                throw new IllegalArgumentException("Values are not strictly ascending: " +
+                        items.get(items.size() - 1) + ", " + value);
+            }
+            items.add(value);
+        }
+        size = items.size();
+        if (items.isEmpty()) {
+            root = null;
+            return;
+        }
+
+        int capacity = Math.max(tParameter, Math.min(2 * tParameter, (int) Math.round(fillFactor * 2 * tParameter)));
+        List<Node<T>> children = null;
+        while (true) {
+            int count = items.size();
+            // Groups of keys separated by single keys: at most capacity and at least tParameter keys per group
+            int groups = Math.min((count + capacity + 1) / (capacity + 1), (count + 1) / (tParameter + 1));
+            groups = Math.max(groups, 1);
+            int keys = count - (groups - 1);
+            List<Node<T>> nodes = new ArrayList<>(groups);
+            List<T> separators = new ArrayList<>(groups - 1);
+            int item = 0;
+            int child = 0;
+            for (int group = 0; group < groups; group++) {
+                int groupSize = keys / groups + (group < keys % groups ? 1 : 0);
+                Node<T> node = new Node<>(null, tParameter);
+                for (int i = 0; i < groupSize; i++) {
+                    node.addKey(i, items.get(item++));
+                }
+                if (children != null) {
+                    for (int i = 0; i <= groupSize; i++) {
+                        node.addChild(i, children.get(child++));
+                    }
+                }
+                nodes.add(node);
+                if (group < groups - 1) {
+                    separators.add(items.get(item++));
+                }
+            }
+            if (groups == 1) {
+                root = nodes.get(0);
+                return;
+            }
+            items = separators;
+            children = nodes;
+        }
     }
 
     public T search(T value) {
@@ -83,6 +247,41 @@ public class BTree<T extends Comparable<T>> {
     }
 
 
+    /**
+     * Visits values in [from, to) in ascending order. Subtrees outside the range are skipped.
+     *
+     * @param from lower bound (inclusive), {@code null} for no bound.
+     * @param to upper bound (exclusive), {@code null} for no bound.
+     * @param action to call for every value.
+     */
+    public void forEachInRange(T from, T to, Consumer<? super T> action) {
+        if (root != null) {
+            forEachInRange(root, from, to, action);
+        }
+    }
+
+    private void forEachInRange(Node<T> node, T from, T to, Consumer<? super T> action) {
+        int numberOfKeys = node.numberOfKeys();
+        boolean isLeaf = node.numberOfChildren() == 0;
+        for (int i = 0; i <= numberOfKeys; i++) {
+            // Child i holds values between key i - 1 and key i
+            boolean afterFrom = i == numberOfKeys || from == null || node.getKey(i).compareTo(from) >= 0;
+            if (!isLeaf && afterFrom) {
+                forEachInRange(node.getChild(i), from, to, action);
+            }
+            if (i == numberOfKeys) {
+                break;
+            }
+            T key = node.getKey(i);
+            if (to != null && key.compareTo(to) >= 0) {
+                return;
+            }
+            if (from == null || key.compareTo(from) >= 0) {
+                action.accept(key);
+            }
+        }
+    }
+
     /**
      * The node's key size is greater than maxKeySize, split down the middle.
      *
@@ -140,6 +339,166 @@ public class BTree<T extends Comparable<T>> {
     }
 
 
+    /**
+     * Removes the value. An underflowing node borrows a key from a sibling through the parent
+     * or is merged with a sibling, so every node except the root keeps at least tParameter keys.
+     * The root is collapsed when it runs out of keys.
+     *
+     * @param value to remove.
+     * @return value stored in the tree, or {@code null} if there was no such value.
+     */
+    public T remove(T value) {
+        Node<T> node = getNode(value);
+        if (node == null) {
+            return null;
+        }
+        int index = node.indexOf(value);
+        T removed = node.getKey(index);
+        if (node.numberOfChildren() > 0) {
+            // Internal node: replace the value with its predecessor and remove the predecessor from its leaf
+            Node<T> leaf = node.getChild(index);
+            while (leaf.numberOfChildren() > 0) {
+                leaf = leaf.getChild(leaf.numberOfChildren() - 1);
+            }
+            node.setKey(index, leaf.removeKey(leaf.numberOfKeys() - 1));
+            node = leaf;
+        } else {
+            node.removeKey(index);
+        }
+        size--;
+
+        while (node != root && node.numberOfKeys() < tParameter) {
+            node = fixUnderflow(node);
+        }
+        if (root.numberOfKeys() == 0) {
+            // Root collapse, height of tree is decreased
+            root = root.numberOfChildren() > 0 ? root.getChild(0) : null;
+            if (root != null) {
+                root.parent = null;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Restores minimum occupancy of the node.
+     *
+     * @param node with tParameter - 1 keys.
+     * @return parent, which may underflow now.
+     */
+    private Node<T> fixUnderflow(Node<T> node) {
+        Node<T> parent = node.parent;
+        int index = parent.indexOfChild(node);
+        Node<T> left = index > 0 ? parent.getChild(index - 1) : null;
+        Node<T> right = parent.getChild(index + 1);
+
+        if (left != null && left.numberOfKeys() > tParameter) {
+            // Borrow from the left sibling: its last key goes up, the separator comes down
+            node.addKey(parent.getKey(index - 1));
+            parent.setKey(index - 1, left.removeKey(left.numberOfKeys() - 1));
+            if (left.numberOfChildren() > 0) {
+                node.addChild(0, left.removeChild(left.numberOfChildren() - 1));
+            }
+        } else if (right != null && right.numberOfKeys() > tParameter) {
+            // Borrow from the right sibling
+            node.addKey(parent.getKey(index));
+            parent.setKey(index, right.removeKey(0));
+            if (right.numberOfChildren() > 0) {
+                node.addChild(node.numberOfChildren(), right.removeChild(0));
+            }
+        } else if (left != null) {
+            merge(left, parent, index - 1, node);
+        } else {
+            merge(node, parent, index, right);
+        }
+        return parent;
+    }
+
+    /**
+     * Moves the separator and all keys and children of right into left and removes right from parent.
+     */
+    private void merge(Node<T> left, Node<T> parent, int separatorIndex, Node<T> right) {
+        left.addKey(parent.removeKey(separatorIndex));
+        parent.removeChild(separatorIndex + 1);
+        for (int i = 0; i < right.numberOfKeys(); i++) {
+            left.addKey(right.getKey(i));
+        }
+        for (int i = 0; i < right.numberOfChildren(); i++) {
+            left.addChild(left.numberOfChildren(), right.getChild(i));
+        }
+    }
+
+    /**
+     * @return number of levels (0 for an empty tree).
+     */
+    public int height() {
+        int height = 0;
+        for (Node<T> node = root; node != null; node = node.numberOfChildren() > 0 ? node.getChild(0) : null) {
+            height++;
+        }
+        return height;
+    }
+
+    /**
+     * Checks B-tree invariants: key order, occupancy between tParameter and 2 * tParameter
+     * (the root may have fewer keys), keys + 1 children in internal nodes, parent links,
+     * equal depth of leaves and size.
+     *
+     * @throws IllegalStateException if an invariant is broken.
+     */
+    void checkInvariants() {
+        if (root == null) {
+            if (size != 0) {
+                throw new IllegalStateException("Empty tree has size " + size);
+            }
+            return;
+        }
+        if (root.parent != null) {
+            throw new IllegalStateException("Root has parent");
+        }
+        int[] count = new int[1];
+        int[] leafDepth = {-1};
+        checkSubtree(root, null, null, 0, leafDepth, count);
+        if (count[0] != size) {
+            throw new IllegalStateException("Size is " + size + ", but tree has " + count[0] + " values");
+        }
+    }
+
+    private void checkSubtree(Node<T> node, T lowerBound, T upperBound, int depth, int[] leafDepth, int[] count) {
+        int numberOfKeys = node.numberOfKeys();
+        if (numberOfKeys > 2 * tParameter || numberOfKeys < (node == root ? 1 : tParameter)) {
+            throw new IllegalStateException("Node has " + numberOfKeys + " keys");
+        }
+        count[0] += numberOfKeys;
+        for (int i = 0; i < numberOfKeys; i++) {
+            T key = node.getKey(i);
+            if ((i > 0 && node.getKey(i - 1).compareTo(key) >= 0) ||
+                    (lowerBound != null && key.compareTo(lowerBound) <= 0) ||
+                    (upperBound != null && key.compareTo(upperBound) >= 0)) {
+                throw new IllegalStateException("Order is broken at " + key);
+            }
+        }
+        if (node.numberOfChildren() == 0) {
+            if (leafDepth[0] == -1) {
+                leafDepth[0] = depth;
+            } else if (leafDepth[0] != depth) {
+                throw new IllegalStateException("Leaves at depth " + leafDepth[0] + " and " + depth);
+            }
+            return;
+        }
+        if (node.numberOfChildren() != numberOfKeys + 1) {
+            throw new IllegalStateException("Node has " + numberOfKeys + " keys and " + node.numberOfChildren() + " children");
+        }
+        for (int i = 0; i <= numberOfKeys; i++) {
+            Node<T> child = node.getChild(i);
+            if (child.parent != node) {
+                throw new IllegalStateException("Wrong parent of child " + i);
+            }
+            checkSubtree(child, i == 0 ? lowerBound : node.getKey(i - 1),
+                    i == numberOfKeys ? upperBound : node.getKey(i), depth + 1, leafDepth, count);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -165,46 +524,11 @@ public class BTree<T extends Comparable<T>> {
     private Node<T> getNode(T value) {
         Node<T> node = root;
         while (node != null) {
-            T lesser = node.getKey(0);
-            if (value.compareTo(lesser) < 0) {
-                if (node.numberOfChildren() > 0) {
-                    node = node.getChild(0);
-                } else {
-                    node = null;
-                }
-                continue;
-            }
-
-            int numberOfKeys = node.numberOfKeys();
-            int last = numberOfKeys - 1;
-            T greater = node.getKey(last);
-            if (value.compareTo(greater) > 0) {
-                if (node.numberOfChildren() > numberOfKeys) {
-                    node = node.getChild(numberOfKeys);
-                } else {
-                    node = null;
-                }
-                continue;
-            }
-
-            for (int i = 0; i < numberOfKeys; i++) {
-                T currentValue = node.getKey(i);
-                if (currentValue.compareTo(value) == 0) {
-                    return node;
-                }
-
-                int next = i + 1;
-                if (next <= last) {
-                    T nextValue = node.getKey(next);
-                    if (currentValue.compareTo(value) < 0 && nextValue.compareTo(value) > 0) {
-                        if (next < node.numberOfChildren()) {
-                            node = node.getChild(next);
-                            break;
-                        }
-                        return null;
-                    }
-                }
+            int index = node.search(value);
+            if (index >= 0) {
+                return node;
             }
+            node = node.getChild(-index - 1); // null for a leaf
         }
         return null;
     }
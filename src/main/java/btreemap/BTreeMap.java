@@ -1,11 +1,119 @@
 package btreemap;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
 public class BTreeMap <K extends Comparable<K>, V>{
 
+    /**
+     * Устройство дерева
+     */
+    public enum Mode {
+        /**
+         * B-дерево: пары хранятся во всех узлах
+         */
+        BTREE,
+        /**
+         * B+-дерево ({@link BPlusTree}): значения только в связанных листьях, обход диапазона последовательный
+         */
+        BPLUS_TREE,
+        /**
+         * B-дерево с копированием при записи ({@link CopyOnWriteBTree}): чтения и {@link #snapshot()}
+         * не блокируются записью, запись публикует новый корень атомарно
+         */
+        COPY_ON_WRITE
+    }
+
+    private final Mode mode;
     private BTree<Pair<K, V>> tree;
+    private BPlusTree<K, V> plusTree;
+    private CopyOnWriteBTree<K, V> cowTree;
 
     public BTreeMap(int treeParameter) {
-        tree = new BTree<>(treeParameter);
+        this(treeParameter, Mode.BTREE);
+    }
+
+    /**
+     * Конструктор с выбором устройства дерева
+     * @param treeParameter Минимальное количество ключей в узле, кроме корня
+     * @param mode Устройство дерева
+     */
+    public BTreeMap(int treeParameter, Mode mode) {
+        this.mode = Objects.requireNonNull(mode);
+        if (mode == Mode.BPLUS_TREE) {
+            plusTree = new BPlusTree<>(treeParameter);
+        } else if (mode == Mode.COPY_ON_WRITE) {
+            cowTree = new CopyOnWriteBTree<>(treeParameter);
+        } else {
+            tree = new BTree<>(treeParameter);
+        }
+    }
+
+    private BTreeMap(CopyOnWriteBTree<K, V> cowTree) {
+        this.mode = Mode.COPY_ON_WRITE;
+        this.cowTree = cowTree;
+    }
+
+    /**
+     * Снимок за O(1) в режиме {@link Mode#COPY_ON_WRITE}: согласованная версия всех пар, которую можно долго
+     * читать, пока запись в исходный {@code map} продолжается. Снимок и исходный {@code map} разделяют узлы,
+     * и дальнейшие изменения любого из них не видны другому
+     * @return Снимок
+     * @throws UnsupportedOperationException Если {@code map} не в режиме {@link Mode#COPY_ON_WRITE}
+     */
+    public BTreeMap<K, V> snapshot() {
+        if (mode != Mode.COPY_ON_WRITE) {
+            throw new UnsupportedOperationException("Snapshot requires COPY_ON_WRITE mode, not " + mode);
+        }
+        return new BTreeMap<>(cowTree.snapshot());
+    }
+
+    /**
+     * Создает {@code map} в режиме {@link Mode#BTREE} из пар, упорядоченных по возрастанию ключей.
+     * Дерево строится снизу вверх за O(n) без разбиений узлов.
+     * @param treeParameter Минимальное количество ключей в узле, кроме корня
+     * @param sorted Пары в строго возрастающем порядке ключей
+     * @param fillFactor Доля заполнения узла от 2 * {@code treeParameter} ключей, в (0, 1]. Узлы не бывают
+     *                   заполнены меньше, чем на {@code treeParameter} ключей
+     * @return Новый {@code map}
+     * @throws IllegalArgumentException Если ключи не упорядочены, повторяются или доля заполнения вне (0, 1]
+     */
+    public static <K extends Comparable<K>, V> BTreeMap<K, V> fromSorted(int treeParameter,
+                                                                         Iterator<Pair<K, V>> sorted,
+                                                                         double fillFactor) {
+        BTreeMap<K, V> map = new BTreeMap<>(treeParameter);
+        Iterator<Pair<K, V>> copies = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return sorted.hasNext();
+            }
+
+            @Override
+            public Pair<K, V> next() {
+                Pair<K, V> pair = sorted.next();
+                return new Pair<>(Objects.requireNonNull(pair.first), pair.second);
+            }
+        };
+        map.tree.buildFromSorted(copies, fillFactor);
+        return map;
+    }
+
+    /**
+     * То же, что {@link #fromSorted(int, Iterator, double)}, для потока пар
+     * @param treeParameter Минимальное количество ключей в узле, кроме корня
+     * @param sorted Поток пар в строго возрастающем порядке ключей
+     * @param fillFactor Доля заполнения узла от 2 * {@code treeParameter} ключей, в (0, 1]
+     * @return Новый {@code map}
+     */
+    public static <K extends Comparable<K>, V> BTreeMap<K, V> fromSorted(int treeParameter,
+                                                                         Stream<Pair<K, V>> sorted,
+                                                                         double fillFactor) {
+        return fromSorted(treeParameter, sorted.iterator(), fillFactor);
     }
 
     /**
@@ -14,10 +122,72 @@ public class BTreeMap <K extends Comparable<K>, V>{
      * @param value Значение
      */
     public void put(K key, V value) {
-        if (tree.search(new Pair<>(key, value)) != null) {
-            return; // Not insert if exist
+        if (mode == Mode.BPLUS_TREE) {
+            plusTree.add(key, value);
+            return;
+        }
+        if (mode == Mode.COPY_ON_WRITE) {
+            cowTree.putIfAbsent(key, value);
+            return;
         }
-        tree.add(new Pair<>(key, value));
+        tree.addIfAbsent(new Pair<>(key, value)); // Not insert if exist
+    }
+
+    /**
+     * Добавляет новую пару, если такого ключа нет. В режиме {@link Mode#BTREE} дерево проходится один раз.
+     * @param key Ключ
+     * @param value Значение
+     * @return Значение, которое уже было по ключу, или {@code null}, если пара была добавлена
+     */
+    public V putIfAbsent(K key, V value) {
+        if (mode == Mode.BPLUS_TREE) {
+            V existing = plusTree.get(key);
+            if (existing == null) {
+                plusTree.add(key, value);
+            }
+            return existing;
+        }
+        if (mode == Mode.COPY_ON_WRITE) {
+            return cowTree.putIfAbsent(key, value);
+        }
+        Pair<K, V> existing = tree.addIfAbsent(new Pair<>(key, value));
+        return existing != null ? existing.second : null;
+    }
+
+    /**
+     * Вычисляет новое значение по ключу и старому значению (или {@code null}, если ключа нет).
+     * Если функция возвращает {@code null}, пара удаляется. В режиме {@link Mode#BTREE} поиск и вставка
+     * выполняются за один проход по дереву.
+     * @param key Ключ
+     * @param remapping Функция вычисления значения
+     * @return Новое значение или {@code null}, если пары нет
+     */
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        Objects.requireNonNull(key);
+        if (mode == Mode.BPLUS_TREE) {
+            V value = remapping.apply(key, plusTree.get(key));
+            if (value == null) {
+                plusTree.remove(key);
+            } else if (!plusTree.set(key, value)) {
+                plusTree.add(key, value);
+            }
+            return value;
+        }
+        if (mode == Mode.COPY_ON_WRITE) {
+            return cowTree.compute(key, remapping);
+        }
+        Pair<K, V> result = tree.compute(key, Pair::getFirst, pair -> {
+            V value = remapping.apply(key, pair != null ? pair.second : null);
+            if (value == null) {
+                return null;
+            }
+            if (pair == null) {
+                return new Pair<>(key, value);
+            }
+            pair.second = value;
+            return pair;
+        });
+        return result != null ? result.second : null;
     }
 
     /**
@@ -26,20 +196,40 @@ public class BTreeMap <K extends Comparable<K>, V>{
      * @param newValue Новое значение
      */
     public void replace(K key, V newValue) {
-        var searchResult = tree.search(new Pair<>(key, null));
+        if (mode == Mode.BPLUS_TREE) {
+            plusTree.set(key, newValue);
+            return;
+        }
+        if (mode == Mode.COPY_ON_WRITE) {
+            cowTree.replace(key, newValue);
+            return;
+        }
+        var searchResult = tree.get(key, Pair::getFirst);
         if (searchResult != null) {
             searchResult.second = newValue;
         }
     }
 
     /**
-     * Делает замену старого значения на новое, если совпало сторое значение
+     * Делает замену старого значения на новое, если совпало сторое значение.
+     * Значения сравниваются через {@link Objects#equals}, поэтому {@code oldValue} может быть {@code null}.
      * @param key Ключ
      * @param newValue Новое значение
      */
     public void replace(K key, V oldValue, V newValue) {
-        var searchResult = tree.search(new Pair<>(key, null));
-        if (searchResult != null && searchResult.second.equals(oldValue)) {
+        if (mode == Mode.BPLUS_TREE) {
+            // 'get' returns null for an absent key too, but 'set' does nothing for an absent key
+            if (Objects.equals(plusTree.get(key), oldValue)) {
+                plusTree.set(key, newValue);
+            }
+            return;
+        }
+        if (mode == Mode.COPY_ON_WRITE) {
+            cowTree.replace(key, oldValue, newValue);
+            return;
+        }
+        var searchResult = tree.get(key, Pair::getFirst);
+        if (searchResult != null && Objects.equals(searchResult.second, oldValue)) {
             searchResult.second = newValue;
         }
     }
@@ -50,7 +240,13 @@ public class BTreeMap <K extends Comparable<K>, V>{
      * @return Значение
      */
     public V get(K key) {
-        var searchResult = tree.search(new Pair<>(key, null));
+        if (mode == Mode.BPLUS_TREE) {
+            return plusTree.get(key);
+        }
+        if (mode == Mode.COPY_ON_WRITE) {
+            return cowTree.get(key);
+        }
+        var searchResult = tree.get(key, Pair::getFirst);
         if (searchResult != null) {
             return searchResult.second;
         } else {
@@ -58,8 +254,71 @@ public class BTreeMap <K extends Comparable<K>, V>{
         }
     }
 
+    /**
+     * Удаляет пару по ключу
+     * @param key Ключ
+     * @return Значение удаленной пары или {@code null}, если такого ключа не существовало
+     */
+    public V remove(K key) {
+        if (mode == Mode.BPLUS_TREE) {
+            return plusTree.remove(key);
+        }
+        if (mode == Mode.COPY_ON_WRITE) {
+            return cowTree.remove(key);
+        }
+        Pair<K, V> removed = tree.remove(new Pair<>(key, null));
+        return removed != null ? removed.second : null;
+    }
+
+    /**
+     * Возвращает пары с ключами из диапазона [{@code from}, {@code to}) в порядке возрастания ключей.
+     * В режиме {@link Mode#BPLUS_TREE} пары читаются лениво по списку листьев; в режиме {@link Mode#BTREE}
+     * диапазон собирается обходом дерева в список при вызове, в режиме {@link Mode#COPY_ON_WRITE} - из одной
+     * версии дерева без блокировки записи.
+     * @param from Нижняя граница (включительно)
+     * @param to Верхняя граница (не включительно)
+     * @return Пары диапазона
+     */
+    public Iterable<Pair<K, V>> range(K from, K to) {
+        Objects.requireNonNull(from);
+        Objects.requireNonNull(to);
+        if (mode == Mode.BPLUS_TREE) {
+            return plusTree.range(from, to);
+        }
+        if (mode == Mode.COPY_ON_WRITE) {
+            return cowTree.range(from, to);
+        }
+        List<Pair<K, V>> pairs = new ArrayList<>();
+        tree.forEachInRange(new Pair<>(from, null), new Pair<>(to, null), pairs::add);
+        return pairs;
+    }
+
+    /**
+     * Перебирает все пары в порядке возрастания ключей
+     * @param action Действие над парой
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (mode == Mode.BPLUS_TREE) {
+            plusTree.forEach(action);
+        } else if (mode == Mode.COPY_ON_WRITE) {
+            cowTree.forEach(action);
+        } else {
+            tree.forEachInRange(null, null, pair -> action.accept(pair.first, pair.second));
+        }
+    }
+
+    /**
+     * @return Устройство дерева
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
     public int size() {
-        return tree.size();
+        if (mode == Mode.COPY_ON_WRITE) {
+            return cowTree.size();
+        }
+        return mode == Mode.BPLUS_TREE ? plusTree.size() : tree.size();
     }
 
 }
@@ -0,0 +1,197 @@
+package btreemap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Ограниченный кеш страниц файла с вытеснением по алгоритму "часы" (clock).
+ * <p>
+ * Страница, с которой идет работа, закрепляется ({@link #pin}) и не вытесняется до {@link #unpin}.
+ * При обращении у кадра устанавливается бит обращения; стрелка часов обходит кадры, снимает этот бит
+ * и вытесняет первый незакрепленный кадр без него. Измененные страницы записываются в файл при вытеснении
+ * и при {@link #flush()}.
+ */
+class BufferPool {
+    private final FileChannel channel;
+    private final int pageSize;
+
+    private final ByteBuffer[] frames;
+    // Номер страницы в кадре или -1 для свободного кадра
+    private final int[] pageOf;
+    private final int[] pinCount;
+    private final boolean[] dirty;
+    private final boolean[] referenced;
+    private final Map<Integer, Integer> frameOf = new HashMap<>();
+    private int hand = 0;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long writes = 0;
+
+    /**
+     * @param channel Файл
+     * @param pageSize Размер страницы в байтах
+     * @param capacity Количество кадров
+     */
+    BufferPool(FileChannel channel, int pageSize, int capacity) {
+        this.channel = channel;
+        this.pageSize = pageSize;
+        frames = new ByteBuffer[capacity];
+        pageOf = new int[capacity];
+        pinCount = new int[capacity];
+        dirty = new boolean[capacity];
+        referenced = new boolean[capacity];
+        for (int i = 0; i < capacity; i++) {
+            frames[i] = ByteBuffer.allocate(pageSize);
+            pageOf[i] = -1;
+        }
+    }
+
+    /**
+     * Закрепляет страницу, читая ее из файла, если ее нет в кеше
+     * @param page Номер страницы
+     * @return Буфер страницы; действителен до {@link #unpin}
+     */
+    ByteBuffer pin(int page) {
+        Integer frame = frameOf.get(page);
+        if (frame != null) {
+            hits++;
+        } else {
+            misses++;
+            frame = evict();
+            ByteBuffer buffer = frames[frame];
+            buffer.clear();
+            try {
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, (long) page * pageSize + buffer.position()) < 0) {
+                        throw new IllegalStateException("Page " + page + " is beyond the end of file");
+                    }
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            assign(frame, page);
+        }
+        pinCount[frame]++;
+        referenced[frame] = true;
+        return frames[frame];
+    }
+
+    /**
+     * Закрепляет новую страницу, не читая ее из файла. Страница заполнена нулями и считается измененной.
+     * @param page Номер страницы
+     * @return Буфер страницы; действителен до {@link #unpin}
+     */
+    ByteBuffer pinNew(int page) {
+        int frame = evict();
+        ByteBuffer buffer = frames[frame];
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            buffer.put((byte) 0);
+        }
+        assign(frame, page);
+        dirty[frame] = true;
+        pinCount[frame]++;
+        referenced[frame] = true;
+        return buffer;
+    }
+
+    /**
+     * Снимает закрепление страницы
+     * @param page Номер страницы
+     * @param modified true, если страница была изменена
+     */
+    void unpin(int page, boolean modified) {
+        int frame = frameOf.get(page);
+        if (pinCount[frame] == 0) {
+            throw new IllegalStateException("Page " + page + " is not pinned");
+        }
+        pinCount[frame]--;
+        dirty[frame] |= modified;
+    }
+
+    private void assign(int frame, int page) {
+        pageOf[frame] = page;
+        dirty[frame] = false;
+        frameOf.put(page, frame);
+    }
+
+    /**
+     * Освобождает кадр: свободный или вытесненный по алгоритму "часы"
+     * @return Номер кадра
+     */
+    private int evict() {
+        // Two full turns: the first one may only clear reference bits
+        for (int step = 0; step < 2 * frames.length; step++) {
+            int frame = hand;
+            hand = (hand + 1) % frames.length;
+            if (pageOf[frame] == -1) {
+                return frame;
+            }
+            if (pinCount[frame] > 0) {
+                continue;
+            }
+            if (referenced[frame]) {
+                referenced[frame] = false;
+                continue;
+            }
+            if (dirty[frame]) {
+                write(frame);
+            }
+            frameOf.remove(pageOf[frame]);
+            pageOf[frame] = -1;
+            return frame;
+        }
+        throw new IllegalStateException("All " + frames.length + " pages of the buffer pool are pinned");
+    }
+
+    private void write(int frame) {
+        ByteBuffer buffer = frames[frame];
+        buffer.clear();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, (long) pageOf[frame] * pageSize + buffer.position());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        dirty[frame] = false;
+        writes++;
+    }
+
+    /**
+     * Записывает в файл все измененные страницы
+     */
+    void flush() {
+        for (int frame = 0; frame < frames.length; frame++) {
+            if (pageOf[frame] != -1 && dirty[frame]) {
+                write(frame);
+            }
+        }
+    }
+
+    /**
+     * @return Количество обращений к страницам, которые были в кеше
+     */
+    long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return Количество страниц, прочитанных из файла
+     */
+    long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return Количество страниц, записанных в файл
+     */
+    long getWrites() {
+        return writes;
+    }
+}
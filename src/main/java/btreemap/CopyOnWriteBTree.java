@@ -0,0 +1,523 @@
+package btreemap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * B-дерево с копированием при записи: узлы после создания не изменяются. Запись копирует только путь
+ * от корня до измененного узла (и соседей при слиянии или перераспределении), а новая версия дерева
+ * публикуется атомарной заменой корня. Чтения берут текущую версию один раз и не блокируются записью;
+ * старые версии освобождает сборщик мусора, когда на них не остается ссылок.
+ * <p>
+ * Запись без блокировок: при одновременном изменении другим потоком операция повторяется на новой версии.
+ * Каждый узел, кроме корня, содержит от {@code t} до {@code 2t} пар. Значения, как и в {@link BTree}, могут быть
+ * {@code null}; {@link #compute} с результатом {@code null} удаляет пару.
+ * @param <K> Тип данных ключа
+ * @param <V> Тип данных значения
+ */
+public class CopyOnWriteBTree<K extends Comparable<K>, V> {
+    // Значение null хранится в узлах как NULL_VALUE, чтобы null в update означал отсутствие пары
+    private static final Object NULL_VALUE = new Object();
+
+    private final int tParameter;
+    private final AtomicReference<Version> version;
+
+    /**
+     * Неизменяемый узел: ключи и значения в параллельных массивах точного размера.
+     * У листа {@code children == null}, у внутреннего узла {@code keys.length + 1} потомков
+     */
+    private static final class Node {
+        private final Object[] keys;
+        private final Object[] values;
+        private final Node[] children;
+
+        private Node(Object[] keys, Object[] values, Node[] children) {
+            this.keys = keys;
+            this.values = values;
+            this.children = children;
+        }
+    }
+
+    /**
+     * Опубликованная версия дерева: корень и количество пар
+     */
+    private static final class Version {
+        private final Node root;
+        private final int size;
+
+        private Version(Node root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+    }
+
+    /**
+     * @param treeParameter Минимальное количество ключей в узле, кроме корня
+     */
+    public CopyOnWriteBTree(int treeParameter) {
+        if (treeParameter < 1) {
+            throw new IllegalArgumentException("Tree parameter should be positive: " + treeParameter);
+        }
+        this.tParameter = treeParameter;
+        this.version = new AtomicReference<>(new Version(null, 0));
+    }
+
+    private CopyOnWriteBTree(int treeParameter, Version version) {
+        this.tParameter = treeParameter;
+        this.version = new AtomicReference<>(version);
+    }
+
+    /**
+     * Снимок за O(1): новое дерево с текущей версией. Снимок и исходное дерево разделяют узлы,
+     * и дальнейшие изменения любого из них не видны другому
+     * @return Снимок дерева
+     */
+    public CopyOnWriteBTree<K, V> snapshot() {
+        return new CopyOnWriteBTree<>(tParameter, version.get());
+    }
+
+    @SuppressWarnings("unchecked")
+    private K key(Node node, int index) {
+        return (K) node.keys[index];
+    }
+
+    private V value(Node node, int index) {
+        return unmask(node.values[index]);
+    }
+
+    private static Object mask(Object value) {
+        return value != null ? value : NULL_VALUE;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V unmask(Object stored) {
+        return stored != NULL_VALUE ? (V) stored : null;
+    }
+
+    /**
+     * Ищет позицию ключа в узле
+     * @return Индекс ключа или {@code -(точка вставки) - 1}, если ключа нет
+     */
+    private int search(Node node, K key) {
+        int low = 0;
+        int high = node.keys.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int cmp = key(node, middle).compareTo(key);
+            if (cmp < 0) {
+                low = middle + 1;
+            } else if (cmp > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * @return Хранимое значение или {@code null}, если ключа нет
+     */
+    private Object find(Node node, K key) {
+        while (node != null) {
+            int index = search(node, key);
+            if (index >= 0) {
+                return node.values[index];
+            }
+            node = node.children != null ? node.children[-index - 1] : null;
+        }
+        return null;
+    }
+
+    /**
+     * Возвращает значение по ключу
+     * @param key Ключ
+     * @return Значение или {@code null}, если такого ключа нет
+     */
+    public V get(K key) {
+        Objects.requireNonNull(key);
+        return unmask(find(version.get().root, key));
+    }
+
+    /**
+     * Общая часть всех изменений: вычисляет новое хранимое значение по старому ({@code null} - пары нет)
+     * и публикует новую версию дерева. Если другой поток опубликовал версию раньше, вычисление повторяется
+     * на ней. Если функция возвращает старое значение, дерево не меняется.
+     * @return Хранимое значение до изменения, по которому было вычислено опубликованное
+     */
+    private Object update(K key, UnaryOperator<Object> remapping) {
+        Objects.requireNonNull(key);
+        while (true) {
+            Version current = version.get();
+            Object oldStored = find(current.root, key);
+            Object newStored = remapping.apply(oldStored);
+            if (newStored == oldStored || version.compareAndSet(current, change(current, key, oldStored, newStored))) {
+                return oldStored;
+            }
+        }
+    }
+
+    /**
+     * Вычисляет новое значение по ключу и старому значению (или {@code null}, если ключа нет) и публикует
+     * новую версию дерева. Если функция возвращает {@code null}, пара удаляется; если возвращает старое
+     * значение, дерево не меняется. При одновременной записи другим потоком функция вызывается повторно
+     * на новой версии, поэтому она не должна иметь побочных эффектов, кроме последнего вызова.
+     * @param key Ключ
+     * @param remapping Функция вычисления значения
+     * @return Новое значение или {@code null}, если пары нет
+     */
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        Object[] computed = new Object[1];
+        update(key, oldStored -> {
+            computed[0] = remapping.apply(key, unmask(oldStored));
+            return computed[0];
+        });
+        return unmask(computed[0]);
+    }
+
+    /**
+     * Добавляет новую пару, если такого ключа нет. Значение может быть {@code null}
+     * @param key Ключ
+     * @param value Значение
+     * @return Значение, которое уже было по ключу, или {@code null}, если пара была добавлена
+     */
+    public V putIfAbsent(K key, V value) {
+        return unmask(update(key, oldStored -> oldStored != null ? oldStored : mask(value)));
+    }
+
+    /**
+     * Делает замену старого значения на новое, если ключ есть
+     * @param key Ключ
+     * @param newValue Новое значение (может быть {@code null})
+     * @return {@code true}, если значение заменено
+     */
+    public boolean replace(K key, V newValue) {
+        return update(key, oldStored -> oldStored != null ? mask(newValue) : null) != null;
+    }
+
+    /**
+     * Делает замену старого значения на новое, если совпало старое значение
+     * @param key Ключ
+     * @param expected Ожидаемое старое значение (может быть {@code null})
+     * @param newValue Новое значение (может быть {@code null})
+     * @return {@code true}, если значение заменено
+     */
+    public boolean replace(K key, V expected, V newValue) {
+        Object oldStored = update(key, stored ->
+                stored != null && Objects.equals(unmask(stored), expected) ? mask(newValue) : stored);
+        return oldStored != null && Objects.equals(unmask(oldStored), expected);
+    }
+
+    /**
+     * Удаляет пару по ключу
+     * @param key Ключ
+     * @return Значение удаленной пары или {@code null}, если такого ключа не существовало
+     */
+    public V remove(K key) {
+        return unmask(update(key, oldStored -> null));
+    }
+
+    /**
+     * Строит следующую версию, не изменяя узлы текущей
+     */
+    private Version change(Version current, K key, Object oldValue, Object newValue) {
+        if (newValue == null) {
+            Node root = remove(current.root, key);
+            if (root.keys.length == 0) {
+                // Root collapse, height of tree is decreased
+                root = root.children != null ? root.children[0] : null;
+            }
+            return new Version(root, current.size - 1);
+        }
+        if (oldValue != null) {
+            return new Version(set(current.root, key, newValue), current.size);
+        }
+        if (current.root == null) {
+            return new Version(new Node(new Object[]{key}, new Object[]{newValue}, null), 1);
+        }
+        Node root = insert(current.root, key, newValue);
+        if (root.keys.length > 2 * tParameter) {
+            // New root, height of tree is increased
+            Node[] halves = split(root);
+            root = new Node(new Object[]{root.keys[tParameter]}, new Object[]{root.values[tParameter]}, halves);
+        }
+        return new Version(root, current.size + 1);
+    }
+
+    /**
+     * Копия пути с замененным значением существующего ключа
+     */
+    private Node set(Node node, K key, Object value) {
+        int index = search(node, key);
+        if (index >= 0) {
+            return new Node(node.keys, replaceAt(node.values, index, value), node.children);
+        }
+        index = -index - 1;
+        return new Node(node.keys, node.values, replaceAt(node.children, index, set(node.children[index], key, value)));
+    }
+
+    /**
+     * Копия пути с новым ключом. Возвращенный узел может содержать {@code 2t + 1} ключей,
+     * тогда его разделяет родитель (или {@link #change} для корня)
+     */
+    private Node insert(Node node, K key, Object value) {
+        int index = -search(node, key) - 1;
+        if (node.children == null) {
+            return new Node(insertAt(node.keys, index, key), insertAt(node.values, index, value), null);
+        }
+        Node child = insert(node.children[index], key, value);
+        if (child.keys.length <= 2 * tParameter) {
+            return new Node(node.keys, node.values, replaceAt(node.children, index, child));
+        }
+        Node[] halves = split(child);
+        Node[] children = insertAt(node.children, index + 1, halves[1]);
+        children[index] = halves[0];
+        return new Node(insertAt(node.keys, index, child.keys[tParameter]),
+                insertAt(node.values, index, child.values[tParameter]), children);
+    }
+
+    /**
+     * Делит переполненный узел на два по {@code t} ключей; средний ключ поднимается в родителя
+     */
+    private Node[] split(Node node) {
+        int t = tParameter;
+        Node left = new Node(Arrays.copyOfRange(node.keys, 0, t), Arrays.copyOfRange(node.values, 0, t),
+                node.children != null ? Arrays.copyOfRange(node.children, 0, t + 1) : null);
+        Node right = new Node(Arrays.copyOfRange(node.keys, t + 1, 2 * t + 1),
+                Arrays.copyOfRange(node.values, t + 1, 2 * t + 1),
+                node.children != null ? Arrays.copyOfRange(node.children, t + 1, 2 * t + 2) : null);
+        return new Node[]{left, right};
+    }
+
+    /**
+     * Копия пути без существующего ключа. Ключ во внутреннем узле заменяется предшественником,
+     * недозаполненный потомок исправляется в {@link #fixChild}. Корень может остаться без ключей
+     */
+    private Node remove(Node node, K key) {
+        int index = search(node, key);
+        if (node.children == null) {
+            return new Node(removeAt(node.keys, index), removeAt(node.values, index), null);
+        }
+        if (index >= 0) {
+            Node predecessor = node.children[index];
+            while (predecessor.children != null) {
+                predecessor = predecessor.children[predecessor.children.length - 1];
+            }
+            int last = predecessor.keys.length - 1;
+            K predecessorKey = key(predecessor, last);
+            Node child = remove(node.children[index], predecessorKey);
+            return fixChild(new Node(replaceAt(node.keys, index, predecessorKey),
+                    replaceAt(node.values, index, predecessor.values[last]),
+                    replaceAt(node.children, index, child)), index);
+        }
+        index = -index - 1;
+        Node child = remove(node.children[index], key);
+        return fixChild(new Node(node.keys, node.values, replaceAt(node.children, index, child)), index);
+    }
+
+    /**
+     * Если у потомка меньше {@code t} ключей, берет ключ у соседа через разделитель
+     * или сливает потомка с соседом и разделителем. Узел {@code node} - уже копия, его массивы можно менять
+     */
+    private Node fixChild(Node node, int index) {
+        Node child = node.children[index];
+        if (child.keys.length >= tParameter) {
+            return node;
+        }
+        if (index > 0 && node.children[index - 1].keys.length > tParameter) {
+            // Borrow the last key of the left sibling through the separator
+            Node left = node.children[index - 1];
+            int last = left.keys.length - 1;
+            node.children[index - 1] = new Node(removeAt(left.keys, last), removeAt(left.values, last),
+                    left.children != null ? removeAt(left.children, last + 1) : null);
+            node.children[index] = new Node(insertAt(child.keys, 0, node.keys[index - 1]),
+                    insertAt(child.values, 0, node.values[index - 1]),
+                    child.children != null ? insertAt(child.children, 0, left.children[last + 1]) : null);
+            return new Node(replaceAt(node.keys, index - 1, left.keys[last]),
+                    replaceAt(node.values, index - 1, left.values[last]), node.children);
+        }
+        if (index < node.keys.length && node.children[index + 1].keys.length > tParameter) {
+            // Borrow the first key of the right sibling through the separator
+            Node right = node.children[index + 1];
+            int end = child.keys.length;
+            node.children[index] = new Node(insertAt(child.keys, end, node.keys[index]),
+                    insertAt(child.values, end, node.values[index]),
+                    child.children != null ? insertAt(child.children, end + 1, right.children[0]) : null);
+            node.children[index + 1] = new Node(removeAt(right.keys, 0), removeAt(right.values, 0),
+                    right.children != null ? removeAt(right.children, 0) : null);
+            return new Node(replaceAt(node.keys, index, right.keys[0]),
+                    replaceAt(node.values, index, right.values[0]), node.children);
+        }
+        // Merge with a sibling: left + separator + right
+        int separator = index > 0 ? index - 1 : index;
+        Node left = node.children[separator];
+        Node right = node.children[separator + 1];
+        Node merged = new Node(join(left.keys, node.keys[separator], right.keys),
+                join(left.values, node.values[separator], right.values),
+                left.children != null ? join(left.children, null, right.children) : null);
+        Node[] children = removeAt(node.children, separator + 1);
+        children[separator] = merged;
+        return new Node(removeAt(node.keys, separator), removeAt(node.values, separator), children);
+    }
+
+    private static <E> E[] insertAt(E[] array, int index, E value) {
+        E[] copy = Arrays.copyOf(array, array.length + 1);
+        System.arraycopy(array, index, copy, index + 1, array.length - index);
+        copy[index] = value;
+        return copy;
+    }
+
+    private static <E> E[] removeAt(E[] array, int index) {
+        E[] copy = Arrays.copyOf(array, array.length - 1);
+        System.arraycopy(array, index + 1, copy, index, array.length - index - 1);
+        return copy;
+    }
+
+    private static <E> E[] replaceAt(E[] array, int index, E value) {
+        E[] copy = array.clone();
+        copy[index] = value;
+        return copy;
+    }
+
+    /**
+     * @return {@code left}, {@code middle} (если не {@code null}) и {@code right} подряд
+     */
+    private static <E> E[] join(E[] left, E middle, E[] right) {
+        int gap = middle != null ? 1 : 0;
+        E[] joined = Arrays.copyOf(left, left.length + gap + right.length);
+        if (middle != null) {
+            joined[left.length] = middle;
+        }
+        System.arraycopy(right, 0, joined, left.length + gap, right.length);
+        return joined;
+    }
+
+    /**
+     * Возвращает пары с ключами из диапазона [{@code from}, {@code to}) одной версии дерева
+     * в порядке возрастания ключей
+     * @param from Нижняя граница (включительно)
+     * @param to Верхняя граница (не включительно)
+     * @return Пары диапазона
+     */
+    public Iterable<Pair<K, V>> range(K from, K to) {
+        List<Pair<K, V>> pairs = new ArrayList<>();
+        forEachInRange(version.get().root, from, to, (key, value) -> pairs.add(new Pair<>(key, value)));
+        return pairs;
+    }
+
+    /**
+     * Перебирает все пары одной версии дерева в порядке возрастания ключей. Изменения,
+     * сделанные во время обхода, в нем не видны
+     * @param action Действие над парой
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        forEachInRange(version.get().root, null, null, action);
+    }
+
+    /**
+     * @param from Нижняя граница (включительно) или {@code null}
+     * @param to Верхняя граница (не включительно) или {@code null}
+     */
+    private void forEachInRange(Node node, K from, K to, BiConsumer<? super K, ? super V> action) {
+        if (node == null) {
+            return;
+        }
+        int index = 0;
+        if (from != null) {
+            index = search(node, from);
+            index = index >= 0 ? index : -index - 1;
+        }
+        for (; index <= node.keys.length; index++) {
+            if (node.children != null) {
+                forEachInRange(node.children[index], from, to, action);
+            }
+            if (index == node.keys.length) {
+                return;
+            }
+            K key = key(node, index);
+            if (to != null && key.compareTo(to) >= 0) {
+                return;
+            }
+            action.accept(key, value(node, index));
+        }
+    }
+
+    /**
+     * Проверяет свойства B-дерева: порядок ключей, заполненность узлов от {@code t} до {@code 2t}
+     * (корень может содержать меньше), одинаковую глубину листьев и размер
+     * @throws IllegalStateException Если свойство нарушено
+     */
+    void checkInvariants() {
+        Version current = version.get();
+        int[] count = new int[1];
+        if (current.root != null) {
+            checkSubtree(current.root, true, null, null, 0, new int[]{-1}, count);
+        }
+        if (count[0] != current.size) {
+            throw new IllegalStateException("Size is " + current.size + ", but tree has " + count[0] + " pairs");
+        }
+    }
+
+    private void checkSubtree(Node node, boolean isRoot, K lowerBound, K upperBound, int depth,
+                              int[] leafDepth, int[] count) {
+        int keysSize = node.keys.length;
+        if (keysSize > 2 * tParameter || keysSize < (isRoot ? 1 : tParameter) || node.values.length != keysSize) {
+            throw new IllegalStateException("Node has " + keysSize + " keys and " + node.values.length + " values");
+        }
+        count[0] += keysSize;
+        for (int i = 0; i < keysSize; i++) {
+            K key = key(node, i);
+            if ((i > 0 && key(node, i - 1).compareTo(key) >= 0) ||
+                    (lowerBound != null && key.compareTo(lowerBound) <= 0) ||
+                    (upperBound != null && key.compareTo(upperBound) >= 0)) {
+                throw new IllegalStateException("Order is broken at " + key);
+            }
+        }
+        if (node.children == null) {
+            if (leafDepth[0] == -1) {
+                leafDepth[0] = depth;
+            } else if (leafDepth[0] != depth) {
+                throw new IllegalStateException("Leaves at depth " + leafDepth[0] + " and " + depth);
+            }
+            return;
+        }
+        if (node.children.length != keysSize + 1) {
+            throw new IllegalStateException("Node has " + keysSize + " keys and " + node.children.length + " children");
+        }
+        for (int i = 0; i <= keysSize; i++) {
+            checkSubtree(node.children[i], false, i == 0 ? lowerBound : key(node, i - 1),
+                    i == keysSize ? upperBound : key(node, i), depth + 1, leafDepth, count);
+        }
+    }
+
+    /**
+     * Удаляет все пары, публикуя пустую версию
+     */
+    public void clear() {
+        version.set(new Version(null, 0));
+    }
+
+    /**
+     * @return Количество пар в текущей версии
+     */
+    public int size() {
+        return version.get().size;
+    }
+
+    /**
+     * @return Количество уровней (0 для пустого дерева)
+     */
+    public int height() {
+        int height = 0;
+        for (Node node = version.get().root; node != null; node = node.children != null ? node.children[0] : null) {
+            height++;
+        }
+        return height;
+    }
+}
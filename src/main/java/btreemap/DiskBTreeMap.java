@@ -0,0 +1,602 @@
+package btreemap;
+
+import hashmap.Codec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * B+-дерево, которое хранится в файле. Каждый узел - страница фиксированного размера; с файлом работает
+ * {@link BufferPool}, в котором остается ограниченное число страниц, поэтому объем данных может превышать
+ * объем памяти. Ключи и значения кодируются {@link Codec} фиксированной длины.
+ * <p>
+ * Формат файла: страница 0 - заголовок (корень, высота, размер, число страниц), далее узлы.
+ * Лист: [тип | количество | следующий лист | (ключ, значение)...].
+ * Внутренний узел: [тип | количество | потомок 0 | (ключ, потомок)...].
+ * Заголовок и измененные страницы записываются при {@link #flush()} и {@link #close()}; открытие файла
+ * читает только заголовок, и дерево сразу готово к работе.
+ * <p>
+ * Как и в {@link BTreeMap}, {@link #put} не меняет значение существующего ключа. Удаление не сливает
+ * страницы: опустевший лист остается в дереве и заполняется при следующих вставках.
+ * @param <K> Тип данных ключа
+ * @param <V> Тип данных значения
+ */
+public class DiskBTreeMap<K extends Comparable<K>, V> implements Closeable {
+    public static final int DEFAULT_PAGE_SIZE = 4096;
+    public static final int DEFAULT_POOL_PAGES = 256;
+    // Кадров нужно не меньше, чем страниц, закрепленных одновременно при расщеплении
+    private static final int MIN_POOL_PAGES = 4;
+
+    private static final int MAGIC = 0x42545231; // "BTR1"
+    private static final int MAGIC_OFFSET = 0;
+    private static final int PAGE_SIZE_OFFSET = 4;
+    private static final int KEY_WIDTH_OFFSET = 8;
+    private static final int VALUE_WIDTH_OFFSET = 12;
+    private static final int ROOT_OFFSET = 16;
+    private static final int HEIGHT_OFFSET = 20;
+    private static final int SIZE_OFFSET = 24;
+    private static final int PAGE_COUNT_OFFSET = 28;
+    private static final int HEADER_SIZE = 32;
+
+    private static final int LEAF = 1;
+    private static final int INNER = 2;
+    private static final int TYPE_OFFSET = 0;
+    private static final int COUNT_OFFSET = 4;
+    // Следующий лист у листа и потомок 0 у внутреннего узла
+    private static final int LINK_OFFSET = 8;
+    private static final int ENTRIES_OFFSET = 12;
+    // Страница 0 занята заголовком, поэтому 0 означает "нет страницы"
+    private static final int NO_PAGE = 0;
+
+    private final FileChannel channel;
+    private final BufferPool pool;
+    private final Codec<K> keyCodec;
+    private final Codec<V> valueCodec;
+    private final int pageSize;
+    private final int keyWidth;
+    private final int leafEntrySize;
+    private final int innerEntrySize;
+    private final int leafCapacity;
+    private final int innerCapacity;
+    // Разделитель, который поднимается при расщеплении
+    private final ByteBuffer separator;
+
+    private int root = NO_PAGE;
+    private int height = 0;
+    private int size = 0;
+    private int pageCount = 1;
+
+    private DiskBTreeMap(FileChannel channel, Codec<K> keyCodec, Codec<V> valueCodec, int pageSize, int poolPages) {
+        this.channel = channel;
+        this.keyCodec = Objects.requireNonNull(keyCodec);
+        this.valueCodec = Objects.requireNonNull(valueCodec);
+        this.pageSize = pageSize;
+        this.keyWidth = keyCodec.size();
+        this.leafEntrySize = keyWidth + valueCodec.size();
+        this.innerEntrySize = keyWidth + Integer.BYTES;
+        this.leafCapacity = (pageSize - ENTRIES_OFFSET) / leafEntrySize;
+        this.innerCapacity = (pageSize - ENTRIES_OFFSET) / innerEntrySize;
+        if (pageSize < HEADER_SIZE || leafCapacity < 3 || innerCapacity < 3) {
+            throw new IllegalArgumentException("Page of " + pageSize + " bytes is too small for key of " + keyWidth
+                    + " bytes and value of " + valueCodec.size() + " bytes");
+        }
+        if (poolPages < MIN_POOL_PAGES) {
+            throw new IllegalArgumentException("Buffer pool should have at least " + MIN_POOL_PAGES + " pages: " + poolPages);
+        }
+        this.pool = new BufferPool(channel, pageSize, poolPages);
+        this.separator = ByteBuffer.allocate(keyWidth);
+    }
+
+    /**
+     * Открывает дерево с размером страницы и буфера по умолчанию
+     * @see #open(Path, Codec, Codec, int, int)
+     */
+    public static <K extends Comparable<K>, V> DiskBTreeMap<K, V> open(Path path, Codec<K> keyCodec, Codec<V> valueCodec)
+            throws IOException {
+        return open(path, keyCodec, valueCodec, DEFAULT_PAGE_SIZE, DEFAULT_POOL_PAGES);
+    }
+
+    /**
+     * Открывает дерево, хранящееся в файле. Если файла нет или он пуст, то создается новое дерево.
+     * Порядок ключей задается {@link Comparable} декодированных ключей.
+     * @param path Путь к файлу
+     * @param keyCodec Кодек ключей (должен совпадать по размеру с тем, с которым файл был создан)
+     * @param valueCodec Кодек значений (должен совпадать по размеру с тем, с которым файл был создан)
+     * @param pageSize Размер страницы для нового файла (у существующего файла берется из заголовка)
+     * @param poolPages Количество страниц в памяти
+     * @return Дерево
+     * @throws IOException Ошибка чтения файла
+     */
+    public static <K extends Comparable<K>, V> DiskBTreeMap<K, V> open(Path path, Codec<K> keyCodec, Codec<V> valueCodec,
+                                                                       int pageSize, int poolPages) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                DiskBTreeMap<K, V> map = new DiskBTreeMap<>(channel, keyCodec, valueCodec, pageSize, poolPages);
+                map.writeHeader();
+                return map;
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            if (header.getInt(MAGIC_OFFSET) != MAGIC) {
+                throw new IllegalArgumentException("File is not a DiskBTreeMap");
+            }
+            if (header.getInt(KEY_WIDTH_OFFSET) != keyCodec.size() || header.getInt(VALUE_WIDTH_OFFSET) != valueCodec.size()) {
+                throw new IllegalArgumentException("Codec sizes do not match the file: key " + header.getInt(KEY_WIDTH_OFFSET)
+                        + ", value " + header.getInt(VALUE_WIDTH_OFFSET));
+            }
+            DiskBTreeMap<K, V> map = new DiskBTreeMap<>(channel, keyCodec, valueCodec,
+                    header.getInt(PAGE_SIZE_OFFSET), poolPages);
+            map.root = header.getInt(ROOT_OFFSET);
+            map.height = header.getInt(HEIGHT_OFFSET);
+            map.size = header.getInt(SIZE_OFFSET);
+            map.pageCount = header.getInt(PAGE_COUNT_OFFSET);
+            return map;
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC_OFFSET, MAGIC);
+        header.putInt(PAGE_SIZE_OFFSET, pageSize);
+        header.putInt(KEY_WIDTH_OFFSET, keyWidth);
+        header.putInt(VALUE_WIDTH_OFFSET, valueCodec.size());
+        header.putInt(ROOT_OFFSET, root);
+        header.putInt(HEIGHT_OFFSET, height);
+        header.putInt(SIZE_OFFSET, size);
+        header.putInt(PAGE_COUNT_OFFSET, pageCount);
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+    private int leafKeyOffset(int index) {
+        return ENTRIES_OFFSET + index * leafEntrySize;
+    }
+
+    /**
+     * @return Смещение ключа {@code index} внутреннего узла; потомок {@code index + 1} лежит сразу за ним
+     */
+    private int innerKeyOffset(int index) {
+        return ENTRIES_OFFSET + index * innerEntrySize;
+    }
+
+    private int child(ByteBuffer page, int index) {
+        return page.getInt(index == 0 ? LINK_OFFSET : innerKeyOffset(index - 1) + keyWidth);
+    }
+
+    /**
+     * Сравнивает ключ, записанный в странице по смещению {@code offset}, с {@code key}
+     */
+    private int compareAt(ByteBuffer page, int offset, K key) {
+        return keyCodec.read(page, offset).compareTo(key);
+    }
+
+    /**
+     * Ищет ключ в листе
+     * @return Индекс ключа или {@code -(точка вставки) - 1}, если ключа нет
+     */
+    private int searchLeaf(ByteBuffer page, K key) {
+        int low = 0;
+        int high = page.getInt(COUNT_OFFSET) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int cmp = compareAt(page, leafKeyOffset(middle), key);
+            if (cmp < 0) {
+                low = middle + 1;
+            } else if (cmp > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * @return Индекс потомка, в поддереве которого находится ключ: количество разделителей, не больших ключа
+     */
+    private int searchInner(ByteBuffer page, K key) {
+        int low = 0;
+        int high = page.getInt(COUNT_OFFSET);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareAt(page, innerKeyOffset(middle), key) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Спускается к листу, в котором должен быть ключ
+     * @param key Ключ
+     * @param path Если не {@code null}, сюда записываются пройденные внутренние страницы и индексы потомков
+     * @param pathIndex Индексы потомков
+     * @return Номер страницы листа
+     */
+    private int findLeaf(K key, int[] path, int[] pathIndex) {
+        int page = root;
+        for (int level = 0; level < height - 1; level++) {
+            ByteBuffer buffer = pool.pin(page);
+            int index = searchInner(buffer, key);
+            int next = child(buffer, index);
+            pool.unpin(page, false);
+            if (path != null) {
+                path[level] = page;
+                pathIndex[level] = index;
+            }
+            page = next;
+        }
+        return page;
+    }
+
+    /**
+     * Возвращает значение по ключу
+     * @param key Ключ
+     * @return Значение или {@code null}, если ключа нет
+     */
+    public V get(K key) {
+        Objects.requireNonNull(key);
+        if (root == NO_PAGE) {
+            return null;
+        }
+        int leaf = findLeaf(key, null, null);
+        ByteBuffer buffer = pool.pin(leaf);
+        try {
+            int index = searchLeaf(buffer, key);
+            return index >= 0 ? valueCodec.read(buffer, leafKeyOffset(index) + keyWidth) : null;
+        } finally {
+            pool.unpin(leaf, false);
+        }
+    }
+
+    /**
+     * Делает замену старого значения на новое
+     * @param key Ключ
+     * @param newValue Новое значение
+     */
+    public void replace(K key, V newValue) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(newValue);
+        if (root == NO_PAGE) {
+            return;
+        }
+        int leaf = findLeaf(key, null, null);
+        ByteBuffer buffer = pool.pin(leaf);
+        int index = searchLeaf(buffer, key);
+        if (index >= 0) {
+            valueCodec.write(buffer, leafKeyOffset(index) + keyWidth, newValue);
+        }
+        pool.unpin(leaf, index >= 0);
+    }
+
+    /**
+     * Добавляет новую пару, если такого ключа нет.
+     * @param key Ключ
+     * @param value Значение
+     */
+    public void put(K key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        if (root == NO_PAGE) {
+            root = allocatePage();
+            ByteBuffer buffer = pool.pinNew(root);
+            buffer.putInt(TYPE_OFFSET, LEAF);
+            pool.unpin(root, true);
+            height = 1;
+        }
+
+        int[] path = new int[height];
+        int[] pathIndex = new int[height];
+        int leaf = findLeaf(key, path, pathIndex);
+        ByteBuffer buffer = pool.pin(leaf);
+        int index = searchLeaf(buffer, key);
+        if (index >= 0) {
+            pool.unpin(leaf, false);
+            return; // Not insert if exist
+        }
+        index = -index - 1;
+        int count = buffer.getInt(COUNT_OFFSET);
+        size++;
+        if (count < leafCapacity) {
+            shift(buffer, leafKeyOffset(index), leafKeyOffset(count), leafEntrySize);
+            writeLeafEntry(buffer, index, key, value);
+            buffer.putInt(COUNT_OFFSET, count + 1);
+            pool.unpin(leaf, true);
+            return;
+        }
+
+        // Split the leaf: upper half goes to a new leaf, its first key is copied up as separator
+        int rightPage = allocatePage();
+        ByteBuffer right = pool.pinNew(rightPage);
+        int half = (count + 1) / 2;
+        int moved = count - half;
+        right.putInt(TYPE_OFFSET, LEAF);
+        right.put(leafKeyOffset(0), buffer, leafKeyOffset(half), moved * leafEntrySize);
+        right.putInt(COUNT_OFFSET, moved);
+        right.putInt(LINK_OFFSET, buffer.getInt(LINK_OFFSET));
+        buffer.putInt(COUNT_OFFSET, half);
+        buffer.putInt(LINK_OFFSET, rightPage);
+        if (index <= half) {
+            shift(buffer, leafKeyOffset(index), leafKeyOffset(half), leafEntrySize);
+            writeLeafEntry(buffer, index, key, value);
+            buffer.putInt(COUNT_OFFSET, half + 1);
+        } else {
+            index -= half;
+            shift(right, leafKeyOffset(index), leafKeyOffset(moved), leafEntrySize);
+            writeLeafEntry(right, index, key, value);
+            right.putInt(COUNT_OFFSET, moved + 1);
+        }
+        separator.put(0, right, leafKeyOffset(0), keyWidth);
+        pool.unpin(leaf, true);
+        pool.unpin(rightPage, true);
+        insertIntoParent(path, pathIndex, height - 2, rightPage);
+    }
+
+    /**
+     * Вставляет {@code separator} и страницу {@code rightPage} справа от него в родителя на уровне {@code level},
+     * расщепляя родителей по мере необходимости
+     */
+    private void insertIntoParent(int[] path, int[] pathIndex, int level, int rightPage) {
+        for (; level >= 0; level--) {
+            int page = path[level];
+            int index = pathIndex[level];
+            ByteBuffer buffer = pool.pin(page);
+            int count = buffer.getInt(COUNT_OFFSET);
+            if (count < innerCapacity) {
+                shift(buffer, innerKeyOffset(index), innerKeyOffset(count), innerEntrySize);
+                writeInnerEntry(buffer, index, rightPage);
+                buffer.putInt(COUNT_OFFSET, count + 1);
+                pool.unpin(page, true);
+                return;
+            }
+
+            // Split the inner node: entries are assembled in order, the middle key moves up
+            ByteBuffer entries = ByteBuffer.allocate((count + 1) * innerEntrySize);
+            entries.put(0, buffer, innerKeyOffset(0), index * innerEntrySize);
+            entries.put(index * innerEntrySize, separator, 0, keyWidth);
+            entries.putInt(index * innerEntrySize + keyWidth, rightPage);
+            entries.put((index + 1) * innerEntrySize, buffer, innerKeyOffset(index), (count - index) * innerEntrySize);
+            int middle = (count + 1) / 2;
+            int newPage = allocatePage();
+            ByteBuffer right = pool.pinNew(newPage);
+            right.putInt(TYPE_OFFSET, INNER);
+            right.putInt(LINK_OFFSET, entries.getInt(middle * innerEntrySize + keyWidth));
+            right.put(innerKeyOffset(0), entries, (middle + 1) * innerEntrySize, (count - middle) * innerEntrySize);
+            right.putInt(COUNT_OFFSET, count - middle);
+            buffer.put(innerKeyOffset(0), entries, 0, middle * innerEntrySize);
+            buffer.putInt(COUNT_OFFSET, middle);
+            separator.put(0, entries, middle * innerEntrySize, keyWidth);
+            pool.unpin(page, true);
+            pool.unpin(newPage, true);
+            rightPage = newPage;
+        }
+
+        // The root was split, height of tree is increased
+        int newRoot = allocatePage();
+        ByteBuffer buffer = pool.pinNew(newRoot);
+        buffer.putInt(TYPE_OFFSET, INNER);
+        buffer.putInt(LINK_OFFSET, root);
+        writeInnerEntry(buffer, 0, rightPage);
+        buffer.putInt(COUNT_OFFSET, 1);
+        pool.unpin(newRoot, true);
+        root = newRoot;
+        height++;
+    }
+
+    /**
+     * Сдвигает записи [{@code from}, {@code to}) на одну запись вправо
+     */
+    private static void shift(ByteBuffer page, int from, int to, int entrySize) {
+        page.put(from + entrySize, page, from, to - from);
+    }
+
+    private void writeLeafEntry(ByteBuffer page, int index, K key, V value) {
+        keyCodec.write(page, leafKeyOffset(index), key);
+        valueCodec.write(page, leafKeyOffset(index) + keyWidth, value);
+    }
+
+    private void writeInnerEntry(ByteBuffer page, int index, int rightChild) {
+        page.put(innerKeyOffset(index), separator, 0, keyWidth);
+        page.putInt(innerKeyOffset(index) + keyWidth, rightChild);
+    }
+
+    private int allocatePage() {
+        if (pageCount == Integer.MAX_VALUE) {
+            throw new IllegalStateException("File has too many pages");
+        }
+        return pageCount++;
+    }
+
+    /**
+     * Удаляет пару по ключу
+     * @param key Ключ
+     * @return Значение удаленной пары или {@code null}, если такого ключа не существовало
+     */
+    public V remove(K key) {
+        Objects.requireNonNull(key);
+        if (root == NO_PAGE) {
+            return null;
+        }
+        int leaf = findLeaf(key, null, null);
+        ByteBuffer buffer = pool.pin(leaf);
+        int index = searchLeaf(buffer, key);
+        if (index < 0) {
+            pool.unpin(leaf, false);
+            return null;
+        }
+        V removed = valueCodec.read(buffer, leafKeyOffset(index) + keyWidth);
+        int count = buffer.getInt(COUNT_OFFSET);
+        buffer.put(leafKeyOffset(index), buffer, leafKeyOffset(index + 1), (count - index - 1) * leafEntrySize);
+        buffer.putInt(COUNT_OFFSET, count - 1);
+        pool.unpin(leaf, true);
+        size--;
+        return removed;
+    }
+
+    /**
+     * Возвращает пары с ключами из диапазона [{@code from}, {@code to}) в порядке возрастания ключей.
+     * Обход идет по списку листьев, страницы читаются по одной. Изменение дерева во время обхода не допускается.
+     * @param from Нижняя граница (включительно)
+     * @param to Верхняя граница (не включительно)
+     * @return Пары диапазона
+     */
+    public Iterable<Pair<K, V>> range(K from, K to) {
+        Objects.requireNonNull(from);
+        Objects.requireNonNull(to);
+        return () -> {
+            if (root == NO_PAGE) {
+                return new RangeIterator(NO_PAGE, 0, to);
+            }
+            int leaf = findLeaf(from, null, null);
+            ByteBuffer buffer = pool.pin(leaf);
+            int index = searchLeaf(buffer, from);
+            pool.unpin(leaf, false);
+            return new RangeIterator(leaf, index >= 0 ? index : -index - 1, to);
+        };
+    }
+
+    /**
+     * Перебирает все пары в порядке возрастания ключей
+     * @param action Действие над парой
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (root == NO_PAGE) {
+            return;
+        }
+        int page = root;
+        for (int level = 0; level < height - 1; level++) {
+            ByteBuffer buffer = pool.pin(page);
+            int next = child(buffer, 0);
+            pool.unpin(page, false);
+            page = next;
+        }
+        while (page != NO_PAGE) {
+            ByteBuffer buffer = pool.pin(page);
+            int count = buffer.getInt(COUNT_OFFSET);
+            for (int i = 0; i < count; i++) {
+                action.accept(keyCodec.read(buffer, leafKeyOffset(i)), valueCodec.read(buffer, leafKeyOffset(i) + keyWidth));
+            }
+            int next = buffer.getInt(LINK_OFFSET);
+            pool.unpin(page, false);
+            page = next;
+        }
+    }
+
+    private final class RangeIterator implements Iterator<Pair<K, V>> {
+        private final K to;
+        private int leaf;
+        private int index;
+        private Pair<K, V> next;
+
+        private RangeIterator(int leaf, int index, K to) {
+            this.leaf = leaf;
+            this.index = index;
+            this.to = to;
+            advance();
+        }
+
+        /**
+         * Читает следующую пару диапазона в {@code next}
+         */
+        private void advance() {
+            next = null;
+            while (leaf != NO_PAGE) {
+                ByteBuffer buffer = pool.pin(leaf);
+                int page = leaf;
+                if (index < buffer.getInt(COUNT_OFFSET)) {
+                    K key = keyCodec.read(buffer, leafKeyOffset(index));
+                    if (key.compareTo(to) < 0) {
+                        next = new Pair<>(key, valueCodec.read(buffer, leafKeyOffset(index) + keyWidth));
+                        index++;
+                    } else {
+                        leaf = NO_PAGE;
+                    }
+                    pool.unpin(page, false);
+                    return;
+                }
+                leaf = buffer.getInt(LINK_OFFSET);
+                index = 0;
+                pool.unpin(page, false);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Pair<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Pair<K, V> pair = next;
+            advance();
+            return pair;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Количество уровней (0 для пустого дерева)
+     */
+    public int height() {
+        return height;
+    }
+
+    /**
+     * @return Количество страниц, прочитанных из файла с момента открытия
+     */
+    public long getPageReads() {
+        return pool.getMisses();
+    }
+
+    /**
+     * @return Количество обращений к страницам, которые уже были в памяти
+     */
+    public long getPageHits() {
+        return pool.getHits();
+    }
+
+    /**
+     * Записывает измененные страницы и заголовок на диск
+     * @throws IOException Ошибка записи
+     */
+    public void flush() throws IOException {
+        pool.flush();
+        writeHeader();
+        channel.force(false);
+    }
+
+    /**
+     * Записывает изменения на диск и закрывает файл. После закрытия дерево использовать нельзя.
+     * @throws IOException Ошибка записи или закрытия файла
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package btreemap;
 
 
-import java.util.Arrays;
 import java.util.Comparator;
+import java.util.function.Function;
 
 public class Node<T extends Comparable<T>> {
 
@@ -31,22 +31,87 @@ public class Node<T extends Comparable<T>> {
             return keyList[index];
         }
 
+        /**
+         * Binary search for the value among keys.
+         *
+         * @return index of the key, or {@code -(insertion point) - 1} if there is no such key.
+         */
+        public int search(T value) {
+            int low = 0;
+            int high = keysSize - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int cmp = keyList[middle].compareTo(value);
+                if (cmp < 0) {
+                    low = middle + 1;
+                } else if (cmp > 0) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+
+        /**
+         * Binary search for an element by its key, without building an element to compare with.
+         *
+         * @param key to find.
+         * @param keyOf extracts the key of an element.
+         * @return index of the element, or {@code -(insertion point) - 1} if there is no such element.
+         */
+        public <K extends Comparable<? super K>> int search(K key, Function<? super T, ? extends K> keyOf) {
+            int low = 0;
+            int high = keysSize - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int cmp = keyOf.apply(keyList[middle]).compareTo(key);
+                if (cmp < 0) {
+                    low = middle + 1;
+                } else if (cmp > 0) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+
+        /**
+         * Inserts the value at the position found by {@link #search}.
+         */
+        public void addKey(int index, T value) {
+            System.arraycopy(keyList, index, keyList, index + 1, keysSize - index);
+            keyList[index] = value;
+            keysSize++;
+        }
+
         public void addKey(T value) {
-            keyList[keysSize++] = value;
-            Arrays.sort(keyList, 0, keysSize);
+            int index = search(value);
+            // Shift greater keys right instead of sorting the whole node
+            addKey(index >= 0 ? index : -index - 1, value);
+        }
+
+
+        public void setKey(int index, T value) {
+            keyList[index] = value;
         }
 
+        public T removeKey(int index) {
+            T removed = keyList[index];
+            System.arraycopy(keyList, index + 1, keyList, index, keysSize - index - 1);
+            keysSize--;
+            keyList[keysSize] = null;
+            return removed;
+        }
 
         public int numberOfKeys() {
             return keysSize;
         }
 
         public int indexOf(T value) {
-            for (int i = 0; i < keysSize; i++) {
-                if (keyList[i].equals(value))
-                    return i;
-            }
-            return -1;
+            int index = search(value);
+            return index >= 0 ? index : -1;
         }
 
         public Node<T> getChild(int index) {
@@ -58,28 +123,62 @@ public class Node<T extends Comparable<T>> {
 
         public boolean addChild(Node<T> child) {
             child.parent = this;
-            childList[childrenSize++] = child;
-            Arrays.sort(childList, 0, childrenSize, comparator);
+            // Children are ordered by their first key: binary search for the position and shift the rest
+            int low = 0;
+            int high = childrenSize;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (comparator.compare(childList[middle], child) <= 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            System.arraycopy(childList, low, childList, low + 1, childrenSize - low);
+            childList[low] = child;
+            childrenSize++;
             return true;
         }
 
-        public boolean removeChild(Node<T> child) {
-            boolean found = false;
-            if (childrenSize == 0)
-                return found;
+        /**
+         * Inserts the child at the position. Unlike {@link #addChild(Node)} does not look at keys of the child,
+         * so it works for a child which is temporarily empty.
+         */
+        public void addChild(int index, Node<T> child) {
+            child.parent = this;
+            System.arraycopy(childList, index, childList, index + 1, childrenSize - index);
+            childList[index] = child;
+            childrenSize++;
+        }
+
+        public Node<T> removeChild(int index) {
+            Node<T> removed = childList[index];
+            System.arraycopy(childList, index + 1, childList, index, childrenSize - index - 1);
+            childrenSize--;
+            childList[childrenSize] = null;
+            return removed;
+        }
+
+        public int indexOfChild(Node<T> child) {
             for (int i = 0; i < childrenSize; i++) {
-                if (childList[i].equals(child)) {
-                    found = true;
-                } else if (found) {
-                    // shift the rest of the keys down
-                    childList[i - 1] = childList[i];
+                if (childList[i] == child) {
+                    return i;
                 }
             }
-            if (found) {
-                childrenSize--;
-                childList[childrenSize] = null;
+            return -1;
+        }
+
+        public boolean removeChild(Node<T> child) {
+            for (int i = 0; i < childrenSize; i++) {
+                if (childList[i] == child) {
+                    // shift the rest of the children down
+                    System.arraycopy(childList, i + 1, childList, i, childrenSize - i - 1);
+                    childrenSize--;
+                    childList[childrenSize] = null;
+                    return true;
+                }
             }
-            return found;
+            return false;
         }
 
 
@@ -2,7 +2,12 @@ package btreemap;
 
 import java.util.Objects;
 
-class Pair <F extends Comparable<F>, S> implements Comparable<Pair<F, S>>{
+/**
+ * Пара ключ-значение, которая хранится в дереве и возвращается при обходе {@link BTreeMap}
+ * @param <F> Тип первого элемента
+ * @param <S> Тип второго элемента
+ */
+public class Pair <F extends Comparable<F>, S> implements Comparable<Pair<F, S>>{
     F first;
     S second;
 
@@ -21,6 +26,20 @@ class Pair <F extends Comparable<F>, S> implements Comparable<Pair<F, S>>{
         second = null;
     }
 
+    /**
+     * @return Первый элемент (ключ)
+     */
+    public F getFirst() {
+        return first;
+    }
+
+    /**
+     * @return Второй элемент (значение)
+     */
+    public S getSecond() {
+        return second;
+    }
+
     /**
      * Сравнение пар. Пара считается одинаковой, если совпадает первый элемент
      * @param other Сравниваемая пара
@@ -0,0 +1,378 @@
+package hashmap;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Кэш с ограниченным количеством элементов (или суммарным весом) поверх {@link HashMap}.
+ * Порядок обращений хранится в двусвязных списках, которые проходят прямо через элементы кэша,
+ * поэтому обращение к элементу не создает новых объектов.
+ * <p>
+ * Политики вытеснения:
+ * <ul>
+ *     <li>{@link Policy#LRU} - вытесняется элемент, к которому дольше всего не обращались;</li>
+ *     <li>{@link Policy#TINY_LFU} - W-TinyLFU: новые элементы попадают в небольшое LRU-окно, а из окна в основную
+ *     часть кэша проходят, только если к ним обращались чаще, чем к кандидату на вытеснение.
+ *     Частота оценивается {@link FrequencySketch}.</li>
+ * </ul>
+ * Кэш не потокобезопасен, как и {@link HashMap}.
+ * @param <K> Тип данных ключа
+ * @param <V> Тип данных значения
+ */
+public class Cache<K, V> {
+
+    /**
+     * Политика вытеснения
+     */
+    public enum Policy {
+        LRU,
+        TINY_LFU
+    }
+
+    /**
+     * Вычисляет вес элемента кэша
+     */
+    @FunctionalInterface
+    public interface Weigher<K, V> {
+        int weigh(K key, V value);
+    }
+
+    // Доля окна от максимального веса в политике TINY_LFU (в процентах)
+    private static final int WINDOW_PERCENT = 1;
+    // Доля защищенного сегмента от основной части кэша в политике TINY_LFU (в процентах)
+    private static final int PROTECTED_PERCENT = 80;
+
+    private final HashMap<K, CacheEntry<K, V>> map = new HashMap<>();
+    private final Policy policy;
+    private final Weigher<? super K, ? super V> weigher;
+    private final long maximumWeight;
+    private long weight = 0;
+
+    // В политике LRU все элементы лежат в probation
+    private final AccessOrder<K, V> window = new AccessOrder<>();
+    private final AccessOrder<K, V> probation = new AccessOrder<>();
+    private final AccessOrder<K, V> protectedSegment = new AccessOrder<>();
+    private final long maximumWindowWeight;
+    private final long maximumProtectedWeight;
+    private final FrequencySketch sketch;
+
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long evictionCount = 0;
+
+    /**
+     * Кэш с политикой LRU на {@code maximumSize} элементов
+     * @param maximumSize Максимальное количество элементов
+     */
+    public Cache(long maximumSize) {
+        this(maximumSize, Policy.LRU);
+    }
+
+    /**
+     * Кэш на {@code maximumSize} элементов
+     * @param maximumSize Максимальное количество элементов
+     * @param policy Политика вытеснения
+     */
+    public Cache(long maximumSize, Policy policy) {
+        this(maximumSize, policy, (key, value) -> 1);
+    }
+
+    /**
+     * Кэш, суммарный вес элементов которого не превышает {@code maximumWeight}
+     * @param maximumWeight Максимальный суммарный вес
+     * @param policy Политика вытеснения
+     * @param weigher Вес элемента
+     */
+    public Cache(long maximumWeight, Policy policy, Weigher<? super K, ? super V> weigher) {
+        if (maximumWeight < 0) {
+            throw new IllegalArgumentException("Maximum weight should be non-negative: " + maximumWeight);
+        }
+        this.maximumWeight = maximumWeight;
+        this.policy = Objects.requireNonNull(policy);
+        this.weigher = Objects.requireNonNull(weigher);
+        if (policy == Policy.TINY_LFU) {
+            maximumWindowWeight = Math.max(1, maximumWeight * WINDOW_PERCENT / 100);
+            maximumProtectedWeight = Math.max(0, maximumWeight - maximumWindowWeight) * PROTECTED_PERCENT / 100;
+            sketch = new FrequencySketch(maximumWeight);
+        } else {
+            maximumWindowWeight = 0;
+            maximumProtectedWeight = 0;
+            sketch = null;
+        }
+    }
+
+    /**
+     * Возвращает значение по ключу или {@code null}, если ключа в кэше нет. Учитывается как попадание или промах.
+     * @param key Ключ
+     * @return Значение или {@code null}
+     */
+    public V getOrNull(K key) {
+        CacheEntry<K, V> entry = map.getOrNull(key);
+        if (entry == null) {
+            missCount++;
+            recordFrequency(key.hashCode());
+            return null;
+        }
+        hitCount++;
+        onAccess(entry);
+        return entry.value;
+    }
+
+    /**
+     * Возвращает значение по ключу. Если ключа нет, значение вычисляется {@code loader} и кладется в кэш.
+     * Если {@code loader} вернул {@code null}, в кэш ничего не кладется.
+     * @param key Ключ
+     * @param loader Функция вычисления значения
+     * @return Значение
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+        Objects.requireNonNull(loader);
+        CacheEntry<K, V> entry = map.getOrNull(key);
+        if (entry != null) {
+            hitCount++;
+            onAccess(entry);
+            return entry.value;
+        }
+        missCount++;
+        V value = loader.apply(key);
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Добавляет ключ-значение в кэш. Если такой ключ уже существует, то перезаписывает старое значение новым.
+     * При превышении максимального веса вытесняются элементы согласно политике.
+     * @param key Ключ
+     * @param value Значение
+     */
+    public void put(K key, V value) {
+        Objects.requireNonNull(key);
+        int entryWeight = weigher.weigh(key, value);
+        if (entryWeight < 0) {
+            throw new IllegalArgumentException("Weight should be non-negative: " + entryWeight);
+        }
+
+        CacheEntry<K, V> entry = map.getOrNull(key);
+        if (entry != null) {
+            entry.value = value;
+            entry.queue.weight += entryWeight - entry.weight;
+            weight += entryWeight - entry.weight;
+            entry.weight = entryWeight;
+            onAccess(entry);
+        } else {
+            entry = new CacheEntry<>(key, value, key.hashCode(), entryWeight);
+            map.put(key, entry);
+            weight += entryWeight;
+            recordFrequency(entry.hash);
+            if (policy == Policy.TINY_LFU) {
+                window.addLast(entry);
+                while (window.weight > maximumWindowWeight && window.head != null) {
+                    // Window overflow: the eldest window entry becomes a candidate for the main space
+                    CacheEntry<K, V> candidate = window.head;
+                    window.remove(candidate);
+                    probation.addLast(candidate);
+                }
+            } else {
+                probation.addLast(entry);
+            }
+        }
+        evict();
+    }
+
+    /**
+     * Удаляет элемент по ключу
+     * @param key Ключ
+     * @return true, если элемент был удален, и false, в обратном случае.
+     */
+    public boolean remove(K key) {
+        CacheEntry<K, V> entry = map.getOrNull(key);
+        if (entry == null) {
+            return false;
+        }
+        unlink(entry);
+        return true;
+    }
+
+    /**
+     * Проверяет наличие ключа. Не учитывается в статистике и не меняет порядок вытеснения.
+     * @param key Ключ
+     * @return Результат проверки
+     */
+    public boolean isContain(K key) {
+        return map.isContain(key);
+    }
+
+    private void onAccess(CacheEntry<K, V> entry) {
+        recordFrequency(entry.hash);
+        if (policy != Policy.TINY_LFU || entry.queue != probation) {
+            entry.queue.moveToLast(entry);
+            return;
+        }
+        // Second hit in probation promotes the entry to the protected segment
+        probation.remove(entry);
+        protectedSegment.addLast(entry);
+        while (protectedSegment.weight > maximumProtectedWeight && protectedSegment.head != entry) {
+            CacheEntry<K, V> demoted = protectedSegment.head;
+            protectedSegment.remove(demoted);
+            probation.addLast(demoted);
+        }
+    }
+
+    private void recordFrequency(int hash) {
+        if (sketch != null) {
+            sketch.increment(hash);
+        }
+    }
+
+    /**
+     * Вытесняет элементы, пока суммарный вес больше максимального
+     */
+    private void evict() {
+        while (weight > maximumWeight) {
+            CacheEntry<K, V> victim = probation.head;
+            if (victim == null) {
+                victim = protectedSegment.head != null ? protectedSegment.head : window.head;
+            } else if (policy == Policy.TINY_LFU && probation.tail != victim) {
+                // Admission: the newest candidate has to be used more often than the eldest entry to stay
+                CacheEntry<K, V> candidate = probation.tail;
+                if (sketch.frequency(candidate.hash) <= sketch.frequency(victim.hash)) {
+                    victim = candidate;
+                }
+            }
+            unlink(victim);
+            evictionCount++;
+        }
+    }
+
+    private void unlink(CacheEntry<K, V> entry) {
+        entry.queue.remove(entry);
+        map.remove(entry.key);
+        weight -= entry.weight;
+    }
+
+    /**
+     * @return Количество элементов в кэше
+     */
+    public int getSize() {
+        return map.getSize();
+    }
+
+    /**
+     * @return Суммарный вес элементов
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    /**
+     * @return Максимальный суммарный вес
+     */
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * @return Политика вытеснения
+     */
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return Количество попаданий
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return Количество промахов
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return Количество вытесненных элементов
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return Доля попаданий среди всех обращений (1, если обращений не было)
+     */
+    public double getHitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    /**
+     * Элемент кэша, он же узел списка порядка обращений
+     */
+    private static final class CacheEntry<K, V> {
+        private final K key;
+        private final int hash;
+        private V value;
+        private int weight;
+        private CacheEntry<K, V> prev;
+        private CacheEntry<K, V> next;
+        // Список, в котором сейчас находится элемент
+        private AccessOrder<K, V> queue;
+
+        CacheEntry(K key, V value, int hash, int weight) {
+            this.key = key;
+            this.value = value;
+            this.hash = hash;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Двусвязный список элементов в порядке обращения: в голове - самый старый
+     */
+    private static final class AccessOrder<K, V> {
+        private CacheEntry<K, V> head;
+        private CacheEntry<K, V> tail;
+        private long weight;
+
+        void addLast(CacheEntry<K, V> entry) {
+            entry.queue = this;
+            entry.prev = tail;
+            entry.next = null;
+            if (tail == null) {
+                head = entry;
+            } else {
+                tail.next = entry;
+            }
+            tail = entry;
+            weight += entry.weight;
+        }
+
+        void remove(CacheEntry<K, V> entry) {
+            if (entry.prev == null) {
+                head = entry.next;
+            } else {
+                entry.prev.next = entry.next;
+            }
+            if (entry.next == null) {
+                tail = entry.prev;
+            } else {
+                entry.next.prev = entry.prev;
+            }
+            entry.prev = null;
+            entry.next = null;
+            entry.queue = null;
+            weight -= entry.weight;
+        }
+
+        void moveToLast(CacheEntry<K, V> entry) {
+            if (tail != entry) {
+                remove(entry);
+                addLast(entry);
+            }
+        }
+    }
+}
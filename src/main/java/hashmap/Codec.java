@@ -0,0 +1,123 @@
+package hashmap;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Преобразование значений в байты фиксированной длины для {@link OffHeapHashMap} и {@link btreemap.DiskBTreeMap}.
+ * Одинаковые значения должны всегда кодироваться одинаковыми байтами: в {@link OffHeapHashMap} ключи сравниваются
+ * побайтно.
+ * @param <T> Тип данных значения
+ */
+public interface Codec<T> {
+
+    /**
+     * @return Количество байт, которое занимает одно значение
+     */
+    int size();
+
+    /**
+     * Записывает значение в {@code buffer}, начиная с позиции {@code offset}. Позиция буфера не меняется.
+     * @param buffer Буфер
+     * @param offset Позиция
+     * @param value Значение
+     */
+    void write(ByteBuffer buffer, int offset, T value);
+
+    /**
+     * Читает значение из {@code buffer}, начиная с позиции {@code offset}. Позиция буфера не меняется.
+     * @param buffer Буфер
+     * @param offset Позиция
+     * @return Значение
+     */
+    T read(ByteBuffer buffer, int offset);
+
+    Codec<Integer> INT = new Codec<>() {
+        @Override
+        public int size() {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, int offset, Integer value) {
+            buffer.putInt(offset, value);
+        }
+
+        @Override
+        public Integer read(ByteBuffer buffer, int offset) {
+            return buffer.getInt(offset);
+        }
+    };
+
+    Codec<Long> LONG = new Codec<>() {
+        @Override
+        public int size() {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, int offset, Long value) {
+            buffer.putLong(offset, value);
+        }
+
+        @Override
+        public Long read(ByteBuffer buffer, int offset) {
+            return buffer.getLong(offset);
+        }
+    };
+
+    Codec<Double> DOUBLE = new Codec<>() {
+        @Override
+        public int size() {
+            return Double.BYTES;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, int offset, Double value) {
+            buffer.putDouble(offset, value);
+        }
+
+        @Override
+        public Double read(ByteBuffer buffer, int offset) {
+            return buffer.getDouble(offset);
+        }
+    };
+
+    /**
+     * Кодек строк в UTF-8 длиной не более {@code maxBytes} байт. Строка хранится как длина (2 байта)
+     * и байты строки, остаток дополняется нулями.
+     * @param maxBytes Максимальная длина строки в байтах
+     * @return Кодек
+     */
+    static Codec<String> string(int maxBytes) {
+        if (maxBytes < 0 || maxBytes > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Max length should be in range [0, " + Short.MAX_VALUE + "]: " + maxBytes);
+        }
+        return new Codec<>() {
+            @Override
+            public int size() {
+                return Short.BYTES + maxBytes;
+            }
+
+            @Override
+            public void write(ByteBuffer buffer, int offset, String value) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                if (bytes.length > maxBytes) {
+                    throw new IllegalArgumentException("String is longer than " + maxBytes + " bytes: " + value);
+                }
+                buffer.putShort(offset, (short) bytes.length);
+                buffer.put(offset + Short.BYTES, bytes);
+                for (int i = offset + Short.BYTES + bytes.length; i < offset + size(); i++) {
+                    buffer.put(i, (byte) 0);
+                }
+            }
+
+            @Override
+            public String read(ByteBuffer buffer, int offset) {
+                byte[] bytes = new byte[buffer.getShort(offset)];
+                buffer.get(offset + Short.BYTES, bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+}
@@ -0,0 +1,566 @@
+package hashmap;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Потокобезопасная хеш-таблица с тем же интерфейсом, что и {@link HashMap}.
+ * <ul>
+ *     <li>Чтение не берет блокировок: корзины лежат в {@link AtomicReferenceArray}, а поля узлов {@code volatile}.</li>
+ *     <li>Пустая корзина заполняется через CAS, непустая изменяется под монитором первого узла корзины,
+ *     поэтому писатели в разные корзины не мешают друг другу.</li>
+ *     <li>Размер считается через {@link LongAdder}, чтобы счетчик не был общей точкой конкуренции.</li>
+ *     <li>Увеличение таблицы кооперативное: перенесенная корзина заменяется пересылающим узлом, и любой поток,
+ *     наткнувшийся на него, забирает себе следующую порцию корзин для переноса.</li>
+ * </ul>
+ * Ключи и значения не могут быть {@code null}.
+ * @param <K> Тип данных ключа
+ * @param <V> Тип данных значения
+ */
+public class ConcurrentHashMap<K, V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    // Количество корзин, которое поток забирает за раз при переносе
+    private static final int TRANSFER_STRIDE = 16;
+
+    // Хеш пересылающего узла (корзина уже перенесена в новую таблицу)
+    private static final int MOVED = -1;
+    // Хеш резервирующего узла (в пустой корзине идет computeIfAbsent)
+    private static final int RESERVED = -2;
+
+    /**
+     * Узел цепочки. Ключ и хеш неизменны, значение и ссылка на следующий узел видны всем потокам.
+     */
+    private static class ConcurrentNode<K, V> {
+        final int hash;
+        final K key;
+        volatile V value;
+        volatile ConcurrentNode<K, V> next;
+
+        ConcurrentNode(int hash, K key, V value, ConcurrentNode<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    /**
+     * Узел, которым помечается уже перенесенная корзина старой таблицы.
+     */
+    private static final class ForwardingNode<K, V> extends ConcurrentNode<K, V> {
+        final Transfer<K, V> transfer;
+
+        ForwardingNode(Transfer<K, V> transfer) {
+            super(MOVED, null, null, null);
+            this.transfer = transfer;
+        }
+    }
+
+    /**
+     * Состояние переноса одной таблицы в другую, общее для всех помогающих потоков.
+     * Перенос устаревает, если его старая таблица уже перенесена другим переносом: такой перенос не меняет корзин
+     * и не публикует свою таблицу.
+     */
+    static final class Transfer<K, V> {
+        final AtomicReferenceArray<ConcurrentNode<K, V>> from;
+        final AtomicReferenceArray<ConcurrentNode<K, V>> to;
+        final ForwardingNode<K, V> forward = new ForwardingNode<>(this);
+        // Следующая корзина, которую можно забрать для переноса
+        final AtomicInteger nextIndex = new AtomicInteger(0);
+        // Количество уже перенесенных корзин
+        final AtomicInteger movedBins = new AtomicInteger(0);
+
+        Transfer(AtomicReferenceArray<ConcurrentNode<K, V>> from) {
+            this.from = from;
+            this.to = new AtomicReferenceArray<>(from.length() << 1);
+        }
+    }
+
+    private final float loadFactor;
+    private final LongAdder countOfElements = new LongAdder();
+    volatile AtomicReferenceArray<ConcurrentNode<K, V>> table;
+    final AtomicReference<Transfer<K, V>> transfer = new AtomicReference<>();
+
+    public ConcurrentHashMap() {
+        this(DEFAULT_LOAD_FACTOR, DEFAULT_CAPACITY);
+    }
+
+    public ConcurrentHashMap(int capacity) {
+        this(DEFAULT_LOAD_FACTOR, capacity);
+    }
+
+    public ConcurrentHashMap(float loadFactor, int capacity) {
+        if (!(loadFactor > 0f)) {
+            throw new IllegalArgumentException("Load factor should be positive: " + loadFactor);
+        }
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity should be non-negative: " + capacity);
+        }
+        this.loadFactor = loadFactor;
+        this.table = new AtomicReferenceArray<>(tableSizeFor(capacity));
+    }
+
+    private static int tableSizeFor(int capacity) {
+        if (capacity <= 2) {
+            return 2;
+        }
+        if (capacity >= MAXIMUM_CAPACITY) {
+            return MAXIMUM_CAPACITY;
+        }
+        return Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    /**
+     * Перемешивает биты хеш-кода. Результат всегда неотрицательный, отрицательные значения заняты служебными узлами.
+     * @param hash Хеш-код ключа
+     * @return Перемешанный хеш-код
+     */
+    private static int spread(int hash) {
+        return (hash ^ (hash >>> 16)) & 0x7FFFFFFF;
+    }
+
+    /**
+     * Ищет узел по ключу без блокировок
+     * @param key Ключ
+     * @return Узел или {@code null}, если ключа нет
+     */
+    private ConcurrentNode<K, V> findNode(Object key) {
+        int hash = spread(key.hashCode());
+        AtomicReferenceArray<ConcurrentNode<K, V>> tab = table;
+        outer:
+        while (true) {
+            ConcurrentNode<K, V> node = tab.get(hash & (tab.length() - 1));
+            while (node != null) {
+                if (node.hash == MOVED) {
+                    tab = ((ForwardingNode<K, V>) node).transfer.to;
+                    continue outer;
+                }
+                if (node.hash == hash && key.equals(node.key)) {
+                    return node;
+                }
+                node = node.next;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Добавляет ключ-значение в словарь.
+     * Если такой ключ уже существует, то перезаписывает старое значение новым.
+     * @param key Ключ
+     * @param value Значение
+     */
+    public void put(K key, V value) {
+        putValue(key, value, true);
+    }
+
+    /**
+     * Добавляет ключ-значение в словарь.
+     * Если такой ключ уже существует, то старое значение не меняется.
+     * @param key Ключ
+     * @param value Значение
+     */
+    public void putIfNotExist(K key, V value) {
+        putValue(key, value, false);
+    }
+
+    private void putValue(K key, V value, boolean swapIfExist) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        int hash = spread(key.hashCode());
+        AtomicReferenceArray<ConcurrentNode<K, V>> tab = table;
+        while (true) {
+            int index = hash & (tab.length() - 1);
+            ConcurrentNode<K, V> first = tab.get(index);
+            if (first == null) {
+                if (tab.compareAndSet(index, null, new ConcurrentNode<>(hash, key, value, null))) {
+                    break;
+                }
+            } else if (first.hash == MOVED) {
+                tab = helpTransfer((ForwardingNode<K, V>) first);
+            } else {
+                synchronized (first) {
+                    if (tab.get(index) != first) {
+                        continue; // Bin was changed before lock was taken
+                    }
+                    checkNotReserved(first);
+                    ConcurrentNode<K, V> node = first;
+                    while (true) {
+                        if (node.hash == hash && key.equals(node.key)) {
+                            if (swapIfExist) {
+                                node.value = value;
+                            }
+                            return;
+                        }
+                        if (node.next == null) {
+                            node.next = new ConcurrentNode<>(hash, key, value, null);
+                            break;
+                        }
+                        node = node.next;
+                    }
+                }
+                break;
+            }
+        }
+        addCount();
+    }
+
+    /**
+     * Атомарно возвращает значение по ключу, а если ключа нет, то вычисляет его функцией {@code mapping} и
+     * добавляет в словарь. Функция вызывается не более одного раза под блокировкой корзины, поэтому
+     * она должна быть короткой и не должна изменять этот же словарь.
+     * @param key Ключ
+     * @param mapping Функция вычисления значения. Если она вернула {@code null}, то ничего не добавляется
+     * @return Текущее (существующее или вычисленное) значение или {@code null}
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mapping) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(mapping);
+        int hash = spread(key.hashCode());
+        AtomicReferenceArray<ConcurrentNode<K, V>> tab = table;
+        while (true) {
+            int index = hash & (tab.length() - 1);
+            ConcurrentNode<K, V> first = tab.get(index);
+            if (first == null) {
+                ConcurrentNode<K, V> reservation = new ConcurrentNode<>(RESERVED, null, null, null);
+                synchronized (reservation) {
+                    if (tab.compareAndSet(index, null, reservation)) {
+                        ConcurrentNode<K, V> node = null;
+                        V value;
+                        try {
+                            value = mapping.apply(key);
+                            if (value != null) {
+                                node = new ConcurrentNode<>(hash, key, value, null);
+                            }
+                        } finally {
+                            tab.set(index, node);
+                        }
+                        if (node != null) {
+                            addCount();
+                        }
+                        return value;
+                    }
+                }
+            } else if (first.hash == MOVED) {
+                tab = helpTransfer((ForwardingNode<K, V>) first);
+            } else {
+                V value;
+                synchronized (first) {
+                    if (tab.get(index) != first) {
+                        continue;
+                    }
+                    checkNotReserved(first);
+                    ConcurrentNode<K, V> node = first;
+                    while (true) {
+                        if (node.hash == hash && key.equals(node.key)) {
+                            return node.value;
+                        }
+                        if (node.next == null) {
+                            break;
+                        }
+                        node = node.next;
+                    }
+                    value = mapping.apply(key);
+                    if (value == null) {
+                        return null;
+                    }
+                    node.next = new ConcurrentNode<>(hash, key, value, null);
+                }
+                addCount();
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Атомарно объединяет значение: если ключа нет, то добавляет {@code value}, иначе заменяет старое значение
+     * результатом {@code remapping(старое, value)}. Если функция вернула {@code null}, ключ удаляется.
+     * @param key Ключ
+     * @param value Значение для отсутствующего ключа и второй аргумент функции
+     * @param remapping Функция объединения
+     * @return Новое значение или {@code null}, если ключ был удален
+     */
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remapping) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        Objects.requireNonNull(remapping);
+        int hash = spread(key.hashCode());
+        AtomicReferenceArray<ConcurrentNode<K, V>> tab = table;
+        while (true) {
+            int index = hash & (tab.length() - 1);
+            ConcurrentNode<K, V> first = tab.get(index);
+            if (first == null) {
+                if (tab.compareAndSet(index, null, new ConcurrentNode<>(hash, key, value, null))) {
+                    addCount();
+                    return value;
+                }
+            } else if (first.hash == MOVED) {
+                tab = helpTransfer((ForwardingNode<K, V>) first);
+            } else {
+                synchronized (first) {
+                    if (tab.get(index) != first) {
+                        continue;
+                    }
+                    checkNotReserved(first);
+                    ConcurrentNode<K, V> prev = null;
+                    ConcurrentNode<K, V> node = first;
+                    while (node != null) {
+                        if (node.hash == hash && key.equals(node.key)) {
+                            V newValue = remapping.apply(node.value, value);
+                            if (newValue != null) {
+                                node.value = newValue;
+                            } else {
+                                unlink(tab, index, prev, node);
+                            }
+                            return newValue;
+                        }
+                        prev = node;
+                        node = node.next;
+                    }
+                    prev.next = new ConcurrentNode<>(hash, key, value, null);
+                }
+                addCount();
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Возвращает значение по ключу. Если ключ отсутствует, будет брошено исключение {@code HashMapException}.
+     * @param key Ключ
+     * @return Значение
+     */
+    public V get(K key) {
+        ConcurrentNode<K, V> node = findNode(key);
+        if (node == null) {
+            throw new HashMapException("Key " + key + " does not exist");
+        }
+        return node.value;
+    }
+
+    /**
+     * Возвращает значение по ключу или null, если такого ключа не существует
+     * @param key Ключ
+     * @return Значение или null, если ключа не существует
+     */
+    public V getOrNull(K key) {
+        ConcurrentNode<K, V> node = findNode(key);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Проверят на наличие ключа
+     * @param key Ключ
+     * @return Результат проверки
+     */
+    public boolean isContain(K key) {
+        return findNode(key) != null;
+    }
+
+    /**
+     * Удаляет ключ-значение по ключу
+     * @param key Ключ
+     * @return true, если элемент был удален, и false, в обратном случае.
+     */
+    public boolean remove(K key) {
+        Objects.requireNonNull(key);
+        int hash = spread(key.hashCode());
+        AtomicReferenceArray<ConcurrentNode<K, V>> tab = table;
+        while (true) {
+            int index = hash & (tab.length() - 1);
+            ConcurrentNode<K, V> first = tab.get(index);
+            if (first == null) {
+                return false;
+            } else if (first.hash == MOVED) {
+                tab = helpTransfer((ForwardingNode<K, V>) first);
+            } else {
+                synchronized (first) {
+                    if (tab.get(index) != first) {
+                        continue;
+                    }
+                    ConcurrentNode<K, V> prev = null;
+                    ConcurrentNode<K, V> node = first;
+                    while (node != null) {
+                        if (node.hash == hash && key.equals(node.key)) {
+                            unlink(tab, index, prev, node);
+                            return true;
+                        }
+                        prev = node;
+                        node = node.next;
+                    }
+                    return false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Корзина занята резервирующим узлом только пока идет {@code computeIfAbsent}. Если под его монитором оказался
+     * тот же поток, значит функция вычисления значения изменяет словарь.
+     * @param first Первый узел корзины
+     */
+    private static void checkNotReserved(ConcurrentNode<?, ?> first) {
+        if (first.hash == RESERVED) {
+            throw new IllegalStateException("Recursive update");
+        }
+    }
+
+    /**
+     * Исключает узел из цепочки. Вызывается под монитором первого узла корзины.
+     */
+    private void unlink(AtomicReferenceArray<ConcurrentNode<K, V>> tab, int index,
+                        ConcurrentNode<K, V> prev, ConcurrentNode<K, V> node) {
+        if (prev == null) {
+            tab.set(index, node.next);
+        } else {
+            prev.next = node.next;
+        }
+        countOfElements.decrement();
+    }
+
+    /**
+     * Увеличивает счетчик элементов и запускает (или помогает выполнить) увеличение таблицы при превышении загрузки
+     */
+    private void addCount() {
+        countOfElements.increment();
+        while (true) {
+            AtomicReferenceArray<ConcurrentNode<K, V>> tab = table;
+            int length = tab.length();
+            if (countOfElements.sum() < (long) (length * loadFactor) || length >= MAXIMUM_CAPACITY) {
+                return;
+            }
+
+            Transfer<K, V> current = transfer.get();
+            if (current != null) {
+                if (current.from == tab) {
+                    runTransfer(current);
+                }
+                return;
+            }
+
+            Transfer<K, V> started = new Transfer<>(tab);
+            if (transfer.compareAndSet(null, started)) {
+                if (table != tab) {
+                    // Table was replaced by other thread while we were preparing, this transfer is stale
+                    transfer.compareAndSet(started, null);
+                    continue;
+                }
+                runTransfer(started);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Помогает перенести таблицу, в которой встретился пересылающий узел
+     * @param forward Пересылающий узел
+     * @return Новая таблица, в которой нужно продолжить операцию
+     */
+    private AtomicReferenceArray<ConcurrentNode<K, V>> helpTransfer(ForwardingNode<K, V> forward) {
+        runTransfer(forward.transfer);
+        return forward.transfer.to;
+    }
+
+    /**
+     * Забирает порции корзин старой таблицы и переносит их, пока корзины не закончатся.
+     * Поток, перенесший последнюю корзину, публикует новую таблицу, если старая таблица все еще текущая.
+     * Устаревший перенос снимается, не изменив ни одной корзины.
+     * @param current Состояние переноса
+     */
+    void runTransfer(Transfer<K, V> current) {
+        int length = current.from.length();
+        while (true) {
+            int start = current.nextIndex.getAndAdd(TRANSFER_STRIDE);
+            if (start >= length) {
+                return;
+            }
+            int end = Math.min(start + TRANSFER_STRIDE, length);
+            for (int i = start; i < end; i++) {
+                if (!moveBin(current, i)) {
+                    // Old table is already moved by other transfer
+                    transfer.compareAndSet(current, null);
+                    return;
+                }
+            }
+            if (current.movedBins.addAndGet(end - start) == length) {
+                if (table == current.from) {
+                    table = current.to;
+                }
+                transfer.compareAndSet(current, null);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Переносит одну корзину: узлы копируются в две корзины новой таблицы, старая корзина помечается пересылающим узлом.
+     * Узлы копируются, а не перевешиваются, чтобы читатели старой цепочки не увидели ее разорванной.
+     * @return {@code false}, если корзина уже помечена пересылающим узлом другого переноса (этот перенос устарел)
+     */
+    private boolean moveBin(Transfer<K, V> current, int index) {
+        AtomicReferenceArray<ConcurrentNode<K, V>> from = current.from;
+        int length = from.length();
+        while (true) {
+            ConcurrentNode<K, V> first = from.get(index);
+            if (first == null) {
+                if (from.compareAndSet(index, null, current.forward)) {
+                    return true;
+                }
+                continue;
+            }
+            if (first.hash == MOVED) {
+                return first == current.forward;
+            }
+            synchronized (first) {
+                if (from.get(index) != first) {
+                    continue;
+                }
+                checkNotReserved(first);
+                ConcurrentNode<K, V> low = null;
+                ConcurrentNode<K, V> high = null;
+                for (ConcurrentNode<K, V> node = first; node != null; node = node.next) {
+                    if ((node.hash & length) == 0) {
+                        low = new ConcurrentNode<>(node.hash, node.key, node.value, low);
+                    } else {
+                        high = new ConcurrentNode<>(node.hash, node.key, node.value, high);
+                    }
+                }
+                current.to.set(index, low);
+                current.to.set(index + length, high);
+                from.set(index, current.forward);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Возвращает текущий коэффициент загруженности
+     * @return Текущий коэффициент загруженности
+     */
+    public float getActualLoad() {
+        return ((float) countOfElements.sum()) / table.length();
+    }
+
+    /**
+     * Возвращает коэффициент загружености, указанный при инициализации (или значение по умолчанию)
+     * @return Коэффициент загруженности
+     */
+    public float getInitLoad() {
+        return loadFactor;
+    }
+
+    /**
+     * Получение числа элементов. При одновременных изменениях значение приблизительное.
+     * @return Число элементов
+     */
+    public int getSize() {
+        return (int) Math.min(countOfElements.sum(), Integer.MAX_VALUE);
+    }
+}
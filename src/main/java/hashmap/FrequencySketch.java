@@ -0,0 +1,92 @@
+package hashmap;
+
+/**
+ * Приблизительный счетчик частоты обращений к ключам (Count-Min Sketch) для политики W-TinyLFU в {@link Cache}.
+ * Каждый ключ учитывается в четырех 4-битных счетчиках, частота - минимум из них (не больше 15).
+ * Когда количество обращений достигает {@code sampleSize}, все счетчики делятся пополам, поэтому
+ * старая популярность постепенно забывается.
+ */
+final class FrequencySketch {
+    private static final long[] SEEDS = {
+            0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    // Каждый long хранит 16 счетчиков по 4 бита
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int size = 0;
+
+    /**
+     * @param maximumSize Ожидаемое максимальное количество ключей в кэше
+     */
+    FrequencySketch(long maximumSize) {
+        int length = Hashing.tableSizeFor((int) Math.min(Math.max(maximumSize, 1), Hashing.MAXIMUM_CAPACITY));
+        table = new long[length];
+        tableMask = length - 1;
+        sampleSize = (int) Math.min(10L * length, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param hash Хеш-код ключа
+     * @return Оценка частоты обращений к ключу (от 0 до 15)
+     */
+    int frequency(int hash) {
+        int h = Hashing.mix(hash);
+        int frequency = 15;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long counter = (table[indexOf(h, i)] >>> offsetOf(h, i)) & 0xFL;
+            frequency = Math.min(frequency, (int) counter);
+        }
+        return frequency;
+    }
+
+    /**
+     * Учитывает обращение к ключу
+     * @param hash Хеш-код ключа
+     */
+    void increment(int hash) {
+        int h = Hashing.mix(hash);
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            added |= incrementAt(indexOf(h, i), offsetOf(h, i));
+        }
+        if (added && ++size == sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int offset) {
+        long mask = 0xFL << offset;
+        if ((table[index] & mask) == mask) {
+            // Counter is saturated
+            return false;
+        }
+        table[index] += 1L << offset;
+        return true;
+    }
+
+    /**
+     * Делит все счетчики пополам
+     */
+    private void reset() {
+        int odd = 0;
+        for (int i = 0; i < table.length; i++) {
+            odd += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size - (odd >>> 2)) >>> 1;
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return (int) h & tableMask;
+    }
+
+    private static int offsetOf(int hash, int i) {
+        return ((hash >>> (i << 3)) & 0xF) << 2;
+    }
+}
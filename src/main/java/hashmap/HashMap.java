@@ -1,12 +1,25 @@
 package hashmap;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
-
-public class HashMap<K, V> {
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class HashMap<K, V> implements Iterable<Map.Entry<K, V>> {
     private final int DEFAULT_CAPACITY = 16;
     private final float DEFAULT_LOAD_FACTOR = 2.0f;
+    // Количество корзин старой таблицы, переносимых за одну операцию при постепенном перехешировании
+    private static final int REHASH_STEP = 8;
 
     // Уровень загружености
     private float loadFactor = DEFAULT_LOAD_FACTOR;
@@ -14,10 +27,26 @@ public class HashMap<K, V> {
     private int capacity = DEFAULT_CAPACITY;
     // Количество элементов в таблице (Общее количество элементов по всем спискам)
     private int countOfElements = 0;
+    // Количество структурных изменений (для быстрого отказа итераторов)
+    private int modCount = 0;
 
     // Таблица
     private Node<K, V>[] table;
 
+    // Постепенное перехеширование: старая таблица переносится в новую по REHASH_STEP корзин за операцию
+    private boolean incrementalRehashing = false;
+    // Старая таблица, из которой еще переносятся узлы (null, если перенос не идет)
+    private Node<K, V>[] oldTable = null;
+    // Индекс следующей корзины старой таблицы, которую нужно перенести
+    private int migrationIndex = 0;
+
+    // Счетчики статистики (null, если режим статистики выключен)
+    private StatisticsCounters statistics = null;
+    // Оценки размеров объектов в байтах (со сжатыми указателями)
+    private static final int NODE_BYTES = 32;
+    private static final int TREE_NODE_BYTES = 48;
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int REFERENCE_BYTES = 4;
 
 
     public HashMap() {
@@ -43,67 +72,240 @@ public class HashMap<K, V> {
      */
     private void init(float loadFactor, int capacity) {
         this.loadFactor = loadFactor;
-        this.capacity = capacity;
+        this.capacity = Math.max(capacity, 1);
         table = (Node<K, V>[]) new Node[this.capacity];
     }
 
     /**
-     * Возвращает индекс в таблице на основе хеш-кода ключа
-     * @param key Ключ
+     * Возвращает индекс в таблице размера {@code length} на основе хеш-кода ключа
+     * @param hash Хеш-код ключа
+     * @param length Размер таблицы
      * @return Индекс
      */
-    private int indexOf(K key) {
-        return key.hashCode() % (capacity - 1);
+    private static int indexOf(int hash, int length) {
+        return (hash & 0x7FFFFFFF) % length;
     }
 
     /**
-     * Вставляет узел {@code newNode} в таблицу {@code table} в связанные списко на позиции {@code index}.
+     * Вставляет пару в таблицу {@code table} в корзину на позиции {@code index}.
      * Если флаг {@code swapIfExist} установлен в {@code true}, то заменяет старое значение при совпадении ключа, и не заменяет при {@code false}.
-     * @param newNode Новый узел
+     * Если цепочка становится длиннее {@link TreeNode#TREEIFY_THRESHOLD}, корзина превращается в дерево.
+     * @param hash Хеш-код ключа
+     * @param key Ключ
+     * @param value Значение
      * @param index Индекс
      * @param swapIfExist Сменить, если уже существует
      * @param table Таблица
      * @return Возвращает количество добавленных новых узлов в таблицу (0 или 1)
      */
-    private int putNodeByIndex(Node<K, V> newNode, int index,
+    private int putNodeByIndex(int hash, K key, V value, int index,
                                 boolean swapIfExist, Node<K, V>[] table) {
-        if (table[index] == null) {
+        Node<K, V> tempNode = table[index];
+        if (tempNode == null) {
             // Create new list and add new node
-            table[index] = newNode;
-        } else {
-            Node<K, V> tempNode = table[index];
-            do {
-                if ((tempNode.getHash() == newNode.getHash() &&
-                        (tempNode.getKey().equals(newNode.getKey())))) {
-                    // Rewrite old value to new
-                    if (swapIfExist) {
-                        tempNode.setValue(newNode.getValue());
-                    }
-                    return 0;
-                } else {
-                    if (tempNode.getNext() != null) {
-                        tempNode = tempNode.getNext();
-                    }
+            table[index] = new Node<>(hash, key, value);
+            recordAllocation(NODE_BYTES);
+            return 1;
+        }
+
+        if (tempNode instanceof TreeNode) {
+            Node<K, V> existing = ((TreeNode<K, V>) tempNode).putTreeVal(table, index, hash, key, value);
+            if (existing == null) {
+                recordAllocation(TREE_NODE_BYTES);
+                return 1;
+            }
+            if (swapIfExist) {
+                existing.setValue(value);
+            }
+            return 0;
+        }
+
+        int chainLength = 1;
+        while (true) {
+            if (tempNode.getHash() == hash &&
+                    tempNode.getKey().equals(key)) {
+                // Rewrite old value to new
+                if (swapIfExist) {
+                    tempNode.setValue(value);
                 }
-            } while (tempNode.getNext() != null);
+                return 0;
+            }
+            if (tempNode.getNext() == null) {
+                break;
+            }
+            tempNode = tempNode.getNext();
+            chainLength++;
+        }
 
-            // Add new node to linked list
-            tempNode.setNext(newNode);
+        // Add new node to linked list
+        tempNode.setNext(new Node<>(hash, key, value));
+        recordAllocation(NODE_BYTES);
+        if (chainLength + 1 >= TreeNode.TREEIFY_THRESHOLD) {
+            TreeNode.treeify(table, index);
+            recordAllocation((long) (chainLength + 1) * TREE_NODE_BYTES);
         }
         return 1;
     }
 
     /**
-     * Возвращает узел, которые находится в таблице на позиции {@code index}. Может вернутся {@code null}.
-     * @param index Индекс
-     * @return Узел или {@code null}, если на позиции {@code index} нет узла
+     * Ищет узел с ключом {@code key} в корзине {@code table[index]}.
+     * @param key Ключ
+     * @param hash Хеш-код ключа
+     * @param table Таблица
+     * @return Узел или {@code null}, если ключа в корзине нет
+     */
+    private Node<K, V> findNodeInBucket(K key, int hash, Node<K, V>[] table) {
+        Node<K, V> node = table[indexOf(hash, table.length)];
+        if (node instanceof TreeNode) {
+            return ((TreeNode<K, V>) node).root().find(hash, key, null);
+        }
+        while (node != null) {
+            if (node.getHash() == hash && node.getKey().equals(key)) {
+                return node;
+            }
+            node = node.getNext();
+        }
+        return null;
+    }
+
+    /**
+     * Ищет узел по ключу. Во время постепенного перехеширования просматривает обе таблицы.
+     * @param key Ключ
+     * @return Узел или {@code null}, если ключа нет
+     */
+    private Node<K, V> findNode(K key) {
+        int hash = key.hashCode();
+        if (oldTable != null) {
+            Node<K, V> node = findNodeInBucket(key, hash, oldTable);
+            if (node != null) {
+                if (statistics != null) {
+                    statistics.recordHit(countProbes(hash, node, oldTable));
+                }
+                return node;
+            }
+        }
+        Node<K, V> node = findNodeInBucket(key, hash, table);
+        if (statistics != null) {
+            int probes = (oldTable != null ? countProbes(hash, null, oldTable) : 0) + countProbes(hash, node, table);
+            if (node != null) {
+                statistics.recordHit(probes);
+            } else {
+                statistics.recordMiss(probes);
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Считает количество узлов, которые просматривает поиск в корзине. Вызывается только в режиме статистики,
+     * чтобы сам поиск оставался без счетчиков.
+     * @param hash Хеш-код ключа
+     * @param target Найденный узел или {@code null}, если ключа в корзине нет
+     * @param table Таблица
+     * @return Количество узлов
+     */
+    private static <K, V> int countProbes(int hash, Node<K, V> target, Node<K, V>[] table) {
+        Node<K, V> node = table[indexOf(hash, table.length)];
+        if (node instanceof TreeNode) {
+            return target != null ? ((TreeNode<K, V>) target).depth() : ((TreeNode<K, V>) node).root().pathLength(hash);
+        }
+        int probes = 0;
+        for (; node != null; node = node.getNext()) {
+            probes++;
+            if (node == target) {
+                break;
+            }
+        }
+        return probes;
+    }
+
+    private void recordAllocation(long bytes) {
+        if (statistics != null) {
+            statistics.allocatedBytes += bytes;
+        }
+    }
+
+    /**
+     * Переносит все узлы корзины {@code from[index]} в таблицу {@code to}. Узлы списков не пересоздаются, а перевешиваются.
+     * Узлы дерева заменяются обычными узлами: в новой таблице ключи дерева расходятся по разным корзинам.
+     * Корзины, в которых при этом набралось {@link TreeNode#TREEIFY_THRESHOLD} узлов (например, ключи с одинаковым
+     * хеш-кодом), снова становятся деревьями, чтобы перехеширование не возвращало поиск к линейному.
+     * @param from Таблица-источник
+     * @param index Индекс корзины
+     * @param to Таблица-приемник
+     */
+    private static <K, V> void moveBucket(Node<K, V>[] from, int index, Node<K, V>[] to) {
+        Node<K, V> first = from[index];
+        Node<K, V> node = first;
+        from[index] = null;
+        boolean tree = node instanceof TreeNode;
+        while (node != null) {
+            Node<K, V> next = node.getNext();
+            int newIndex = indexOf(node.getHash(), to.length);
+            Node<K, V> head = to[newIndex];
+            if (head instanceof TreeNode) {
+                // The destination bucket was treeified by a put during incremental rehashing
+                ((TreeNode<K, V>) head).putTreeVal(to, newIndex, node.getHash(), node.getKey(), node.getValue());
+            } else {
+                Node<K, V> moved = tree ? new Node<>(node.getHash(), node.getKey(), node.getValue()) : node;
+                moved.setNext(head);
+                to[newIndex] = moved;
+            }
+            node = next;
+        }
+        if (tree) {
+            // Nodes of the old tree are not relinked, so they still form the old chain
+            for (node = first; node != null; node = node.getNext()) {
+                int newIndex = indexOf(node.getHash(), to.length);
+                if (!(to[newIndex] instanceof TreeNode) && isLongChain(to[newIndex])) {
+                    TreeNode.treeify(to, newIndex);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return {@code true}, если в цепочке не меньше {@link TreeNode#TREEIFY_THRESHOLD} узлов
+     */
+    private static <K, V> boolean isLongChain(Node<K, V> head) {
+        int length = 0;
+        for (Node<K, V> node = head; node != null; node = node.getNext()) {
+            if (++length >= TreeNode.TREEIFY_THRESHOLD) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Переносит не более {@code steps} корзин старой таблицы в новую.
+     * Когда все корзины перенесены, старая таблица отбрасывается.
+     * @param steps Количество корзин
      */
-    private Node<K, V> getNodeByIndex(int index) {
-        return table[index];
+    private void migrate(int steps) {
+        if (oldTable == null) {
+            return;
+        }
+        long start = statistics != null ? System.nanoTime() : 0;
+        int end = (int) Math.min((long) migrationIndex + steps, oldTable.length);
+        for (; migrationIndex < end; migrationIndex++) {
+            if (oldTable[migrationIndex] != null) {
+                moveBucket(oldTable, migrationIndex, table);
+            }
+        }
+        if (migrationIndex == oldTable.length) {
+            oldTable = null;
+            migrationIndex = 0;
+        }
+        if (statistics != null) {
+            statistics.resizeTimeNanos += System.nanoTime() - start;
+        }
     }
 
     /**
      * Ребалансировка словаря, если уровень загружености выше установленного.
+     * В режиме постепенного перехеширования только создает новую таблицу, а узлы переносятся последующими операциями.
+     * Принудительная ребалансировка всегда перестраивает таблицу целиком.
      */
     private void rebalanced(boolean forced) {
         float actualLoadFactor = getActualLoad();
@@ -111,25 +313,31 @@ public class HashMap<K, V> {
             return;
         }
 
+        // Previous migration must be finished before the next resize
+        migrate(Integer.MAX_VALUE);
+        modCount++;
+        long start = statistics != null ? System.nanoTime() : 0;
+
         capacity = 2 * capacity + 1;
         Node<K, V>[] newTable = (Node<K, V>[]) new Node[capacity];
-        int addedNodesCount = 0;
-        for (int i = 0; i < table.length && addedNodesCount < countOfElements; i++) {
-            if (table[i] == null) {
-                continue;
-            }
-
-            Node<K, V> node = table[i];
-            while (node != null) {
-                int index = indexOf(node.getKey());
-                putNodeByIndex(new Node<>(node.getHash(), node.getKey(), node.getValue()), index, true, newTable);
-                addedNodesCount++;
-                node = node.getNext();
+        if (incrementalRehashing && !forced) {
+            oldTable = table;
+            migrationIndex = 0;
+            table = newTable;
+        } else {
+            for (int i = 0; i < table.length; i++) {
+                if (table[i] != null) {
+                    moveBucket(table, i, newTable);
+                }
             }
+            table = newTable;
         }
 
-
-        table = newTable;
+        if (statistics != null) {
+            statistics.resizeCount++;
+            statistics.resizeTimeNanos += System.nanoTime() - start;
+            statistics.allocatedBytes += ARRAY_HEADER_BYTES + (long) REFERENCE_BYTES * capacity;
+        }
     }
 
 
@@ -140,11 +348,7 @@ public class HashMap<K, V> {
      * @param value Значение
      */
     public void put(K key, V value) {
-        Objects.requireNonNull(key);
-        int index = indexOf(key);
-        Node<K, V> node = new Node<>(key.hashCode(), key, value);
-        countOfElements += putNodeByIndex(node, index, true, table);
-        rebalanced(false);
+        putValue(key, value, true);
     }
 
     /**
@@ -154,10 +358,25 @@ public class HashMap<K, V> {
      * @param value Значение
      */
     public void putIfNotExist(K key, V value) {
+        putValue(key, value, false);
+    }
+
+    private void putValue(K key, V value, boolean swapIfExist) {
         Objects.requireNonNull(key);
-        int index = indexOf(key);
-        Node<K, V> node = new Node<>(key.hashCode(), key, value);
-        countOfElements += putNodeByIndex(node, index, false, table);
+        migrate(REHASH_STEP);
+        int hash = key.hashCode();
+        if (oldTable != null) {
+            Node<K, V> node = findNodeInBucket(key, hash, oldTable);
+            if (node != null) {
+                if (swapIfExist) {
+                    node.setValue(value);
+                }
+                return;
+            }
+        }
+        int added = putNodeByIndex(hash, key, value, indexOf(hash, table.length), swapIfExist, table);
+        countOfElements += added;
+        modCount += added;
         rebalanced(false);
     }
 
@@ -167,15 +386,10 @@ public class HashMap<K, V> {
      * @return Значение
      */
     public V get(K key) {
-        int index = indexOf(key);
-        Node<K, V> node = getNodeByIndex(index);
-
-        while (node != null) {
-            if (node.getKey().equals(key)) {
-                return node.getValue();
-            } else {
-                node = node.getNext();
-            }
+        migrate(REHASH_STEP);
+        Node<K, V> node = findNode(key);
+        if (node != null) {
+            return node.getValue();
         }
 
         throw new HashMapException("Key " + key + " does not exist");
@@ -187,20 +401,19 @@ public class HashMap<K, V> {
      * @return Значение или null, если ключа не существует
      */
     public V getOrNull(K key) {
-        try {
-            return get(key);
-        } catch (HashMapException ex) {
-            return null;
-        }
+        migrate(REHASH_STEP);
+        Node<K, V> node = findNode(key);
+        return node != null ? node.getValue() : null;
     }
 
     /**
-     * Проверят на наличие ключа
+     * Проверят на наличие ключа. Ключ со значением {@code null} тоже считается существующим.
      * @param key Ключ
      * @return Результат проверки
      */
     public boolean isContain(K key) {
-        return this.getOrNull(key) != null;
+        migrate(REHASH_STEP);
+        return findNode(key) != null;
     }
 
     /**
@@ -209,32 +422,49 @@ public class HashMap<K, V> {
      * @return true, если элемент был удален, и false, в обратном случае.
      */
     public boolean remove(K key) {
-        if (!isContain(key)) { // key does not exist
-            return false;
+        migrate(REHASH_STEP);
+        int hash = key.hashCode();
+        if (oldTable != null && removeFromBucket(key, hash, oldTable, true)) {
+            return true;
         }
+        return removeFromBucket(key, hash, table, true);
+    }
 
-        int index = indexOf(key);
-        Node<K, V> cur = table[index];
+    /**
+     * Удаляет узел с ключом {@code key} из корзины {@code table[index]} за один проход по цепочке
+     * @param key Ключ
+     * @param hash Хеш-код ключа
+     * @param table Таблица
+     * @param movable false при удалении через итератор: порядок остальных узлов корзины должен сохраниться
+     * @return true, если узел был удален
+     */
+    private boolean removeFromBucket(K key, int hash, Node<K, V>[] table, boolean movable) {
+        int index = indexOf(hash, table.length);
         Node<K, V> prev = null;
-        if (cur.getHash() == key.hashCode() &&
-            cur.getKey().equals(key)) { // first node
-            table[index] = cur.getNext();
+        Node<K, V> cur = table[index];
+        if (cur instanceof TreeNode) {
+            TreeNode<K, V> node = ((TreeNode<K, V>) cur).root().find(hash, key, null);
+            if (node == null) {
+                return false;
+            }
+            node.removeTreeNode(table, index, movable);
             countOfElements--;
+            modCount++;
             return true;
-        } else {
-            prev = cur;
-            cur = prev.getNext();
-            while(cur != null) {
-                if (cur.getHash() == key.hashCode() &&
-                    cur.getKey().equals(key)) {
-                    prev.setNext(cur.getNext());
-                    countOfElements--;
-                    return true;
+        }
+        while (cur != null) {
+            if (cur.getHash() == hash && cur.getKey().equals(key)) {
+                if (prev == null) { // first node
+                    table[index] = cur.getNext();
                 } else {
-                    prev = cur;
-                    cur = prev.getNext();
+                    prev.setNext(cur.getNext());
                 }
+                countOfElements--;
+                modCount++;
+                return true;
             }
+            prev = cur;
+            cur = cur.getNext();
         }
         return false;
     }
@@ -252,6 +482,14 @@ public class HashMap<K, V> {
      */
     public List<String> getAllNodes() {
         List<String> result = new ArrayList<>();
+        if (oldTable != null) {
+            collectNodes(oldTable, result);
+        }
+        collectNodes(table, result);
+        return result;
+    }
+
+    private void collectNodes(Node<K, V>[] table, List<String> result) {
         for(Node<K, V> node : table) {
             Node<K, V> temp = node;
             while(temp != null) {
@@ -259,7 +497,301 @@ public class HashMap<K, V> {
                 temp = temp.getNext();
             }
         }
-        return result;
+    }
+
+    /**
+     * Передает каждую пару ключ-значение в {@code action}. Объекты на каждый элемент не создаются.
+     * @param action Действие над парой
+     * @throws ConcurrentModificationException Если словарь структурно изменился во время обхода
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        migrate(Integer.MAX_VALUE);
+        int expectedModCount = modCount;
+        for (Node<K, V> node : table) {
+            for (; node != null; node = node.getNext()) {
+                action.accept(node.getKey(), node.getValue());
+            }
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Добавляет все пары из другого словаря. Существующие значения перезаписываются.
+     * @param other Другой словарь
+     */
+    public void putAll(HashMap<? extends K, ? extends V> other) {
+        other.forEach(this::put);
+    }
+
+    /**
+     * Удаляет все пары, для которых {@code filter} вернул {@code true}, за один проход по таблице
+     * @param filter Условие удаления
+     * @return true, если была удалена хотя бы одна пара
+     */
+    public boolean removeIf(BiPredicate<? super K, ? super V> filter) {
+        Objects.requireNonNull(filter);
+        migrate(Integer.MAX_VALUE);
+        int removed = 0;
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] instanceof TreeNode) {
+                removed += removeIfFromTree(filter, i);
+                continue;
+            }
+            Node<K, V> prev = null;
+            Node<K, V> cur = table[i];
+            while (cur != null) {
+                Node<K, V> next = cur.getNext();
+                if (filter.test(cur.getKey(), cur.getValue())) {
+                    if (prev == null) {
+                        table[i] = next;
+                    } else {
+                        prev.setNext(next);
+                    }
+                    removed++;
+                } else {
+                    prev = cur;
+                }
+                cur = next;
+            }
+        }
+        countOfElements -= removed;
+        modCount += removed;
+        return removed > 0;
+    }
+
+    /**
+     * Удаляет пары из корзины-дерева {@code table[index]}. Оставшиеся узлы собираются в новую цепочку,
+     * которая снова становится деревом, если осталась достаточно длинной.
+     * @param filter Условие удаления
+     * @param index Индекс корзины
+     * @return Количество удаленных пар
+     */
+    private int removeIfFromTree(BiPredicate<? super K, ? super V> filter, int index) {
+        int removed = 0;
+        int kept = 0;
+        Node<K, V> head = null;
+        for (Node<K, V> node = table[index]; node != null; node = node.getNext()) {
+            if (filter.test(node.getKey(), node.getValue())) {
+                removed++;
+            } else {
+                head = new Node<>(node.getHash(), node.getKey(), node.getValue(), head);
+                kept++;
+            }
+        }
+        if (removed > 0) {
+            table[index] = head;
+            recordAllocation((long) kept * NODE_BYTES);
+            if (kept >= TreeNode.TREEIFY_THRESHOLD) {
+                TreeNode.treeify(table, index);
+                recordAllocation((long) kept * TREE_NODE_BYTES);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Возвращает итератор по парам ключ-значение. Значение можно изменить через {@link Map.Entry#setValue},
+     * удалить пару - через {@link Iterator#remove}. Любое другое структурное изменение словаря во время обхода
+     * приводит к {@link ConcurrentModificationException}.
+     * @return Итератор по парам
+     */
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return new HashIterator<>() {
+            @Override
+            public Map.Entry<K, V> next() {
+                return nextNode();
+            }
+        };
+    }
+
+    /**
+     * Возвращает итератор по ключам
+     * @return Итератор по ключам
+     */
+    public Iterator<K> keyIterator() {
+        return new HashIterator<>() {
+            @Override
+            public K next() {
+                return nextNode().getKey();
+            }
+        };
+    }
+
+    /**
+     * Возвращает итератор по значениям
+     * @return Итератор по значениям
+     */
+    public Iterator<V> valueIterator() {
+        return new HashIterator<>() {
+            @Override
+            public V next() {
+                return nextNode().getValue();
+            }
+        };
+    }
+
+    /**
+     * Возвращает {@link Spliterator} по парам ключ-значение. Он делится пополам по диапазону корзин таблицы,
+     * поэтому {@link #parallelStream()} обрабатывает разные части таблицы в разных потоках.
+     * @return Spliterator по парам
+     */
+    @Override
+    public Spliterator<Map.Entry<K, V>> spliterator() {
+        migrate(Integer.MAX_VALUE);
+        return new EntrySpliterator(0, table.length, countOfElements, modCount);
+    }
+
+    /**
+     * @return Последовательный поток пар ключ-значение
+     */
+    public Stream<Map.Entry<K, V>> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * @return Параллельный поток пар ключ-значение
+     */
+    public Stream<Map.Entry<K, V>> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * Общая часть итераторов: обход корзин таблицы и проверка структурных изменений.
+     * Перед обходом незавершенный перенос узлов доделывается, чтобы все узлы лежали в одной таблице.
+     */
+    private abstract class HashIterator<E> implements Iterator<E> {
+        private final Node<K, V>[] table;
+        private int index = 0;
+        private Node<K, V> next;
+        private Node<K, V> current;
+        private int expectedModCount;
+
+        HashIterator() {
+            migrate(Integer.MAX_VALUE);
+            table = HashMap.this.table;
+            expectedModCount = modCount;
+            advance();
+        }
+
+        private void advance() {
+            while (next == null && index < table.length) {
+                next = table[index++];
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        Node<K, V> nextNode() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            current = next;
+            next = next.getNext();
+            advance();
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            if (current == null) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            // The tree bucket must keep its list order, otherwise 'next' may skip or copy nodes
+            removeFromBucket(current.getKey(), current.getHash(), table, false);
+            current = null;
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * Spliterator по диапазону корзин [{@code index}, {@code fence}) таблицы
+     */
+    private final class EntrySpliterator implements Spliterator<Map.Entry<K, V>> {
+        private final Node<K, V>[] table = HashMap.this.table;
+        private final int expectedModCount;
+        private int index;
+        private final int fence;
+        private int estimate;
+        private Node<K, V> current;
+
+        EntrySpliterator(int index, int fence, int estimate, int expectedModCount) {
+            this.index = index;
+            this.fence = fence;
+            this.estimate = estimate;
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        public Spliterator<Map.Entry<K, V>> trySplit() {
+            int middle = (index + fence) >>> 1;
+            if (index >= middle || current != null) {
+                return null;
+            }
+            EntrySpliterator prefix = new EntrySpliterator(index, middle, estimate >>>= 1, expectedModCount);
+            index = middle;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Map.Entry<K, V>> action) {
+            Objects.requireNonNull(action);
+            while (current != null || index < fence) {
+                if (current == null) {
+                    current = table[index++];
+                    continue;
+                }
+                Node<K, V> node = current;
+                current = current.getNext();
+                action.accept(node);
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Map.Entry<K, V>> action) {
+            Objects.requireNonNull(action);
+            Node<K, V> node = current;
+            current = null;
+            for (int i = index; node != null || i < fence; ) {
+                if (node == null) {
+                    node = table[i++];
+                    continue;
+                }
+                action.accept(node);
+                node = node.getNext();
+            }
+            index = fence;
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.DISTINCT | Spliterator.NONNULL;
+        }
     }
 
     /**
@@ -294,4 +826,105 @@ public class HashMap<K, V> {
         this.loadFactor = loadFactor;
     }
 
+    /**
+     * Включает или выключает постепенное перехеширование. Во включенном режиме увеличение таблицы не переносит
+     * все узлы сразу: старая и новая таблицы живут одновременно, и каждая операция {@code put/get/remove}
+     * переносит ограниченное число корзин. При выключении незавершенный перенос доделывается сразу.
+     * @param incrementalRehashing Новый режим
+     */
+    public void setIncrementalRehashing(boolean incrementalRehashing) {
+        this.incrementalRehashing = incrementalRehashing;
+        if (!incrementalRehashing) {
+            migrate(Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Проверяет, идет ли сейчас постепенный перенос узлов из старой таблицы
+     * @return Результат проверки
+     */
+    public boolean isRehashing() {
+        return oldTable != null;
+    }
+
+    /**
+     * Включает или выключает режим статистики. При включении счетчики обнуляются.
+     * В выключенном режиме статистика стоит одной проверки на {@code null} за операцию.
+     * Во включенном режиме каждый поиск дополнительно проходит по корзине еще раз, чтобы посчитать просмотренные узлы.
+     * @param enabled Новый режим
+     */
+    public void setStatisticsEnabled(boolean enabled) {
+        statistics = enabled ? new StatisticsCounters() : null;
+    }
+
+    /**
+     * @return true, если режим статистики включен
+     */
+    public boolean isStatisticsEnabled() {
+        return statistics != null;
+    }
+
+    /**
+     * Возвращает снимок статистики. Распределение длин корзин вычисляется проходом по всей таблице.
+     * @return Снимок статистики
+     */
+    public HashMapStatistics getStatistics() {
+        int[] histogram = new int[1];
+        int treeBuckets = 0;
+        int bucketCount = table.length;
+        for (Node<K, V>[] t : tables()) {
+            for (Node<K, V> node : t) {
+                if (node instanceof TreeNode) {
+                    treeBuckets++;
+                }
+                int length = 0;
+                for (; node != null; node = node.getNext()) {
+                    length++;
+                }
+                if (length >= histogram.length) {
+                    histogram = Arrays.copyOf(histogram, length + 1);
+                }
+                histogram[length]++;
+            }
+        }
+        if (oldTable != null) {
+            bucketCount += oldTable.length;
+        }
+
+        StatisticsCounters counters = statistics != null ? statistics : new StatisticsCounters();
+        return new HashMapStatistics(countOfElements, bucketCount, histogram, treeBuckets,
+                counters.hitCount, counters.hitProbes, counters.missCount, counters.missProbes,
+                counters.resizeCount, counters.resizeTimeNanos, counters.allocatedBytes);
+    }
+
+    /**
+     * @return Старая таблица (если идет перехеширование) и текущая
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Node<K, V>[][] tables() {
+        return oldTable != null ? new Node[][]{oldTable, table} : new Node[][]{table};
+    }
+
+    /**
+     * Изменяемые счетчики режима статистики
+     */
+    private static final class StatisticsCounters {
+        private long hitCount;
+        private long hitProbes;
+        private long missCount;
+        private long missProbes;
+        private long resizeCount;
+        private long resizeTimeNanos;
+        private long allocatedBytes;
+
+        void recordHit(int probes) {
+            hitCount++;
+            hitProbes += probes;
+        }
+
+        void recordMiss(int probes) {
+            missCount++;
+            missProbes += probes;
+        }
+    }
 }
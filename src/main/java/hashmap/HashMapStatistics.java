@@ -0,0 +1,142 @@
+package hashmap;
+
+import java.util.Arrays;
+
+/**
+ * Неизменяемый снимок статистики {@link HashMap}. Счетчики обращений и перехеширований заполняются, только если
+ * у словаря включен режим статистики ({@link HashMap#setStatisticsEnabled}); распределение длин корзин
+ * вычисляется в момент снимка всегда.
+ */
+public final class HashMapStatistics {
+    private final int size;
+    private final int bucketCount;
+    private final int[] bucketLengthHistogram;
+    private final int treeBucketCount;
+    private final long hitCount;
+    private final long hitProbes;
+    private final long missCount;
+    private final long missProbes;
+    private final long resizeCount;
+    private final long resizeTimeNanos;
+    private final long allocatedBytes;
+
+    HashMapStatistics(int size, int bucketCount, int[] bucketLengthHistogram, int treeBucketCount,
+                      long hitCount, long hitProbes, long missCount, long missProbes,
+                      long resizeCount, long resizeTimeNanos, long allocatedBytes) {
+        this.size = size;
+        this.bucketCount = bucketCount;
+        this.bucketLengthHistogram = bucketLengthHistogram;
+        this.treeBucketCount = treeBucketCount;
+        this.hitCount = hitCount;
+        this.hitProbes = hitProbes;
+        this.missCount = missCount;
+        this.missProbes = missProbes;
+        this.resizeCount = resizeCount;
+        this.resizeTimeNanos = resizeTimeNanos;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    /**
+     * @return Количество элементов
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return Количество корзин (во время постепенного перехеширования - в обеих таблицах)
+     */
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    /**
+     * Распределение длин корзин: элемент {@code i} - количество корзин, в которых ровно {@code i} узлов
+     * @return Копия гистограммы
+     */
+    public int[] getBucketLengthHistogram() {
+        return Arrays.copyOf(bucketLengthHistogram, bucketLengthHistogram.length);
+    }
+
+    /**
+     * @return Длина самой длинной корзины
+     */
+    public int getMaxChainLength() {
+        return bucketLengthHistogram.length - 1;
+    }
+
+    /**
+     * @return Количество корзин, превращенных в дерево
+     */
+    public int getTreeBucketCount() {
+        return treeBucketCount;
+    }
+
+    /**
+     * @return Количество успешных поисков ({@code get/getOrNull/isContain})
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return Количество неуспешных поисков
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return Среднее количество просмотренных узлов при успешном поиске
+     */
+    public double getAverageProbesPerHit() {
+        return hitCount == 0 ? 0.0 : (double) hitProbes / hitCount;
+    }
+
+    /**
+     * @return Среднее количество просмотренных узлов при неуспешном поиске
+     */
+    public double getAverageProbesPerMiss() {
+        return missCount == 0 ? 0.0 : (double) missProbes / missCount;
+    }
+
+    /**
+     * @return Количество увеличений таблицы
+     */
+    public long getResizeCount() {
+        return resizeCount;
+    }
+
+    /**
+     * @return Суммарное время увеличений таблицы и переноса узлов в наносекундах
+     */
+    public long getResizeTimeNanos() {
+        return resizeTimeNanos;
+    }
+
+    /**
+     * Оценка памяти, выделенной под таблицы и узлы (по размерам объектов со сжатыми указателями)
+     * @return Количество байт
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "HashMapStatistics{" +
+                "size=" + size +
+                ", bucketCount=" + bucketCount +
+                ", maxChainLength=" + getMaxChainLength() +
+                ", treeBucketCount=" + treeBucketCount +
+                ", bucketLengthHistogram=" + Arrays.toString(bucketLengthHistogram) +
+                ", hitCount=" + hitCount +
+                ", averageProbesPerHit=" + getAverageProbesPerHit() +
+                ", missCount=" + missCount +
+                ", averageProbesPerMiss=" + getAverageProbesPerMiss() +
+                ", resizeCount=" + resizeCount +
+                ", resizeTimeNanos=" + resizeTimeNanos +
+                ", allocatedBytes=" + allocatedBytes +
+                '}';
+    }
+}
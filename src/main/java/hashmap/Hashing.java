@@ -0,0 +1,78 @@
+package hashmap;
+
+/**
+ * Общие функции для хеш-таблиц с открытой адресацией и размером, равным степени двойки.
+ */
+final class Hashing {
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private Hashing() {
+    }
+
+    /**
+     * Возвращает ближайшую степень двойки, которая не меньше {@code capacity}
+     * @param capacity Желаемый размер
+     * @return Размер таблицы
+     */
+    static int tableSizeFor(int capacity) {
+        if (capacity <= 2) {
+            return 2;
+        }
+        if (capacity >= MAXIMUM_CAPACITY) {
+            return MAXIMUM_CAPACITY;
+        }
+        return Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    /**
+     * Возвращает размер таблицы, в которую {@code size} элементов помещаются без превышения {@code loadFactor}
+     * @param size Количество элементов
+     * @param loadFactor Коэффициент загруженности
+     * @return Размер таблицы
+     */
+    static int tableSizeFor(int size, float loadFactor) {
+        return tableSizeFor((int) Math.min(Math.ceil(size / loadFactor) + 1, MAXIMUM_CAPACITY));
+    }
+
+    /**
+     * Проверяет коэффициент загруженности для открытой адресации (строго между 0 и 1)
+     * @param loadFactor Коэффициент загруженности
+     */
+    static void checkLoadFactor(float loadFactor) {
+        if (!(loadFactor > 0f && loadFactor < 1f)) {
+            throw new IllegalArgumentException("Load factor should be in range (0, 1): " + loadFactor);
+        }
+    }
+
+    /**
+     * Возвращает количество элементов, при котором таблица размера {@code size} должна быть увеличена.
+     * Хотя бы одна ячейка всегда остается свободной, иначе поиск отсутствующего ключа не завершится.
+     * @param size Размер таблицы
+     * @param loadFactor Коэффициент загруженности
+     * @return Порог
+     */
+    static int threshold(int size, float loadFactor) {
+        return Math.min((int) (size * loadFactor), size - 1);
+    }
+
+    /**
+     * Перемешивает биты хеш-кода, чтобы младшие биты (по которым берется маска) зависели от всех битов.
+     * @param hash Хеш-код
+     * @return Перемешанный хеш-код
+     */
+    static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Перемешивает биты 64-битного ключа и сворачивает их в {@code int}
+     * @param key Ключ
+     * @return Перемешанный хеш-код
+     */
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (int) (h ^ (h >>> 16));
+    }
+}
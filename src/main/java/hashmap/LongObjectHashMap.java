@@ -0,0 +1,377 @@
+package hashmap;
+
+import java.util.Arrays;
+
+/**
+ * Хеш-таблица с ключами {@code long} без упаковки в объекты и значениями-объектами.
+ * Ключи и значения хранятся в двух параллельных массивах, коллизии разрешаются линейным пробированием,
+ * при удалении используется обратный сдвиг. Свободная ячейка кодируется ключом {@code 0}, поэтому сам ключ
+ * {@code 0} хранится отдельно от таблицы.
+ */
+public class LongObjectHashMap<V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    // Ключ, которым помечается свободная ячейка
+    private static final long EMPTY = 0;
+
+    /**
+     * Функция, принимающая пару ключ-значение без упаковки
+     */
+    @FunctionalInterface
+    public interface LongObjectConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    /**
+     * Курсор для перебора элементов без создания объектов на каждый элемент.
+     * Использование: {@code while (cursor.next()) { cursor.key(); cursor.value(); }}.
+     * Изменение словаря во время перебора не допускается.
+     */
+    public final class Cursor {
+        // -1 - ключ 0, далее позиции в таблице
+        private int index = -2;
+
+        private Cursor() {
+        }
+
+        /**
+         * Переходит к следующему элементу
+         * @return true, если элемент есть, и false, если перебор закончен
+         */
+        public boolean next() {
+            if (index == -2) {
+                index = -1;
+                if (hasEmptyKey) {
+                    return true;
+                }
+            }
+            long[] keys = LongObjectHashMap.this.keys;
+            while (++index < keys.length) {
+                if (keys[index] != EMPTY) {
+                    return true;
+                }
+            }
+            index = keys.length;
+            return false;
+        }
+
+        /**
+         * @return Ключ текущего элемента
+         */
+        public long key() {
+            return index < 0 ? EMPTY : keys[index];
+        }
+
+        /**
+         * @return Значение текущего элемента
+         */
+        @SuppressWarnings("unchecked")
+        public V value() {
+            return (V) (index < 0 ? emptyKeyValue : values[index]);
+        }
+    }
+
+    // Уровень загружености (строго меньше 1)
+    private float loadFactor = DEFAULT_LOAD_FACTOR;
+    // Количество элементов в таблице (без учета ключа 0)
+    private int countOfElements = 0;
+    // Количество элементов, при котором таблица будет увеличена
+    private int threshold;
+    // Маска индекса (размер таблицы - 1)
+    private int mask;
+
+    private long[] keys;
+    private Object[] values;
+
+    // Ключ 0 совпадает с меткой свободной ячейки, поэтому хранится отдельно
+    private boolean hasEmptyKey = false;
+    private Object emptyKeyValue;
+
+    public LongObjectHashMap() {
+        init(DEFAULT_LOAD_FACTOR, DEFAULT_CAPACITY);
+    }
+
+    public LongObjectHashMap(float loadFactor) {
+        init(loadFactor, DEFAULT_CAPACITY);
+    }
+
+    public LongObjectHashMap(int capacity) {
+        init(DEFAULT_LOAD_FACTOR, capacity);
+    }
+
+    public LongObjectHashMap(float loadFactor, int capacity) {
+        init(loadFactor, capacity);
+    }
+
+    private void init(float loadFactor, int capacity) {
+        Hashing.checkLoadFactor(loadFactor);
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity should be non-negative: " + capacity);
+        }
+        this.loadFactor = loadFactor;
+        allocate(Hashing.tableSizeFor(capacity));
+    }
+
+    private void allocate(int size) {
+        keys = new long[size];
+        values = new Object[size];
+        mask = size - 1;
+        threshold = Hashing.threshold(size, loadFactor);
+    }
+
+    /**
+     * Возвращает позицию ключа в таблице или -1, если ключа нет. Ключ не должен быть равен 0.
+     * @param key Ключ
+     * @return Позиция или -1
+     */
+    private int findSlot(long key) {
+        long[] keys = this.keys;
+        int index = Hashing.mix(key) & mask;
+        long current;
+        while ((current = keys[index]) != EMPTY) {
+            if (current == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Вставляет пару ключ-значение.
+     * Если флаг {@code swapIfExist} установлен в {@code true}, то заменяет старое значение при совпадении ключа, и не заменяет при {@code false}.
+     * @param key Ключ
+     * @param value Значение
+     * @param swapIfExist Сменить, если уже существует
+     */
+    private void putValue(long key, V value, boolean swapIfExist) {
+        if (key == EMPTY) {
+            if (!hasEmptyKey || swapIfExist) {
+                emptyKeyValue = value;
+            }
+            hasEmptyKey = true;
+            return;
+        }
+
+        long[] keys = this.keys;
+        int index = Hashing.mix(key) & mask;
+        long current;
+        while ((current = keys[index]) != EMPTY) {
+            if (current == key) {
+                if (swapIfExist) {
+                    values[index] = value;
+                }
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = key;
+        values[index] = value;
+        if (++countOfElements > threshold) {
+            resize(keys.length << 1);
+        }
+    }
+
+    private void resize(int newSize) {
+        if (newSize > Hashing.MAXIMUM_CAPACITY) {
+            if (countOfElements >= Hashing.MAXIMUM_CAPACITY - 1) {
+                throw new HashMapException("LongObjectHashMap is full");
+            }
+            newSize = Hashing.MAXIMUM_CAPACITY;
+        }
+
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newSize);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key == EMPTY) {
+                continue;
+            }
+            int index = Hashing.mix(key) & mask;
+            while (keys[index] != EMPTY) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            values[index] = oldValues[i];
+        }
+    }
+
+    /**
+     * Удаляет элемент на позиции {@code index} и сдвигает назад следующие за ним элементы той же серии.
+     * @param index Позиция удаляемого элемента
+     */
+    private void removeAt(int index) {
+        long[] keys = this.keys;
+        Object[] values = this.values;
+        int gap = index;
+        int next = index;
+        while (true) {
+            next = (next + 1) & mask;
+            long key = keys[next];
+            if (key == EMPTY) {
+                break;
+            }
+            int ideal = Hashing.mix(key) & mask;
+            if (((next - ideal) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = key;
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        keys[gap] = EMPTY;
+        values[gap] = null;
+        countOfElements--;
+    }
+
+    /**
+     * Добавляет ключ-значение в словарь.
+     * Если такой ключ уже существует, то перезаписывает старое значение новым.
+     * @param key Ключ
+     * @param value Значение
+     */
+    public void put(long key, V value) {
+        putValue(key, value, true);
+    }
+
+    /**
+     * Добавляет ключ-значение в словарь.
+     * Если такой ключ уже существует, то старое значение не меняется.
+     * @param key Ключ
+     * @param value Значение
+     */
+    public void putIfNotExist(long key, V value) {
+        putValue(key, value, false);
+    }
+
+    /**
+     * Возвращает значение по ключу. Если ключ отсутствует, будет брошено исключение {@code HashMapException}.
+     * @param key Ключ
+     * @return Значение
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == EMPTY) {
+            if (hasEmptyKey) {
+                return (V) emptyKeyValue;
+            }
+        } else {
+            int index = findSlot(key);
+            if (index >= 0) {
+                return (V) values[index];
+            }
+        }
+        throw new HashMapException("Key " + key + " does not exist");
+    }
+
+    /**
+     * Возвращает значение по ключу или null, если такого ключа не существует
+     * @param key Ключ
+     * @return Значение или null, если ключа не существует
+     */
+    @SuppressWarnings("unchecked")
+    public V getOrNull(long key) {
+        if (key == EMPTY) {
+            return (V) emptyKeyValue;
+        }
+        int index = findSlot(key);
+        return index >= 0 ? (V) values[index] : null;
+    }
+    /**
+     * Проверят на наличие ключа
+     * @param key Ключ
+     * @return Результат проверки
+     */
+    public boolean isContain(long key) {
+        return key == EMPTY ? hasEmptyKey : findSlot(key) >= 0;
+    }
+
+    /**
+     * Удаляет ключ-значение по ключу
+     * @param key Ключ
+     * @return true, если элемент был удален, и false, в обратном случае.
+     */
+    public boolean remove(long key) {
+        if (key == EMPTY) {
+            boolean existed = hasEmptyKey;
+            hasEmptyKey = false;
+            emptyKeyValue = null;
+            return existed;
+        }
+        int index = findSlot(key);
+        if (index < 0) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * Удаляет все элементы, размер таблицы не меняется
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        countOfElements = 0;
+        hasEmptyKey = false;
+        emptyKeyValue = null;
+    }
+
+    /**
+     * Передает каждую пару ключ-значение в {@code action}. Объекты не создаются.
+     * @param action Действие над парой
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(LongObjectConsumer<? super V> action) {
+        if (hasEmptyKey) {
+            action.accept(EMPTY, (V) emptyKeyValue);
+        }
+        long[] keys = this.keys;
+        Object[] values = this.values;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                action.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    /**
+     * Возвращает курсор для перебора элементов
+     * @return Курсор, стоящий перед первым элементом
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Заставляет перехешировать словарь в таблицу минимального подходящего размера
+     */
+    public void rehashing() {
+        resize(Hashing.tableSizeFor(countOfElements, loadFactor));
+    }
+
+    /**
+     * Возвращает текущий коэффициент загруженности
+     * @return Текущий коэффициент загруженности
+     */
+    public float getActualLoad() {
+        return ((float) countOfElements) / keys.length;
+    }
+
+    /**
+     * Возвращает коэффициент загружености, указанный при инициализации (или значение по умолчанию)
+     * @return Коэффициент загруженности
+     */
+    public float getInitLoad() {
+        return loadFactor;
+    }
+
+    /**
+     * Получение числа элементов
+     * @return Число элементов
+     */
+    public int getSize() {
+        return hasEmptyKey ? countOfElements + 1 : countOfElements;
+    }
+}
@@ -1,8 +1,9 @@
 package hashmap;
 
+import java.util.Map;
 import java.util.Objects;
 
-class Node<K, V> {
+class Node<K, V> implements Map.Entry<K, V> {
     private int hash;
     private K key;
     private V value;
@@ -42,23 +43,30 @@ class Node<K, V> {
         this.next = next;
     }
 
-    public void setValue(V newValue) {
+    public V setValue(V newValue) {
+        V oldValue = this.value;
         this.value = newValue;
+        return oldValue;
     }
 
+    /**
+     * Сравнение по контракту {@link Map.Entry}: совпадают и ключ, и значение
+     * @param o Другая пара
+     * @return Результат сравнения
+     */
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        if (!(o instanceof Map.Entry)) return false;
 
-        Node<?, ?> node = (Node<?, ?>) o;
+        Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
 
-        return Objects.equals(key, node.key);
+        return Objects.equals(key, entry.getKey()) && Objects.equals(value, entry.getValue());
     }
 
     @Override
     public int hashCode() {
-        return key.hashCode();
+        return Objects.hashCode(key) ^ Objects.hashCode(value);
     }
 
     @Override
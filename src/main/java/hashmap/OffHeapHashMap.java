@@ -0,0 +1,431 @@
+package hashmap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Хеш-таблица с открытой адресацией, ячейки которой лежат вне кучи: в {@link ByteBuffer#allocateDirect} или в
+ * файле, отображенном в память. Ключи и значения кодируются {@link Codec} фиксированной длины, поэтому сборщик
+ * мусора не видит элементы словаря.
+ * <p>
+ * Файловый словарь можно закрыть и открыть снова через {@link #open(Path, Codec, Codec)}: таблица используется
+ * как есть, без перестроения. Хеш считается по байтам ключа, а не по {@code hashCode()}, поэтому он одинаков
+ * между запусками.
+ * <p>
+ * Формат: заголовок {@code HEADER_SIZE} байт, затем ячейки вида [метка (4 байта) | ключ | значение].
+ * Метка равна 0 для свободной ячейки и хешу ключа с установленным старшим битом для занятой.
+ * Размер всей таблицы ограничен 2 ГБ (пределом одного {@link ByteBuffer}).
+ * @param <K> Тип данных ключа
+ * @param <V> Тип данных значения
+ */
+public class OffHeapHashMap<K, V> implements Closeable {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    private static final int MAGIC = 0x4F484D31; // "OHM1"
+    private static final int HEADER_SIZE = 32;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int KEY_WIDTH_OFFSET = 4;
+    private static final int VALUE_WIDTH_OFFSET = 8;
+    private static final int CAPACITY_OFFSET = 12;
+    private static final int SIZE_OFFSET = 16;
+    private static final int LOAD_FACTOR_OFFSET = 20;
+
+    private static final int TAG_SIZE = Integer.BYTES;
+    private static final int OCCUPIED = 0x80000000;
+
+    private final Codec<K> keyCodec;
+    private final Codec<V> valueCodec;
+    private final int keyWidth;
+    private final int slotSize;
+    // Файл, в котором хранится таблица (null для словаря в памяти)
+    private final FileChannel channel;
+    // Буфер для кодирования искомого ключа
+    private final ByteBuffer keyScratch;
+
+    private ByteBuffer buffer;
+    private float loadFactor;
+    private int capacity;
+    private int mask;
+    private int threshold;
+    private int countOfElements;
+
+    /**
+     * Создает словарь в памяти вне кучи
+     * @param keyCodec Кодек ключей
+     * @param valueCodec Кодек значений
+     */
+    public OffHeapHashMap(Codec<K> keyCodec, Codec<V> valueCodec) {
+        this(keyCodec, valueCodec, DEFAULT_LOAD_FACTOR, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Создает словарь в памяти вне кучи
+     * @param keyCodec Кодек ключей
+     * @param valueCodec Кодек значений
+     * @param loadFactor Допустимый уровень загружености (строго между 0 и 1)
+     * @param capacity Начальный размер таблицы
+     */
+    public OffHeapHashMap(Codec<K> keyCodec, Codec<V> valueCodec, float loadFactor, int capacity) {
+        this(keyCodec, valueCodec, null);
+        Hashing.checkLoadFactor(loadFactor);
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity should be non-negative: " + capacity);
+        }
+        this.loadFactor = loadFactor;
+        setCapacity(Hashing.tableSizeFor(capacity));
+        buffer = allocate(this.capacity);
+        writeHeader();
+    }
+
+    private OffHeapHashMap(Codec<K> keyCodec, Codec<V> valueCodec, FileChannel channel) {
+        this.keyCodec = Objects.requireNonNull(keyCodec);
+        this.valueCodec = Objects.requireNonNull(valueCodec);
+        this.keyWidth = keyCodec.size();
+        this.slotSize = TAG_SIZE + keyWidth + valueCodec.size();
+        this.channel = channel;
+        this.keyScratch = ByteBuffer.allocate(keyWidth);
+    }
+
+    /**
+     * Открывает словарь, хранящийся в файле. Если файла нет или он пуст, то создается новый словарь.
+     * @param path Путь к файлу
+     * @param keyCodec Кодек ключей (должен совпадать по размеру с тем, с которым файл был создан)
+     * @param valueCodec Кодек значений (должен совпадать по размеру с тем, с которым файл был создан)
+     * @return Словарь
+     * @throws IOException Ошибка чтения файла
+     */
+    public static <K, V> OffHeapHashMap<K, V> open(Path path, Codec<K> keyCodec, Codec<V> valueCodec) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            OffHeapHashMap<K, V> map = new OffHeapHashMap<>(keyCodec, valueCodec, channel);
+            if (channel.size() == 0) {
+                map.loadFactor = DEFAULT_LOAD_FACTOR;
+                map.setCapacity(DEFAULT_CAPACITY);
+                map.buffer = map.allocate(map.capacity);
+                map.writeHeader();
+            } else {
+                map.readHeader();
+            }
+            return map;
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    private void setCapacity(int capacity) {
+        if ((long) capacity * slotSize + HEADER_SIZE > Integer.MAX_VALUE) {
+            throw new HashMapException("OffHeapHashMap can not grow beyond 2GB");
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.threshold = Hashing.threshold(capacity, loadFactor);
+    }
+
+    /**
+     * Выделяет (или отображает из файла) буфер под таблицу из {@code capacity} ячеек. Ячейки буфера пустые.
+     * @param capacity Количество ячеек
+     * @return Буфер
+     */
+    private ByteBuffer allocate(int capacity) {
+        int bytes = HEADER_SIZE + capacity * slotSize;
+        if (channel == null) {
+            return ByteBuffer.allocateDirect(bytes);
+        }
+        try {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            for (int offset = HEADER_SIZE; offset < bytes; offset += slotSize) {
+                mapped.putInt(offset, 0);
+            }
+            return mapped;
+        } catch (IOException ex) {
+            throw new HashMapException("Failed to map file: " + ex);
+        }
+    }
+
+    private void writeHeader() {
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+        buffer.putInt(KEY_WIDTH_OFFSET, keyWidth);
+        buffer.putInt(VALUE_WIDTH_OFFSET, valueCodec.size());
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        buffer.putInt(SIZE_OFFSET, countOfElements);
+        buffer.putFloat(LOAD_FACTOR_OFFSET, loadFactor);
+    }
+
+    private void readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        if (header.getInt(MAGIC_OFFSET) != MAGIC) {
+            throw new IllegalArgumentException("File is not an OffHeapHashMap");
+        }
+        if (header.getInt(KEY_WIDTH_OFFSET) != keyWidth || header.getInt(VALUE_WIDTH_OFFSET) != valueCodec.size()) {
+            throw new IllegalArgumentException("Codec sizes do not match the file: key " + header.getInt(KEY_WIDTH_OFFSET)
+                    + ", value " + header.getInt(VALUE_WIDTH_OFFSET));
+        }
+        loadFactor = header.getFloat(LOAD_FACTOR_OFFSET);
+        setCapacity(header.getInt(CAPACITY_OFFSET));
+        countOfElements = header.getInt(SIZE_OFFSET);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * slotSize);
+    }
+
+    private int slotOffset(int index) {
+        return HEADER_SIZE + index * slotSize;
+    }
+
+    /**
+     * Кодирует ключ в {@code keyScratch} и возвращает его хеш, посчитанный по байтам
+     * @param key Ключ
+     * @return Хеш (31 бит)
+     */
+    private int encodeKey(K key) {
+        Objects.requireNonNull(key);
+        keyCodec.write(keyScratch, 0, key);
+        long hash = 0x9E3779B97F4A7C15L ^ keyWidth;
+        int i = 0;
+        for (; i + Long.BYTES <= keyWidth; i += Long.BYTES) {
+            hash = (hash ^ keyScratch.getLong(i)) * 0xFF51AFD7ED558CCDL;
+            hash ^= hash >>> 33;
+        }
+        for (; i < keyWidth; i++) {
+            hash = (hash ^ (keyScratch.get(i) & 0xFF)) * 0x100000001B3L;
+        }
+        return Hashing.mix(hash) & 0x7FFFFFFF;
+    }
+
+    /**
+     * Сравнивает ключ в ячейке с закодированным ключом в {@code keyScratch}
+     * @param offset Начало ключа в буфере
+     * @return Результат сравнения
+     */
+    private boolean keyEquals(int offset) {
+        ByteBuffer buffer = this.buffer;
+        int i = 0;
+        for (; i + Long.BYTES <= keyWidth; i += Long.BYTES) {
+            if (buffer.getLong(offset + i) != keyScratch.getLong(i)) {
+                return false;
+            }
+        }
+        for (; i < keyWidth; i++) {
+            if (buffer.get(offset + i) != keyScratch.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Возвращает позицию закодированного ключа в таблице или -1, если ключа нет
+     * @param hash Хеш ключа
+     * @return Позиция или -1
+     */
+    private int findSlot(int hash) {
+        int tag = hash | OCCUPIED;
+        int index = Hashing.mix(hash) & mask;
+        int current;
+        while ((current = buffer.getInt(slotOffset(index))) != 0) {
+            if (current == tag && keyEquals(slotOffset(index) + TAG_SIZE)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void putValue(K key, V value, boolean swapIfExist) {
+        Objects.requireNonNull(value);
+        int hash = encodeKey(key);
+        int tag = hash | OCCUPIED;
+        int index = Hashing.mix(hash) & mask;
+        int current;
+        while ((current = buffer.getInt(slotOffset(index))) != 0) {
+            if (current == tag && keyEquals(slotOffset(index) + TAG_SIZE)) {
+                if (swapIfExist) {
+                    valueCodec.write(buffer, slotOffset(index) + TAG_SIZE + keyWidth, value);
+                }
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+
+        int offset = slotOffset(index);
+        buffer.put(offset + TAG_SIZE, keyScratch, 0, keyWidth);
+        valueCodec.write(buffer, offset + TAG_SIZE + keyWidth, value);
+        buffer.putInt(offset, tag);
+        buffer.putInt(SIZE_OFFSET, ++countOfElements);
+        if (countOfElements > threshold) {
+            resize(capacity << 1);
+        }
+    }
+
+    /**
+     * Перестраивает таблицу под новый размер. Для файлового словаря старые ячейки копируются во временный буфер,
+     * после чего файл отображается заново с большим размером.
+     * @param newCapacity Новый размер таблицы (степень двойки)
+     */
+    private void resize(int newCapacity) {
+        ByteBuffer old = buffer;
+        int oldCapacity = capacity;
+        if (channel != null) {
+            old = ByteBuffer.allocateDirect(HEADER_SIZE + oldCapacity * slotSize);
+            old.put(0, buffer, 0, old.capacity());
+        }
+
+        setCapacity(newCapacity);
+        buffer = allocate(newCapacity);
+        for (int i = 0; i < oldCapacity; i++) {
+            int from = HEADER_SIZE + i * slotSize;
+            int tag = old.getInt(from);
+            if (tag == 0) {
+                continue;
+            }
+            int index = Hashing.mix(tag & ~OCCUPIED) & mask;
+            while (buffer.getInt(slotOffset(index)) != 0) {
+                index = (index + 1) & mask;
+            }
+            buffer.put(slotOffset(index), old, from, slotSize);
+        }
+        writeHeader();
+    }
+
+    /**
+     * Удаляет элемент на позиции {@code index} и сдвигает назад следующие за ним элементы той же серии.
+     * @param index Позиция удаляемого элемента
+     */
+    private void removeAt(int index) {
+        int gap = index;
+        int next = index;
+        while (true) {
+            next = (next + 1) & mask;
+            int tag = buffer.getInt(slotOffset(next));
+            if (tag == 0) {
+                break;
+            }
+            int ideal = Hashing.mix(tag & ~OCCUPIED) & mask;
+            if (((next - ideal) & mask) >= ((next - gap) & mask)) {
+                buffer.put(slotOffset(gap), buffer, slotOffset(next), slotSize);
+                gap = next;
+            }
+        }
+        buffer.putInt(slotOffset(gap), 0);
+        buffer.putInt(SIZE_OFFSET, --countOfElements);
+    }
+
+    /**
+     * Добавляет ключ-значение в словарь.
+     * Если такой ключ уже существует, то перезаписывает старое значение новым.
+     * @param key Ключ
+     * @param value Значение
+     */
+    public void put(K key, V value) {
+        putValue(key, value, true);
+    }
+
+    /**
+     * Добавляет ключ-значение в словарь.
+     * Если такой ключ уже существует, то старое значение не меняется.
+     * @param key Ключ
+     * @param value Значение
+     */
+    public void putIfNotExist(K key, V value) {
+        putValue(key, value, false);
+    }
+
+    /**
+     * Возвращает значение по ключу. Если ключ отсутствует, будет брошено исключение {@code HashMapException}.
+     * @param key Ключ
+     * @return Значение
+     */
+    public V get(K key) {
+        int index = findSlot(encodeKey(key));
+        if (index < 0) {
+            throw new HashMapException("Key " + key + " does not exist");
+        }
+        return valueCodec.read(buffer, slotOffset(index) + TAG_SIZE + keyWidth);
+    }
+
+    /**
+     * Возвращает значение по ключу или null, если такого ключа не существует
+     * @param key Ключ
+     * @return Значение или null, если ключа не существует
+     */
+    public V getOrNull(K key) {
+        int index = findSlot(encodeKey(key));
+        return index < 0 ? null : valueCodec.read(buffer, slotOffset(index) + TAG_SIZE + keyWidth);
+    }
+
+    /**
+     * Проверят на наличие ключа
+     * @param key Ключ
+     * @return Результат проверки
+     */
+    public boolean isContain(K key) {
+        return findSlot(encodeKey(key)) >= 0;
+    }
+
+    /**
+     * Удаляет ключ-значение по ключу
+     * @param key Ключ
+     * @return true, если элемент был удален, и false, в обратном случае.
+     */
+    public boolean remove(K key) {
+        int index = findSlot(encodeKey(key));
+        if (index < 0) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * Возвращает текущий коэффициент загруженности
+     * @return Текущий коэффициент загруженности
+     */
+    public float getActualLoad() {
+        return ((float) countOfElements) / capacity;
+    }
+
+    /**
+     * Возвращает коэффициент загружености, указанный при создании (или значение по умолчанию)
+     * @return Коэффициент загруженности
+     */
+    public float getInitLoad() {
+        return loadFactor;
+    }
+
+    /**
+     * Получение числа элементов
+     * @return Число элементов
+     */
+    public int getSize() {
+        return countOfElements;
+    }
+
+    /**
+     * Записывает изменения на диск. Для словаря в памяти ничего не делает.
+     */
+    public void flush() {
+        if (buffer instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) buffer).force();
+        }
+    }
+
+    /**
+     * Записывает изменения на диск и закрывает файл. После закрытия словарь использовать нельзя.
+     * @throws IOException Ошибка закрытия файла
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
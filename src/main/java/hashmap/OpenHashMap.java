@@ -0,0 +1,299 @@
+package hashmap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Хеш-таблица с открытой адресацией. Имеет тот же интерфейс, что и {@link HashMap}, но вместо списков
+ * хранит ключи и значения в двух параллельных массивах. Размер таблицы всегда степень двойки, поэтому
+ * индекс вычисляется маской, а коллизии разрешаются линейным пробированием.
+ * При удалении используется обратный сдвиг (backward-shift), поэтому "надгробия" не нужны.
+ * @param <K> Тип данных ключа
+ * @param <V> Тип данных значения
+ */
+public class OpenHashMap<K, V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    // Уровень загружености (строго меньше 1)
+    private float loadFactor = DEFAULT_LOAD_FACTOR;
+    // Количество элементов в таблице
+    private int countOfElements = 0;
+    // Количество элементов, при котором таблица будет увеличена
+    private int threshold;
+    // Маска индекса (размер таблицы - 1)
+    private int mask;
+
+    // Ключи и значения (ячейка свободна, если ключ равен null)
+    private Object[] keys;
+    private Object[] values;
+
+    public OpenHashMap() {
+        init(DEFAULT_LOAD_FACTOR, DEFAULT_CAPACITY);
+    }
+
+    public OpenHashMap(float loadFactor) {
+        init(loadFactor, DEFAULT_CAPACITY);
+    }
+
+    public OpenHashMap(int capacity) {
+        init(DEFAULT_LOAD_FACTOR, capacity);
+    }
+
+    public OpenHashMap(float loadFactor, int capacity) {
+        init(loadFactor, capacity);
+    }
+
+    /**
+     * Инициализация {@code OpenHashMap}
+     * @param loadFactor Допустимый уровень загружености
+     * @param capacity Начальный размер таблицы (округляется вверх до степени двойки)
+     */
+    private void init(float loadFactor, int capacity) {
+        Hashing.checkLoadFactor(loadFactor);
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity should be non-negative: " + capacity);
+        }
+        this.loadFactor = loadFactor;
+        allocate(Hashing.tableSizeFor(capacity));
+    }
+
+    private void allocate(int size) {
+        keys = new Object[size];
+        values = new Object[size];
+        mask = size - 1;
+        threshold = Hashing.threshold(size, loadFactor);
+    }
+
+    /**
+     * Возвращает позицию ключа в таблице или -1, если ключа нет
+     * @param key Ключ
+     * @return Позиция или -1
+     */
+    private int findSlot(Object key) {
+        Object[] keys = this.keys;
+        int index = Hashing.mix(key.hashCode()) & mask;
+        Object current;
+        while ((current = keys[index]) != null) {
+            if (current.equals(key)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Вставляет пару ключ-значение.
+     * Если флаг {@code swapIfExist} установлен в {@code true}, то заменяет старое значение при совпадении ключа, и не заменяет при {@code false}.
+     * @param key Ключ
+     * @param value Значение
+     * @param swapIfExist Сменить, если уже существует
+     */
+    private void putValue(K key, V value, boolean swapIfExist) {
+        Objects.requireNonNull(key);
+        Object[] keys = this.keys;
+        int index = Hashing.mix(key.hashCode()) & mask;
+        Object current;
+        while ((current = keys[index]) != null) {
+            if (current.equals(key)) {
+                if (swapIfExist) {
+                    values[index] = value;
+                }
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = key;
+        values[index] = value;
+        if (++countOfElements > threshold) {
+            resize(keys.length << 1);
+        }
+    }
+
+    /**
+     * Перестраивает таблицу под новый размер
+     * @param newSize Новый размер таблицы (степень двойки)
+     */
+    private void resize(int newSize) {
+        if (newSize > Hashing.MAXIMUM_CAPACITY) {
+            if (countOfElements >= Hashing.MAXIMUM_CAPACITY - 1) {
+                throw new HashMapException("OpenHashMap is full");
+            }
+            newSize = Hashing.MAXIMUM_CAPACITY;
+        }
+
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newSize);
+        for (int i = 0; i < oldKeys.length; i++) {
+            Object key = oldKeys[i];
+            if (key == null) {
+                continue;
+            }
+            int index = Hashing.mix(key.hashCode()) & mask;
+            while (keys[index] != null) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            values[index] = oldValues[i];
+        }
+    }
+
+    /**
+     * Удаляет элемент на позиции {@code index} и сдвигает назад следующие за ним элементы той же серии,
+     * чтобы не оставлять дыр в цепочках пробирования.
+     * @param index Позиция удаляемого элемента
+     */
+    private void removeAt(int index) {
+        Object[] keys = this.keys;
+        Object[] values = this.values;
+        int gap = index;
+        int next = index;
+        while (true) {
+            next = (next + 1) & mask;
+            Object key = keys[next];
+            if (key == null) {
+                break;
+            }
+            int ideal = Hashing.mix(key.hashCode()) & mask;
+            // Элемент можно сдвинуть в дыру, если дыра лежит между его идеальной позицией и текущей
+            if (((next - ideal) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = key;
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        keys[gap] = null;
+        values[gap] = null;
+        countOfElements--;
+    }
+
+    /**
+     * Добавляет ключ-значение в словарь.
+     * Если такой ключ уже существует, то перезаписывает старое значение новым.
+     * @param key Ключ
+     * @param value Значение
+     */
+    public void put(K key, V value) {
+        putValue(key, value, true);
+    }
+
+    /**
+     * Добавляет ключ-значение в словарь.
+     * Если такой ключ уже существует, то старое значение не меняется.
+     * @param key Ключ
+     * @param value Значение
+     */
+    public void putIfNotExist(K key, V value) {
+        putValue(key, value, false);
+    }
+
+    /**
+     * Возвращает значение по ключу. Если ключ отсутствует, будет брошено исключение {@code HashMapException}.
+     * @param key Ключ
+     * @return Значение
+     */
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        int index = findSlot(key);
+        if (index < 0) {
+            throw new HashMapException("Key " + key + " does not exist");
+        }
+        return (V) values[index];
+    }
+
+    /**
+     * Возвращает значение по ключу или null, если такого ключа не существует
+     * @param key Ключ
+     * @return Значение или null, если ключа не существует
+     */
+    @SuppressWarnings("unchecked")
+    public V getOrNull(K key) {
+        int index = findSlot(key);
+        return index < 0 ? null : (V) values[index];
+    }
+
+    /**
+     * Проверят на наличие ключа
+     * @param key Ключ
+     * @return Результат проверки
+     */
+    public boolean isContain(K key) {
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * Удаляет ключ-значение по ключу
+     * @param key Ключ
+     * @return true, если элемент был удален, и false, в обратном случае.
+     */
+    public boolean remove(K key) {
+        int index = findSlot(key);
+        if (index < 0) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * Заставляет перехешировать весь {@code OpenHashMap} в таблицу минимального подходящего размера
+     */
+    public void rehashing() {
+        resize(Hashing.tableSizeFor(countOfElements, loadFactor));
+    }
+
+    /**
+     * Возвращает список всех элементов (в строковом формате) ((функция только для тестов))
+     * @return Список элементов
+     */
+    public List<String> getAllNodes() {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                result.add("[" + keys[i] + " : " + values[i] + "]");
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает текущий коэффициент загруженности
+     * @return Текущий коэффициент загруженности
+     */
+    public float getActualLoad() {
+        return ((float) countOfElements) / keys.length;
+    }
+
+    /**
+     * Возвращает коэффициент загружености, указанный при инициализации (или значение по умолчанию)
+     * @return Коэффициент загруженности
+     */
+    public float getInitLoad() {
+        return loadFactor;
+    }
+
+    /**
+     * Получение числа элементов
+     * @return Число элементов
+     */
+    public int getSize() {
+        return countOfElements;
+    }
+
+    /**
+     * Установить новый коэффициент загружености. Таблица увеличивается сразу, если текущая загрузка выше новой.
+     * @param loadFactor Новый коэффициент загруженности (строго между 0 и 1)
+     */
+    public void setLoadFactor(float loadFactor) {
+        Hashing.checkLoadFactor(loadFactor);
+        this.loadFactor = loadFactor;
+        threshold = Hashing.threshold(keys.length, loadFactor);
+        if (countOfElements > threshold) {
+            rehashing();
+        }
+    }
+}
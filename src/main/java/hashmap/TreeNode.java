@@ -0,0 +1,645 @@
+package hashmap;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+/**
+ * Узел красно-черного дерева, в которое превращается слишком длинная корзина {@link HashMap}.
+ * Узлы упорядочены по хеш-коду, при равных хеш-кодах - по {@link Comparable} (если ключи одного сравнимого класса),
+ * а в остальных случаях - по имени класса и {@link System#identityHashCode}. Поэтому поиск в корзине, куда
+ * злоумышленник положил много ключей с одинаковым хеш-кодом, остается логарифмическим для сравнимых ключей.
+ * <p>
+ * Узлы дерева по-прежнему связаны в список через {@code next} (и {@code prev}), поэтому обход словаря не зависит
+ * от того, дерево в корзине или список. Обычно корень стоит первым в корзине, но удаление через итератор
+ * не переставляет узлы списка, поэтому поиск начинается с {@link #root()} первого узла.
+ */
+class TreeNode<K, V> extends Node<K, V> {
+    // Длина цепочки, при которой корзина превращается в дерево
+    static final int TREEIFY_THRESHOLD = 8;
+
+    TreeNode<K, V> parent;
+    TreeNode<K, V> left;
+    TreeNode<K, V> right;
+    // Предыдущий узел в списке корзины (нужен для удаления)
+    TreeNode<K, V> prev;
+    boolean red;
+
+    TreeNode(int hash, K key, V value, Node<K, V> next) {
+        super(hash, key, value, next);
+    }
+
+    /**
+     * @return Корень дерева, в котором находится узел
+     */
+    TreeNode<K, V> root() {
+        TreeNode<K, V> node = this;
+        while (node.parent != null) {
+            node = node.parent;
+        }
+        return node;
+    }
+
+    /**
+     * @return Количество узлов на пути от корня до этого узла (включая оба)
+     */
+    int depth() {
+        int depth = 1;
+        for (TreeNode<K, V> node = parent; node != null; node = node.parent) {
+            depth++;
+        }
+        return depth;
+    }
+
+    /**
+     * Оценка количества узлов, которые просматривает неуспешный поиск ключа с хеш-кодом {@code hash}:
+     * длина пути от этого узла вниз по хеш-кодам
+     * @param hash Хеш-код ключа
+     * @return Количество узлов
+     */
+    int pathLength(int hash) {
+        int length = 0;
+        TreeNode<K, V> node = this;
+        while (node != null) {
+            length++;
+            int nodeHash = node.getHash();
+            if (nodeHash > hash) {
+                node = node.left;
+            } else if (nodeHash < hash) {
+                node = node.right;
+            } else {
+                node = node.left != null ? node.left : node.right;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Превращает цепочку в корзине {@code table[index]} в дерево. Узлы цепочки заменяются узлами дерева.
+     * @param table Таблица
+     * @param index Индекс корзины
+     */
+    static <K, V> void treeify(Node<K, V>[] table, int index) {
+        TreeNode<K, V> head = null;
+        TreeNode<K, V> tail = null;
+        for (Node<K, V> node = table[index]; node != null; node = node.getNext()) {
+            TreeNode<K, V> treeNode = new TreeNode<>(node.getHash(), node.getKey(), node.getValue(), null);
+            if (tail == null) {
+                head = treeNode;
+            } else {
+                treeNode.prev = tail;
+                tail.setNext(treeNode);
+            }
+            tail = treeNode;
+        }
+        if (head == null) {
+            return;
+        }
+
+        TreeNode<K, V> root = null;
+        for (TreeNode<K, V> x = head; x != null; x = (TreeNode<K, V>) x.getNext()) {
+            if (root == null) {
+                x.red = false;
+                root = x;
+                continue;
+            }
+            K key = x.getKey();
+            int hash = x.getHash();
+            Class<?> keyClass = null;
+            for (TreeNode<K, V> p = root; ; ) {
+                int dir;
+                int ph = p.getHash();
+                K pk = p.getKey();
+                if (ph > hash) {
+                    dir = -1;
+                } else if (ph < hash) {
+                    dir = 1;
+                } else if ((keyClass == null && (keyClass = comparableClassFor(key)) == null) ||
+                        (dir = compareComparables(keyClass, key, pk)) == 0) {
+                    dir = tieBreakOrder(key, pk);
+                }
+
+                TreeNode<K, V> xp = p;
+                if ((p = (dir <= 0) ? p.left : p.right) == null) {
+                    x.parent = xp;
+                    if (dir <= 0) {
+                        xp.left = x;
+                    } else {
+                        xp.right = x;
+                    }
+                    root = balanceInsertion(root, x);
+                    break;
+                }
+            }
+        }
+        table[index] = head;
+        moveRootToFront(table, index, root);
+    }
+
+    /**
+     * Превращает дерево обратно в обычную цепочку
+     * @return Первый узел новой цепочки
+     */
+    Node<K, V> untreeify() {
+        Node<K, V> head = null;
+        Node<K, V> tail = null;
+        for (Node<K, V> node = this; node != null; node = node.getNext()) {
+            Node<K, V> plain = new Node<>(node.getHash(), node.getKey(), node.getValue());
+            if (tail == null) {
+                head = plain;
+            } else {
+                tail.setNext(plain);
+            }
+            tail = plain;
+        }
+        return head;
+    }
+
+    /**
+     * Ставит корень дерева первым в список корзины
+     */
+    static <K, V> void moveRootToFront(Node<K, V>[] table, int index, TreeNode<K, V> root) {
+        Node<K, V> first = table[index];
+        if (root == first) {
+            return;
+        }
+        table[index] = root;
+        TreeNode<K, V> rootPrev = root.prev;
+        Node<K, V> rootNext = root.getNext();
+        if (rootNext != null) {
+            ((TreeNode<K, V>) rootNext).prev = rootPrev;
+        }
+        if (rootPrev != null) {
+            rootPrev.setNext(rootNext);
+        }
+        if (first != null) {
+            ((TreeNode<K, V>) first).prev = root;
+        }
+        root.setNext(first);
+        root.prev = null;
+    }
+
+    /**
+     * Ищет узел с ключом {@code key} в поддереве этого узла
+     * @param hash Хеш-код ключа
+     * @param key Ключ
+     * @param keyClass Класс ключа, если он сравним сам с собой (или {@code null}, если еще не вычислен)
+     * @return Узел или {@code null}
+     */
+    TreeNode<K, V> find(int hash, Object key, Class<?> keyClass) {
+        TreeNode<K, V> p = this;
+        do {
+            int ph = p.getHash();
+            int dir;
+            K pk = p.getKey();
+            TreeNode<K, V> pl = p.left;
+            TreeNode<K, V> pr = p.right;
+            TreeNode<K, V> q;
+            if (ph > hash) {
+                p = pl;
+            } else if (ph < hash) {
+                p = pr;
+            } else if (pk == key || key.equals(pk)) {
+                return p;
+            } else if (pl == null) {
+                p = pr;
+            } else if (pr == null) {
+                p = pl;
+            } else if ((keyClass != null || (keyClass = comparableClassFor(key)) != null) &&
+                    (dir = compareComparables(keyClass, key, pk)) != 0) {
+                p = (dir < 0) ? pl : pr;
+            } else if ((q = pr.find(hash, key, keyClass)) != null) {
+                // Keys are not ordered by compareTo, both subtrees have to be checked
+                return q;
+            } else {
+                p = pl;
+            }
+        } while (p != null);
+        return null;
+    }
+
+    /**
+     * Вставляет пару в дерево, корнем которого является этот узел.
+     * @return Существующий узел с таким ключом или {@code null}, если был добавлен новый узел
+     */
+    TreeNode<K, V> putTreeVal(Node<K, V>[] table, int index, int hash, K key, V value) {
+        Class<?> keyClass = null;
+        boolean searched = false;
+        TreeNode<K, V> root = (parent != null) ? root() : this;
+        for (TreeNode<K, V> p = root; ; ) {
+            int dir;
+            int ph = p.getHash();
+            K pk = p.getKey();
+            if (ph > hash) {
+                dir = -1;
+            } else if (ph < hash) {
+                dir = 1;
+            } else if (pk == key || key.equals(pk)) {
+                return p;
+            } else if ((keyClass == null && (keyClass = comparableClassFor(key)) == null) ||
+                    (dir = compareComparables(keyClass, key, pk)) == 0) {
+                if (!searched) {
+                    searched = true;
+                    TreeNode<K, V> q;
+                    if ((p.left != null && (q = p.left.find(hash, key, keyClass)) != null) ||
+                            (p.right != null && (q = p.right.find(hash, key, keyClass)) != null)) {
+                        return q;
+                    }
+                }
+                dir = tieBreakOrder(key, pk);
+            }
+
+            TreeNode<K, V> xp = p;
+            if ((p = (dir <= 0) ? p.left : p.right) == null) {
+                // New node goes right after its parent in the bucket list
+                Node<K, V> xpNext = xp.getNext();
+                TreeNode<K, V> x = new TreeNode<>(hash, key, value, xpNext);
+                if (dir <= 0) {
+                    xp.left = x;
+                } else {
+                    xp.right = x;
+                }
+                xp.setNext(x);
+                x.parent = xp;
+                x.prev = xp;
+                if (xpNext != null) {
+                    ((TreeNode<K, V>) xpNext).prev = x;
+                }
+                moveRootToFront(table, index, balanceInsertion(root, x));
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Удаляет этот узел из дерева в корзине {@code table[index]}. Если дерево стало слишком маленьким,
+     * корзина превращается обратно в цепочку.
+     * @param movable false, если корзину сейчас обходит итератор: тогда остальные узлы списка не переставляются
+     *                и не пересоздаются, а маленькое дерево остается деревом до следующего перехеширования
+     */
+    void removeTreeNode(Node<K, V>[] table, int index, boolean movable) {
+        TreeNode<K, V> first = (TreeNode<K, V>) table[index];
+        TreeNode<K, V> root = first;
+        TreeNode<K, V> succ = (TreeNode<K, V>) getNext();
+        TreeNode<K, V> pred = prev;
+
+        // Unlink from the bucket list
+        if (pred == null) {
+            table[index] = first = succ;
+        } else {
+            pred.setNext(succ);
+        }
+        if (succ != null) {
+            succ.prev = pred;
+        }
+        if (first == null) {
+            return;
+        }
+        if (root.parent != null) {
+            root = root.root();
+        }
+        TreeNode<K, V> rootLeft;
+        if (movable && (root.right == null || (rootLeft = root.left) == null || rootLeft.left == null)) {
+            // Tree has less than TREEIFY_THRESHOLD / 2 nodes or so, list is cheaper
+            table[index] = first.untreeify();
+            return;
+        }
+
+        // Unlink from the tree. If the node has two children, it swaps places with its successor first
+        TreeNode<K, V> p = this;
+        TreeNode<K, V> pl = left;
+        TreeNode<K, V> pr = right;
+        TreeNode<K, V> replacement;
+        if (pl != null && pr != null) {
+            TreeNode<K, V> s = pr;
+            while (s.left != null) {
+                s = s.left;
+            }
+            boolean color = s.red;
+            s.red = p.red;
+            p.red = color;
+            TreeNode<K, V> sr = s.right;
+            TreeNode<K, V> pp = p.parent;
+            if (s == pr) {
+                p.parent = s;
+                s.right = p;
+            } else {
+                TreeNode<K, V> sp = s.parent;
+                if ((p.parent = sp) != null) {
+                    if (s == sp.left) {
+                        sp.left = p;
+                    } else {
+                        sp.right = p;
+                    }
+                }
+                if ((s.right = pr) != null) {
+                    pr.parent = s;
+                }
+            }
+            p.left = null;
+            if ((p.right = sr) != null) {
+                sr.parent = p;
+            }
+            if ((s.left = pl) != null) {
+                pl.parent = s;
+            }
+            if ((s.parent = pp) == null) {
+                root = s;
+            } else if (p == pp.left) {
+                pp.left = s;
+            } else {
+                pp.right = s;
+            }
+            replacement = (sr != null) ? sr : p;
+        } else if (pl != null) {
+            replacement = pl;
+        } else if (pr != null) {
+            replacement = pr;
+        } else {
+            replacement = p;
+        }
+
+        if (replacement != p) {
+            TreeNode<K, V> pp = replacement.parent = p.parent;
+            if (pp == null) {
+                (root = replacement).red = false;
+            } else if (p == pp.left) {
+                pp.left = replacement;
+            } else {
+                pp.right = replacement;
+            }
+            p.left = p.right = p.parent = null;
+        }
+
+        TreeNode<K, V> newRoot = p.red ? root : balanceDeletion(root, replacement);
+
+        if (replacement == p) {
+            // Leaf node is detached after balancing
+            TreeNode<K, V> pp = p.parent;
+            p.parent = null;
+            if (pp != null) {
+                if (p == pp.left) {
+                    pp.left = null;
+                } else if (p == pp.right) {
+                    pp.right = null;
+                }
+            }
+        }
+        if (movable) {
+            moveRootToFront(table, index, newRoot);
+        }
+    }
+
+    /**
+     * Возвращает класс {@code x}, если он реализует {@code Comparable} сам с собой, иначе {@code null}
+     */
+    static Class<?> comparableClassFor(Object x) {
+        if (!(x instanceof Comparable)) {
+            return null;
+        }
+        Class<?> c = x.getClass();
+        if (c == String.class) {
+            return c;
+        }
+        for (Type type : c.getGenericInterfaces()) {
+            if (type instanceof ParameterizedType) {
+                ParameterizedType parameterized = (ParameterizedType) type;
+                Type[] arguments = parameterized.getActualTypeArguments();
+                if (parameterized.getRawType() == Comparable.class && arguments.length == 1 && arguments[0] == c) {
+                    return c;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Сравнивает ключи, если {@code other} того же сравнимого класса {@code keyClass}, иначе возвращает 0
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static int compareComparables(Class<?> keyClass, Object key, Object other) {
+        return (other == null || other.getClass() != keyClass) ? 0 : ((Comparable) key).compareTo(other);
+    }
+
+    /**
+     * Порядок для ключей, которые невозможно сравнить. Нужен только для согласованной вставки,
+     * поиск таких ключей все равно проверяет оба поддерева.
+     */
+    static int tieBreakOrder(Object a, Object b) {
+        int order = 0;
+        if (a != null && b != null) {
+            order = a.getClass().getName().compareTo(b.getClass().getName());
+        }
+        if (order == 0) {
+            order = (System.identityHashCode(a) <= System.identityHashCode(b)) ? -1 : 1;
+        }
+        return order;
+    }
+
+    static <K, V> TreeNode<K, V> rotateLeft(TreeNode<K, V> root, TreeNode<K, V> p) {
+        TreeNode<K, V> r = p.right;
+        if (r == null) {
+            return root;
+        }
+        TreeNode<K, V> rl = p.right = r.left;
+        if (rl != null) {
+            rl.parent = p;
+        }
+        TreeNode<K, V> pp = r.parent = p.parent;
+        if (pp == null) {
+            (root = r).red = false;
+        } else if (pp.left == p) {
+            pp.left = r;
+        } else {
+            pp.right = r;
+        }
+        r.left = p;
+        p.parent = r;
+        return root;
+    }
+
+    static <K, V> TreeNode<K, V> rotateRight(TreeNode<K, V> root, TreeNode<K, V> p) {
+        TreeNode<K, V> l = p.left;
+        if (l == null) {
+            return root;
+        }
+        TreeNode<K, V> lr = p.left = l.right;
+        if (lr != null) {
+            lr.parent = p;
+        }
+        TreeNode<K, V> pp = l.parent = p.parent;
+        if (pp == null) {
+            (root = l).red = false;
+        } else if (pp.right == p) {
+            pp.right = l;
+        } else {
+            pp.left = l;
+        }
+        l.right = p;
+        p.parent = l;
+        return root;
+    }
+
+    /**
+     * Восстанавливает свойства красно-черного дерева после вставки узла {@code x}
+     * @return Новый корень
+     */
+    static <K, V> TreeNode<K, V> balanceInsertion(TreeNode<K, V> root, TreeNode<K, V> x) {
+        x.red = true;
+        while (true) {
+            TreeNode<K, V> xp = x.parent;
+            if (xp == null) {
+                x.red = false;
+                return x;
+            }
+            TreeNode<K, V> xpp = xp.parent;
+            if (!xp.red || xpp == null) {
+                return root;
+            }
+            TreeNode<K, V> xppl = xpp.left;
+            if (xp == xppl) {
+                TreeNode<K, V> uncle = xpp.right;
+                if (uncle != null && uncle.red) {
+                    uncle.red = false;
+                    xp.red = false;
+                    xpp.red = true;
+                    x = xpp;
+                } else {
+                    if (x == xp.right) {
+                        root = rotateLeft(root, x = xp);
+                        xp = x.parent;
+                        xpp = (xp == null) ? null : xp.parent;
+                    }
+                    if (xp != null) {
+                        xp.red = false;
+                        if (xpp != null) {
+                            xpp.red = true;
+                            root = rotateRight(root, xpp);
+                        }
+                    }
+                }
+            } else {
+                if (xppl != null && xppl.red) {
+                    xppl.red = false;
+                    xp.red = false;
+                    xpp.red = true;
+                    x = xpp;
+                } else {
+                    if (x == xp.left) {
+                        root = rotateRight(root, x = xp);
+                        xp = x.parent;
+                        xpp = (xp == null) ? null : xp.parent;
+                    }
+                    if (xp != null) {
+                        xp.red = false;
+                        if (xpp != null) {
+                            xpp.red = true;
+                            root = rotateLeft(root, xpp);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Восстанавливает свойства красно-черного дерева после удаления черного узла, место которого занял {@code x}
+     * @return Новый корень
+     */
+    static <K, V> TreeNode<K, V> balanceDeletion(TreeNode<K, V> root, TreeNode<K, V> x) {
+        while (true) {
+            if (x == null || x == root) {
+                return root;
+            }
+            TreeNode<K, V> xp = x.parent;
+            if (xp == null) {
+                x.red = false;
+                return x;
+            }
+            if (x.red) {
+                x.red = false;
+                return root;
+            }
+            TreeNode<K, V> xpl = xp.left;
+            if (xpl == x) {
+                TreeNode<K, V> xpr = xp.right;
+                if (xpr != null && xpr.red) {
+                    xpr.red = false;
+                    xp.red = true;
+                    root = rotateLeft(root, xp);
+                    xp = x.parent;
+                    xpr = (xp == null) ? null : xp.right;
+                }
+                if (xpr == null) {
+                    x = xp;
+                } else {
+                    TreeNode<K, V> sl = xpr.left;
+                    TreeNode<K, V> sr = xpr.right;
+                    if ((sr == null || !sr.red) && (sl == null || !sl.red)) {
+                        xpr.red = true;
+                        x = xp;
+                    } else {
+                        if (sr == null || !sr.red) {
+                            if (sl != null) {
+                                sl.red = false;
+                            }
+                            xpr.red = true;
+                            root = rotateRight(root, xpr);
+                            xp = x.parent;
+                            xpr = (xp == null) ? null : xp.right;
+                        }
+                        if (xpr != null) {
+                            xpr.red = (xp != null) && xp.red;
+                            if ((sr = xpr.right) != null) {
+                                sr.red = false;
+                            }
+                        }
+                        if (xp != null) {
+                            xp.red = false;
+                            root = rotateLeft(root, xp);
+                        }
+                        x = root;
+                    }
+                }
+            } else {
+                if (xpl != null && xpl.red) {
+                    xpl.red = false;
+                    xp.red = true;
+                    root = rotateRight(root, xp);
+                    xp = x.parent;
+                    xpl = (xp == null) ? null : xp.left;
+                }
+                if (xpl == null) {
+                    x = xp;
+                } else {
+                    TreeNode<K, V> sl = xpl.left;
+                    TreeNode<K, V> sr = xpl.right;
+                    if ((sl == null || !sl.red) && (sr == null || !sr.red)) {
+                        xpl.red = true;
+                        x = xp;
+                    } else {
+                        if (sl == null || !sl.red) {
+                            if (sr != null) {
+                                sr.red = false;
+                            }
+                            xpl.red = true;
+                            root = rotateLeft(root, xpl);
+                            xp = x.parent;
+                            xpl = (xp == null) ? null : xp.left;
+                        }
+                        if (xpl != null) {
+                            xpl.red = (xp != null) && xp.red;
+                            if ((sl = xpl.left) != null) {
+                                sl.red = false;
+                            }
+                        }
+                        if (xp != null) {
+                            xp.red = false;
+                            root = rotateRight(root, xp);
+                        }
+                        x = root;
+                    }
+                }
+            }
+        }
+    }
+}
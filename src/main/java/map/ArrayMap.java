@@ -0,0 +1,229 @@
+package map;
+
+import java.util.Objects;
+
+/**
+ * Реализация ассоциативного массива на красно-черном дереве, узлы которого хранятся в массивах
+ * ({@link ArrayRBTree}), а не в отдельных объектах. Интерфейс совпадает с {@link Map}; памяти на элемент
+ * требуется примерно втрое меньше, а соседние узлы чаще оказываются рядом в памяти.
+ * @param <K> Тип данных ключа
+ * @param <V> Тип данных значения
+ */
+public class ArrayMap<K extends Comparable<K>, V> {
+    ArrayRBTree<K, V> tree;
+
+    /**
+     * Конструктор по умолчанию
+     */
+    public ArrayMap() {
+        tree = new ArrayRBTree<>();
+    }
+
+    /**
+     * Конструктор с начальной емкостью массивов
+     * @param capacity Ожидаемое количество пар
+     */
+    public ArrayMap(int capacity) {
+        tree = new ArrayRBTree<>(capacity);
+    }
+
+    /**
+     * Конструктор копирования. Массивы дерева копируются целиком.
+     * @param other Другой {@code map}
+     */
+    public ArrayMap(ArrayMap<K, V> other) {
+        tree = new ArrayRBTree<>(other.tree);
+    }
+
+    /**
+     * Помещает новую пару ключ-значение в {@code map}. Если ключ уже существует, значение не меняется.
+     * @param key Ключ
+     * @param value Значение
+     */
+    public void put(K key, V value) {
+        Objects.requireNonNull(key);
+        tree.insert(key, value);
+    }
+
+    /**
+     * Удаляет все элементы из {@code map}
+     */
+    public void clear() {
+        tree.clear();
+    }
+
+    /**
+     * Проверка {@code map} на пустоту
+     * @return Результат проверки на пустоту
+     */
+    public boolean isEmpty() {
+        return tree.size() == 0;
+    }
+
+    /**
+     * Количество пар в {@code map}
+     * @return Количество пар
+     */
+    public int size() {
+        return tree.size();
+    }
+
+    /**
+     * Достает из {@code map} значение соответсвующее ключу
+     * @param key Ключ
+     * @return Значение по ключу или null если такого ключа не существует
+     */
+    public V get(K key) {
+        int node = tree.find(Objects.requireNonNull(key));
+        return node != ArrayRBTree.NIL ? tree.value(node) : null;
+    }
+
+    /**
+     * Удаляет пару по ключу
+     * @param key Ключ
+     * @return Значение удаленной пары или null, если такого ключа не существовало
+     */
+    public V remove(K key) {
+        int node = tree.find(Objects.requireNonNull(key));
+        if (node == ArrayRBTree.NIL) {
+            return null;
+        }
+        V value = tree.value(node);
+        tree.delete(node);
+        return value;
+    }
+
+    /**
+     * Удаляет и возвращает пару с наименьшим ключом
+     * @return Пара или {@code null}, если {@code map} пустой
+     */
+    public Pair<K, V> pollFirst() {
+        return poll(tree.first());
+    }
+
+    /**
+     * Удаляет и возвращает пару с наибольшим ключом
+     * @return Пара или {@code null}, если {@code map} пустой
+     */
+    public Pair<K, V> pollLast() {
+        return poll(tree.last());
+    }
+
+    private Pair<K, V> poll(int node) {
+        if (node == ArrayRBTree.NIL) {
+            return null;
+        }
+        Pair<K, V> pair = new Pair<>(tree.key(node), tree.value(node));
+        tree.delete(node);
+        return pair;
+    }
+
+    /**
+     * @return Наименьший ключ или {@code null}, если {@code map} пустой
+     */
+    public K firstKey() {
+        return keyOf(tree.first());
+    }
+
+    /**
+     * @return Наибольший ключ или {@code null}, если {@code map} пустой
+     */
+    public K lastKey() {
+        return keyOf(tree.last());
+    }
+
+    /**
+     * Возвращает наибольший ключ, меньший или равный {@code key}
+     * @param key Ключ
+     * @return Ключ или {@code null}, если такого ключа нет
+     */
+    public K floorKey(K key) {
+        return keyOf(tree.lower(Objects.requireNonNull(key), true));
+    }
+
+    /**
+     * Возвращает наименьший ключ, больший или равный {@code key}
+     * @param key Ключ
+     * @return Ключ или {@code null}, если такого ключа нет
+     */
+    public K ceilingKey(K key) {
+        return keyOf(tree.higher(Objects.requireNonNull(key), true));
+    }
+
+    /**
+     * Возвращает наибольший ключ, строго меньший {@code key}
+     * @param key Ключ
+     * @return Ключ или {@code null}, если такого ключа нет
+     */
+    public K lowerKey(K key) {
+        return keyOf(tree.lower(Objects.requireNonNull(key), false));
+    }
+
+    /**
+     * Возвращает наименьший ключ, строго больший {@code key}
+     * @param key Ключ
+     * @return Ключ или {@code null}, если такого ключа нет
+     */
+    public K higherKey(K key) {
+        return keyOf(tree.higher(Objects.requireNonNull(key), false));
+    }
+
+    /**
+     * Возвращает пары с ключами из диапазона [{@code from}, {@code to}) в порядке возрастания ключей.
+     * Диапазон не копируется: каждый вызов {@code iterator()} обходит дерево заново, начиная с {@code from},
+     * а объект {@link Pair} создается на каждый выданный элемент.
+     * Изменение {@code map} во время обхода не допускается.
+     * @param from Нижняя граница (включительно)
+     * @param to Верхняя граница (не включительно)
+     * @return Пары диапазона
+     */
+    public Iterable<Pair<K, V>> subMap(K from, K to) {
+        Objects.requireNonNull(from);
+        Objects.requireNonNull(to);
+        return () -> tree.iterator(from, to);
+    }
+
+    private K keyOf(int node) {
+        return node != ArrayRBTree.NIL ? tree.key(node) : null;
+    }
+
+    /**
+     * Сравнение {@code map}: совпадают все пары в порядке возрастания ключей
+     * @param o Другой {@code map}
+     * @return Результат сравнения
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null) return false;
+        if (getClass() != o.getClass()) return false;
+
+        ArrayRBTree<?, ?> other = ((ArrayMap<?, ?>) o).tree;
+        if (tree.size() != other.size()) {
+            return false;
+        }
+        ArrayRBTree<K, V>.Cursor cursor = tree.cursor(null, null);
+        ArrayRBTree<?, ?>.Cursor otherCursor = other.cursor(null, null);
+        while (cursor.hasNext()) {
+            int node = cursor.next();
+            int otherNode = otherCursor.next();
+            if (!Objects.equals(tree.key(node), other.key(otherNode)) ||
+                    !Objects.equals(tree.value(node), other.value(otherNode))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 0;
+        ArrayRBTree<K, V>.Cursor cursor = tree.cursor(null, null);
+        while (cursor.hasNext()) {
+            int node = cursor.next();
+            result = 31 * result + Objects.hashCode(tree.key(node));
+            result = 31 * result + Objects.hashCode(tree.value(node));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,288 @@
+package map;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Красно-черное дерево без объектов-узлов на основе {@link IndexRBTree}:
+ * ключи и значения хранятся в отдельных массивах, индексы которых совпадают с индексами узлов.
+ * <p>
+ * Накладные расходы на элемент: три {@code int}, один бит цвета и две ссылки (около 20 байт)
+ * вместо объектов {@link Node} и {@link Pair} (около 56 байт).
+ * @param <K> Тип данных ключа
+ * @param <V> Тип данных значения
+ */
+class ArrayRBTree<K extends Comparable<K>, V> extends IndexRBTree {
+    // Максимальная высота красно-черного дерева из не более чем 2^31 узлов
+    private static final int MAX_HEIGHT = 64;
+
+    private Object[] keys;
+    private Object[] values;
+
+    ArrayRBTree() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    ArrayRBTree(int capacity) {
+        super(capacity);
+        keys = new Object[left.length];
+        values = new Object[left.length];
+    }
+
+    /**
+     * Конструктор копирования: массивы копируются целиком
+     * @param other Другое дерево
+     */
+    ArrayRBTree(ArrayRBTree<K, V> other) {
+        super(other);
+        keys = other.keys.clone();
+        values = other.values.clone();
+    }
+
+    int size() {
+        return size;
+    }
+
+    @Override
+    void clear() {
+        Arrays.fill(keys, 0, allocated, null);
+        Arrays.fill(values, 0, allocated, null);
+        super.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    K key(int node) {
+        return (K) keys[node];
+    }
+
+    @SuppressWarnings("unchecked")
+    V value(int node) {
+        return (V) values[node];
+    }
+
+    @Override
+    void growData(int capacity) {
+        keys = Arrays.copyOf(keys, capacity);
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    void swapData(int node, int other) {
+        Object temp = keys[node];
+        keys[node] = keys[other];
+        keys[other] = temp;
+        temp = values[node];
+        values[node] = values[other];
+        values[other] = temp;
+    }
+
+    @Override
+    void releaseData(int node) {
+        keys[node] = null;
+        values[node] = null;
+    }
+
+    /**
+     * Ищет узел по ключу
+     * @param key Ключ
+     * @return Индекс узла или {@link #NIL}
+     */
+    int find(K key) {
+        int node = root;
+        while (node != NIL) {
+            int cmp = key.compareTo(key(node));
+            if (cmp == 0) {
+                return node;
+            }
+            node = cmp < 0 ? left[node] : right[node];
+        }
+        return NIL;
+    }
+
+    /**
+     * Вставляет пару. Если ключ уже есть, дерево не меняется.
+     * @param key Ключ
+     * @param value Значение
+     * @return true, если пара была добавлена
+     */
+    boolean insert(K key, V value) {
+        int cur = root;
+        int curParent = NIL;
+        int cmp = 0;
+        while (cur != NIL) {
+            cmp = key.compareTo(key(cur));
+            if (cmp == 0) {
+                return false; // Duplicates not inserting
+            }
+            curParent = cur;
+            cur = cmp < 0 ? left[cur] : right[cur];
+        }
+
+        int node = allocate();
+        keys[node] = key;
+        values[node] = value;
+        link(node, curParent, cmp < 0);
+        return true;
+    }
+
+    /**
+     * Ищет узел с наибольшим ключом, меньшим {@code key} (или равным, если {@code inclusive})
+     * @return Индекс узла или {@link #NIL}
+     */
+    int lower(K key, boolean inclusive) {
+        int node = root;
+        int result = NIL;
+        while (node != NIL) {
+            int cmp = key.compareTo(key(node));
+            if (cmp == 0 && inclusive) {
+                return node;
+            }
+            if (cmp > 0) {
+                result = node;
+                node = right[node];
+            } else {
+                node = left[node];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Ищет узел с наименьшим ключом, большим {@code key} (или равным, если {@code inclusive})
+     * @return Индекс узла или {@link #NIL}
+     */
+    int higher(K key, boolean inclusive) {
+        int node = root;
+        int result = NIL;
+        while (node != NIL) {
+            int cmp = key.compareTo(key(node));
+            if (cmp == 0 && inclusive) {
+                return node;
+            }
+            if (cmp < 0) {
+                result = node;
+                node = left[node];
+            } else {
+                node = right[node];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Итератор по индексам узлов с ключами из диапазона [{@code from}, {@code to}).
+     * Стек путей хранится в {@code int[]}, поэтому обход не создает объектов.
+     * @param from Нижняя граница (включительно) или {@code null}
+     * @param to Верхняя граница (не включительно) или {@code null}
+     * @return Курсор
+     */
+    Cursor cursor(K from, K to) {
+        return new Cursor(from, to);
+    }
+
+    /**
+     * Курсор симметричного обхода диапазона на явном стеке
+     */
+    final class Cursor {
+        private final int[] stack = new int[MAX_HEIGHT];
+        private int depth = 0;
+        private final K to;
+
+        private Cursor(K from, K to) {
+            this.to = to;
+            int node = root;
+            while (node != NIL) {
+                if (from == null || key(node).compareTo(from) >= 0) {
+                    stack[depth++] = node;
+                    node = left[node];
+                } else {
+                    node = right[node];
+                }
+            }
+        }
+
+        boolean hasNext() {
+            return depth > 0 && (to == null || key(stack[depth - 1]).compareTo(to) < 0);
+        }
+
+        /**
+         * @return Индекс следующего узла
+         */
+        int next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int node = stack[--depth];
+            for (int cur = right[node]; cur != NIL; cur = left[cur]) {
+                stack[depth++] = cur;
+            }
+            return node;
+        }
+    }
+
+    /**
+     * Итератор по парам диапазона, для совместимости с {@link Map#subMap}
+     */
+    Iterator<Pair<K, V>> iterator(K from, K to) {
+        Cursor cursor = cursor(from, to);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return cursor.hasNext();
+            }
+
+            @Override
+            public Pair<K, V> next() {
+                int node = cursor.next();
+                return new Pair<>(key(node), value(node));
+            }
+        };
+    }
+
+    /**
+     * Проверяет свойства красно-черного дерева (порядок, ссылки на родителей, цвета, черная высота, размер)
+     * @throws IllegalStateException Если свойство нарушено
+     */
+    void checkInvariants() {
+        if (isRed(root)) {
+            throw new IllegalStateException("Root is red");
+        }
+        if (root != NIL && parent[root] != NIL) {
+            throw new IllegalStateException("Root has parent");
+        }
+        int[] count = new int[1];
+        checkSubtree(root, null, null, count);
+        if (count[0] != size) {
+            throw new IllegalStateException("Size is " + size + ", but tree has " + count[0] + " nodes");
+        }
+    }
+
+    private int checkSubtree(int node, K lowerBound, K upperBound, int[] count) {
+        if (node == NIL) {
+            return 1;
+        }
+        count[0]++;
+        if ((lowerBound != null && key(node).compareTo(lowerBound) <= 0) ||
+                (upperBound != null && key(node).compareTo(upperBound) >= 0)) {
+            throw new IllegalStateException("Order is broken at " + key(node));
+        }
+        for (int child : new int[]{left[node], right[node]}) {
+            if (child == NIL) {
+                continue;
+            }
+            if (parent[child] != node) {
+                throw new IllegalStateException("Wrong parent of " + key(child));
+            }
+            if (isRed(node) && isRed(child)) {
+                throw new IllegalStateException("Red node " + key(node) + " has red child " + key(child));
+            }
+        }
+        int leftHeight = checkSubtree(left[node], lowerBound, key(node), count);
+        int rightHeight = checkSubtree(right[node], key(node), upperBound, count);
+        if (leftHeight != rightHeight) {
+            throw new IllegalStateException("Black height differs at " + key(node));
+        }
+        return leftHeight + (isRed(node) ? 0 : 1);
+    }
+}
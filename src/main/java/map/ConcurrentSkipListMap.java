@@ -0,0 +1,425 @@
+package map;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicMarkableReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Потокобезопасный упорядоченный ассоциативный массив без блокировок на основе списка с пропусками
+ * (lock-free skip list по Херлихи и Шавиту). Интерфейс повторяет {@link Map}.
+ * <p>
+ * Удаление узла - логическое: сначала помечаются его ссылки {@code next} на всех уровнях (сверху вниз),
+ * и узел считается удаленным, как только помечена ссылка нижнего уровня. Физически помеченные узлы
+ * вырезаются из списков при последующих поисках. Поиск ({@link #get}) не меняет список и не ждет других потоков.
+ * <p>
+ * Навигация и обход диапазона слабо согласованы: они видят состояние на какой-то момент во время вызова
+ * и не бросают {@link java.util.ConcurrentModificationException}.
+ * @param <K> Тип данных ключа
+ * @param <V> Тип данных значения
+ */
+public class ConcurrentSkipListMap<K extends Comparable<K>, V> {
+    // Количество уровней (уровни 0..MAX_LEVEL-1)
+    private static final int MAX_LEVEL = 32;
+
+    // Граничные узлы: head меньше любого ключа, tail больше любого ключа
+    private final SkipNode<K, V> head = new SkipNode<>(null, null, MAX_LEVEL - 1);
+    private final SkipNode<K, V> tail = new SkipNode<>(null, null, MAX_LEVEL - 1);
+    private final LongAdder size = new LongAdder();
+    // Наибольший уровень среди когда-либо вставленных узлов; поиск начинается с него, а не с MAX_LEVEL
+    private final AtomicInteger maxLevel = new AtomicInteger();
+
+    public ConcurrentSkipListMap() {
+        for (int level = 0; level < MAX_LEVEL; level++) {
+            head.next[level] = new AtomicMarkableReference<>(tail, false);
+        }
+    }
+
+    /**
+     * Узел списка. Присутствует на уровнях 0..{@code topLevel}.
+     */
+    private static final class SkipNode<K, V> {
+        private final K key;
+        private final V value;
+        private final int topLevel;
+        private final AtomicMarkableReference<SkipNode<K, V>>[] next;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        SkipNode(K key, V value, int topLevel) {
+            this.key = key;
+            this.value = value;
+            this.topLevel = topLevel;
+            this.next = (AtomicMarkableReference<SkipNode<K, V>>[]) new AtomicMarkableReference[topLevel + 1];
+            for (int level = 0; level <= topLevel; level++) {
+                next[level] = new AtomicMarkableReference<>(null, false);
+            }
+        }
+
+        /**
+         * @return true, если узел логически удален
+         */
+        boolean isDeleted() {
+            return next[0].isMarked();
+        }
+    }
+
+    /**
+     * @return Случайный верхний уровень нового узла: уровень {@code l} и выше выпадает с вероятностью 2^-l
+     */
+    private static int randomLevel() {
+        return Integer.numberOfTrailingZeros(ThreadLocalRandom.current().nextInt() | (1 << (MAX_LEVEL - 1)));
+    }
+
+    /**
+     * @return true, если ключ узла {@code node} строго меньше {@code key}
+     */
+    private boolean less(SkipNode<K, V> node, K key) {
+        return node != tail && node.key.compareTo(key) < 0;
+    }
+
+    /**
+     * Заполняет {@code preds} и {@code succs} соседями ключа на всех уровнях, попутно вырезая удаленные узлы.
+     * @param key Ключ
+     * @param preds Последние узлы с ключом меньше {@code key}
+     * @param succs Первые узлы с ключом не меньше {@code key}
+     * @return true, если узел с ключом {@code key} есть в списке
+     */
+    private boolean find(K key, SkipNode<K, V>[] preds, SkipNode<K, V>[] succs) {
+        boolean[] marked = {false};
+        retry:
+        while (true) {
+            SkipNode<K, V> pred = head;
+            SkipNode<K, V> curr = null;
+            for (int level = maxLevel.get(); level >= 0; level--) {
+                curr = pred.next[level].getReference();
+                while (true) {
+                    if (curr == tail) {
+                        break;
+                    }
+                    SkipNode<K, V> succ = curr.next[level].get(marked);
+                    while (marked[0]) {
+                        // Unlink the deleted node; if pred has changed, start from the head
+                        if (!pred.next[level].compareAndSet(curr, succ, false, false)) {
+                            continue retry;
+                        }
+                        curr = succ;
+                        if (curr == tail) {
+                            break;
+                        }
+                        succ = curr.next[level].get(marked);
+                    }
+                    if (less(curr, key)) {
+                        pred = curr;
+                        curr = succ;
+                    } else {
+                        break;
+                    }
+                }
+                preds[level] = pred;
+                succs[level] = curr;
+            }
+            return curr != tail && curr.key.compareTo(key) == 0;
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <K, V> SkipNode<K, V>[] newNodeArray() {
+        return (SkipNode<K, V>[]) new SkipNode[MAX_LEVEL];
+    }
+
+    /**
+     * Помещает новую пару ключ-значение. Если ключ уже существует, значение не меняется (как в {@link Map#put}).
+     * @param key Ключ
+     * @param value Значение
+     * @return true, если пара была добавлена
+     */
+    public boolean put(K key, V value) {
+        Objects.requireNonNull(key);
+        int topLevel = randomLevel();
+        // Raise the search level before find, so preds and succs are filled up to topLevel
+        if (topLevel > maxLevel.get()) {
+            maxLevel.accumulateAndGet(topLevel, Math::max);
+        }
+        SkipNode<K, V>[] preds = newNodeArray();
+        SkipNode<K, V>[] succs = newNodeArray();
+        while (true) {
+            if (find(key, preds, succs)) {
+                return false;
+            }
+            SkipNode<K, V> node = new SkipNode<>(key, value, topLevel);
+            for (int level = 0; level <= topLevel; level++) {
+                node.next[level].set(succs[level], false);
+            }
+            // The node becomes visible once it is linked on the bottom level
+            if (!preds[0].next[0].compareAndSet(succs[0], node, false, false)) {
+                continue;
+            }
+            size.increment();
+            for (int level = 1; level <= topLevel; level++) {
+                while (true) {
+                    SkipNode<K, V> succ = succs[level];
+                    SkipNode<K, V> current = node.next[level].getReference();
+                    if (current != succ && !node.next[level].compareAndSet(current, succ, false, false)) {
+                        return true; // The node is being deleted, no need to link upper levels
+                    }
+                    if (node.next[level].isMarked()) {
+                        return true;
+                    }
+                    if (preds[level].next[level].compareAndSet(succ, node, false, false)) {
+                        break;
+                    }
+                    find(key, preds, succs);
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Достает значение соответсвующее ключу. Не блокируется и не меняет список.
+     * @param key Ключ
+     * @return Значение по ключу или null если такого ключа не существует
+     */
+    public V get(K key) {
+        Objects.requireNonNull(key);
+        SkipNode<K, V> node = ceilingNode(key, true);
+        return (node != tail && node.key.compareTo(key) == 0) ? node.value : null;
+    }
+
+    /**
+     * Удаляет пару по ключу
+     * @param key Ключ
+     * @return Значение удаленной пары или null, если такого ключа не существовало
+     */
+    public V remove(K key) {
+        Objects.requireNonNull(key);
+        SkipNode<K, V>[] preds = newNodeArray();
+        SkipNode<K, V>[] succs = newNodeArray();
+        boolean[] marked = {false};
+        if (!find(key, preds, succs)) {
+            return null;
+        }
+        SkipNode<K, V> victim = succs[0];
+        // Mark upper levels first, so the node disappears from the top down
+        for (int level = victim.topLevel; level >= 1; level--) {
+            SkipNode<K, V> succ = victim.next[level].get(marked);
+            while (!marked[0]) {
+                victim.next[level].compareAndSet(succ, succ, false, true);
+                succ = victim.next[level].get(marked);
+            }
+        }
+        SkipNode<K, V> succ = victim.next[0].get(marked);
+        while (true) {
+            boolean markedByMe = victim.next[0].compareAndSet(succ, succ, false, true);
+            succ = victim.next[0].get(marked);
+            if (markedByMe) {
+                size.decrement();
+                find(key, preds, succs); // Physically unlink
+                return victim.value;
+            }
+            if (marked[0]) {
+                return null; // Another thread removed it first
+            }
+        }
+    }
+
+    /**
+     * Проверка на пустоту
+     * @return Результат проверки на пустоту
+     */
+    public boolean isEmpty() {
+        return firstKey() == null;
+    }
+
+    /**
+     * Количество пар. При одновременных изменениях значение приблизительное.
+     * @return Количество пар
+     */
+    public int size() {
+        return (int) Math.max(0, size.sum());
+    }
+
+    /**
+     * Спускается по уровням до последнего узла с ключом меньше {@code key} (или не больше, если {@code inclusive}).
+     * Удаленные узлы перешагиваются, но не вырезаются.
+     * @return Узел или {@code head}
+     */
+    private SkipNode<K, V> lowerNode(K key, boolean inclusive) {
+        SkipNode<K, V> pred = head;
+        for (int level = maxLevel.get(); level >= 0; level--) {
+            SkipNode<K, V> curr = pred.next[level].getReference();
+            while (curr != tail) {
+                int cmp = curr.key.compareTo(key);
+                if (cmp > 0 || (cmp == 0 && !inclusive)) {
+                    break;
+                }
+                pred = curr;
+                curr = curr.next[level].getReference();
+            }
+        }
+        return pred;
+    }
+
+    /**
+     * Возвращает первый неудаленный узел, начиная с {@code node}
+     */
+    private SkipNode<K, V> firstLive(SkipNode<K, V> node) {
+        while (node != tail && node.isDeleted()) {
+            node = node.next[0].getReference();
+        }
+        return node;
+    }
+
+    /**
+     * Возвращает первый неудаленный узел с ключом не меньше {@code key} (или строго больше, если не {@code inclusive}).
+     * После спуска идет по нижнему уровню, так как перед найденным узлом могли успеть вставить меньшие ключи.
+     * Если спуск закончился на удаленном узле, его {@code next} на нижнем уровне мог устареть
+     * и пропустить вставленные позже ключи, поэтому такой узел вырезается и спуск повторяется.
+     * @return Узел или {@code tail}
+     */
+    private SkipNode<K, V> ceilingNode(K key, boolean inclusive) {
+        SkipNode<K, V> pred = lowerNode(key, !inclusive);
+        while (pred != head && pred.isDeleted()) {
+            unlink(pred);
+            pred = lowerNode(key, !inclusive);
+        }
+        SkipNode<K, V> node = pred.next[0].getReference();
+        while (node != tail) {
+            int cmp = node.key.compareTo(key);
+            if (!node.isDeleted() && (cmp > 0 || (cmp == 0 && inclusive))) {
+                break;
+            }
+            node = node.next[0].getReference();
+        }
+        return node;
+    }
+
+    /**
+     * Вырезает удаленный узел со всех уровней. Нужен перед повторным спуском через {@link #lowerNode}:
+     * узел может остаться связанным на верхнем уровне, если {@code put} связал этот уровень уже после
+     * вырезающего {@code find} удаляющего потока, и тогда спуск находил бы его снова.
+     */
+    private void unlink(SkipNode<K, V> deleted) {
+        find(deleted.key, newNodeArray(), newNodeArray());
+    }
+
+    private K floorOrLower(K key, boolean inclusive) {
+        Objects.requireNonNull(key);
+        while (true) {
+            SkipNode<K, V> node = lowerNode(key, inclusive);
+            if (node == head) {
+                return null;
+            }
+            if (!node.isDeleted()) {
+                return node.key;
+            }
+            // Found node was deleted concurrently, unlink it and search again
+            unlink(node);
+        }
+    }
+
+    private K ceilingOrHigher(K key, boolean inclusive) {
+        Objects.requireNonNull(key);
+        SkipNode<K, V> node = ceilingNode(key, inclusive);
+        return node != tail ? node.key : null;
+    }
+
+    /**
+     * @return Наименьший ключ или {@code null}, если пар нет
+     */
+    public K firstKey() {
+        SkipNode<K, V> node = firstLive(head.next[0].getReference());
+        return node != tail ? node.key : null;
+    }
+
+    /**
+     * @return Наибольший ключ или {@code null}, если пар нет
+     */
+    public K lastKey() {
+        while (true) {
+            SkipNode<K, V> pred = head;
+            for (int level = maxLevel.get(); level >= 0; level--) {
+                for (SkipNode<K, V> curr = pred.next[level].getReference(); curr != tail;
+                     curr = curr.next[level].getReference()) {
+                    pred = curr;
+                }
+            }
+            if (pred == head) {
+                return null;
+            }
+            if (!pred.isDeleted()) {
+                return pred.key;
+            }
+            unlink(pred);
+        }
+    }
+
+    /**
+     * Возвращает наибольший ключ, меньший или равный {@code key}
+     * @param key Ключ
+     * @return Ключ или {@code null}, если такого ключа нет
+     */
+    public K floorKey(K key) {
+        return floorOrLower(key, true);
+    }
+
+    /**
+     * Возвращает наибольший ключ, строго меньший {@code key}
+     * @param key Ключ
+     * @return Ключ или {@code null}, если такого ключа нет
+     */
+    public K lowerKey(K key) {
+        return floorOrLower(key, false);
+    }
+
+    /**
+     * Возвращает наименьший ключ, больший или равный {@code key}
+     * @param key Ключ
+     * @return Ключ или {@code null}, если такого ключа нет
+     */
+    public K ceilingKey(K key) {
+        return ceilingOrHigher(key, true);
+    }
+
+    /**
+     * Возвращает наименьший ключ, строго больший {@code key}
+     * @param key Ключ
+     * @return Ключ или {@code null}, если такого ключа нет
+     */
+    public K higherKey(K key) {
+        return ceilingOrHigher(key, false);
+    }
+
+    /**
+     * Возвращает пары с ключами из диапазона [{@code from}, {@code to}) в порядке возрастания ключей.
+     * Обход идет по нижнему уровню списка и пропускает удаленные узлы.
+     * @param from Нижняя граница (включительно)
+     * @param to Верхняя граница (не включительно)
+     * @return Пары диапазона
+     */
+    public Iterable<Pair<K, V>> subMap(K from, K to) {
+        Objects.requireNonNull(from);
+        Objects.requireNonNull(to);
+        return () -> new Iterator<>() {
+            private SkipNode<K, V> next = ceilingNode(from, true);
+
+            @Override
+            public boolean hasNext() {
+                return next != tail && next.key.compareTo(to) < 0;
+            }
+
+            @Override
+            public Pair<K, V> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                SkipNode<K, V> node = next;
+                next = firstLive(node.next[0].getReference());
+                return new Pair<>(node.key, node.value);
+            }
+        };
+    }
+}
@@ -0,0 +1,377 @@
+package map;
+
+import java.util.Arrays;
+
+/**
+ * Структура красно-черного дерева без объектов-узлов. Узел - это индекс в параллельных массивах:
+ * ссылки на потомков и родителя хранятся в {@code int[]}, цвет - в битовом множестве.
+ * Освободившиеся индексы переиспользуются через список свободных узлов, который проходит по массиву {@code left}.
+ * <p>
+ * Класс отвечает только за форму дерева: выделение индексов, балансировку и удаление. Ключи и значения
+ * хранят наследники в своих массивах, они же ищут место вставки, сравнивая ключи.
+ */
+abstract class IndexRBTree {
+    // Отсутствующий узел
+    static final int NIL = -1;
+    static final int DEFAULT_CAPACITY = 16;
+
+    int[] left;
+    int[] right;
+    int[] parent;
+    // Бит i установлен, если узел i красный
+    private long[] red;
+
+    int root = NIL;
+    int size = 0;
+    // Количество когда-либо выделенных индексов
+    int allocated = 0;
+    // Первый свободный индекс (следующий хранится в left)
+    private int freeHead = NIL;
+
+    /**
+     * @param capacity Начальная емкость массивов
+     */
+    IndexRBTree(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity should be non-negative: " + capacity);
+        }
+        capacity = Math.max(capacity, 1);
+        left = new int[capacity];
+        right = new int[capacity];
+        parent = new int[capacity];
+        red = new long[(capacity + 63) >>> 6];
+    }
+
+    /**
+     * Конструктор копирования: массивы копируются целиком
+     * @param other Другое дерево
+     */
+    IndexRBTree(IndexRBTree other) {
+        left = other.left.clone();
+        right = other.right.clone();
+        parent = other.parent.clone();
+        red = other.red.clone();
+        root = other.root;
+        size = other.size;
+        allocated = other.allocated;
+        freeHead = other.freeHead;
+    }
+
+    /**
+     * Расширяет массивы ключей и значений
+     * @param capacity Новая емкость
+     */
+    abstract void growData(int capacity);
+
+    /**
+     * Обменивает ключи и значения двух узлов
+     */
+    abstract void swapData(int node, int other);
+
+    /**
+     * Забывает ссылки освобождаемого узла, чтобы не удерживать объекты от сборки мусора
+     * @param node Индекс узла
+     */
+    abstract void releaseData(int node);
+
+    /**
+     * Делает дерево пустым. Наследники сначала очищают свои массивы в диапазоне [0, {@link #allocated}).
+     */
+    void clear() {
+        root = NIL;
+        size = 0;
+        allocated = 0;
+        freeHead = NIL;
+    }
+
+    boolean isRed(int node) {
+        return node != NIL && (red[node >>> 6] & (1L << node)) != 0;
+    }
+
+    private void setRed(int node, boolean isRed) {
+        if (isRed) {
+            red[node >>> 6] |= 1L << node;
+        } else {
+            red[node >>> 6] &= ~(1L << node);
+        }
+    }
+
+    /**
+     * Выделяет индекс под новый красный узел без связей. Данные узла заполняет наследник.
+     * @return Индекс узла
+     */
+    int allocate() {
+        int node;
+        if (freeHead != NIL) {
+            node = freeHead;
+            freeHead = left[node];
+        } else {
+            if (allocated == left.length) {
+                grow();
+            }
+            node = allocated++;
+        }
+        left[node] = NIL;
+        right[node] = NIL;
+        parent[node] = NIL;
+        setRed(node, true);
+        return node;
+    }
+
+    private void release(int node) {
+        releaseData(node);
+        left[node] = freeHead;
+        freeHead = node;
+    }
+
+    private void grow() {
+        int capacity = left.length;
+        int newCapacity = (int) Math.min((long) capacity + (capacity >> 1) + 1, Integer.MAX_VALUE - 8);
+        if (newCapacity <= capacity) {
+            throw new IllegalStateException("Tree is too large");
+        }
+        left = Arrays.copyOf(left, newCapacity);
+        right = Arrays.copyOf(right, newCapacity);
+        parent = Arrays.copyOf(parent, newCapacity);
+        red = Arrays.copyOf(red, (newCapacity + 63) >>> 6);
+        growData(newCapacity);
+    }
+
+    /**
+     * Подвешивает выделенный узел к месту, найденному спуском по дереву, и восстанавливает баланс
+     * @param node Индекс нового узла
+     * @param nodeParent Последний узел спуска или {@link #NIL}, если дерево пусто
+     * @param toLeft true, если узел становится левым потомком
+     */
+    void link(int node, int nodeParent, boolean toLeft) {
+        parent[node] = nodeParent;
+        if (nodeParent == NIL) {
+            root = node;
+        } else if (toLeft) {
+            left[nodeParent] = node;
+        } else {
+            right[nodeParent] = node;
+        }
+        size++;
+        insertBalance(node);
+    }
+
+    private void insertBalance(int node) {
+        while (isRed(parent[node])) {
+            int p = parent[node];
+            int grandparent = parent[p];
+            if (p == left[grandparent]) {
+                int uncle = right[grandparent];
+                if (isRed(uncle)) {
+                    setRed(p, false);
+                    setRed(uncle, false);
+                    setRed(grandparent, true);
+                    node = grandparent;
+                } else {
+                    if (node == right[p]) {
+                        node = p;
+                        rotateLeft(node);
+                        p = parent[node];
+                    }
+                    setRed(p, false);
+                    setRed(grandparent, true);
+                    rotateRight(grandparent);
+                }
+            } else {
+                int uncle = left[grandparent];
+                if (isRed(uncle)) {
+                    setRed(p, false);
+                    setRed(uncle, false);
+                    setRed(grandparent, true);
+                    node = grandparent;
+                } else {
+                    if (node == left[p]) {
+                        node = p;
+                        rotateRight(node);
+                        p = parent[node];
+                    }
+                    setRed(p, false);
+                    setRed(grandparent, true);
+                    rotateLeft(grandparent);
+                }
+            }
+        }
+        setRed(root, false);
+    }
+
+    /**
+     * Удаляет узел. Индекс узла освобождается и может быть переиспользован.
+     * @param node Индекс узла
+     */
+    void delete(int node) {
+        if (left[node] != NIL && right[node] != NIL) {
+            // Two children: swap data with the in-order successor and delete the successor instead
+            int successor = right[node];
+            while (left[successor] != NIL) {
+                successor = left[successor];
+            }
+            swapData(node, successor);
+            node = successor;
+        }
+
+        int child = left[node] != NIL ? left[node] : right[node];
+        int nodeParent = parent[node];
+        if (child != NIL) {
+            parent[child] = nodeParent;
+        }
+        if (nodeParent == NIL) {
+            root = child;
+        } else if (left[nodeParent] == node) {
+            left[nodeParent] = child;
+        } else {
+            right[nodeParent] = child;
+        }
+        size--;
+        if (!isRed(node)) {
+            deleteBalance(child, nodeParent);
+        }
+        release(node);
+    }
+
+    private void deleteBalance(int node, int nodeParent) {
+        while (node != root && !isRed(node)) {
+            if (node == left[nodeParent]) {
+                int sibling = right[nodeParent];
+                if (isRed(sibling)) {
+                    setRed(sibling, false);
+                    setRed(nodeParent, true);
+                    rotateLeft(nodeParent);
+                    sibling = right[nodeParent];
+                }
+                if (!isRed(left[sibling]) && !isRed(right[sibling])) {
+                    setRed(sibling, true);
+                    node = nodeParent;
+                    nodeParent = parent[node];
+                } else {
+                    if (!isRed(right[sibling])) {
+                        setRed(left[sibling], false);
+                        setRed(sibling, true);
+                        rotateRight(sibling);
+                        sibling = right[nodeParent];
+                    }
+                    setRed(sibling, isRed(nodeParent));
+                    setRed(nodeParent, false);
+                    setRed(right[sibling], false);
+                    rotateLeft(nodeParent);
+                    node = root;
+                }
+            } else {
+                int sibling = left[nodeParent];
+                if (isRed(sibling)) {
+                    setRed(sibling, false);
+                    setRed(nodeParent, true);
+                    rotateRight(nodeParent);
+                    sibling = left[nodeParent];
+                }
+                if (!isRed(left[sibling]) && !isRed(right[sibling])) {
+                    setRed(sibling, true);
+                    node = nodeParent;
+                    nodeParent = parent[node];
+                } else {
+                    if (!isRed(left[sibling])) {
+                        setRed(right[sibling], false);
+                        setRed(sibling, true);
+                        rotateLeft(sibling);
+                        sibling = left[nodeParent];
+                    }
+                    setRed(sibling, isRed(nodeParent));
+                    setRed(nodeParent, false);
+                    setRed(left[sibling], false);
+                    rotateRight(nodeParent);
+                    node = root;
+                }
+            }
+        }
+        if (node != NIL) {
+            setRed(node, false);
+        }
+    }
+
+    private void rotateLeft(int node) {
+        int child = right[node];
+        right[node] = left[child];
+        if (left[child] != NIL) {
+            parent[left[child]] = node;
+        }
+        replaceChild(parent[node], node, child);
+        left[child] = node;
+        parent[node] = child;
+    }
+
+    private void rotateRight(int node) {
+        int child = left[node];
+        left[node] = right[child];
+        if (right[child] != NIL) {
+            parent[right[child]] = node;
+        }
+        replaceChild(parent[node], node, child);
+        right[child] = node;
+        parent[node] = child;
+    }
+
+    private void replaceChild(int nodeParent, int oldChild, int newChild) {
+        parent[newChild] = nodeParent;
+        if (nodeParent == NIL) {
+            root = newChild;
+        } else if (left[nodeParent] == oldChild) {
+            left[nodeParent] = newChild;
+        } else {
+            right[nodeParent] = newChild;
+        }
+    }
+
+    /**
+     * @return Индекс узла с наименьшим ключом или {@link #NIL}
+     */
+    int first() {
+        int node = root;
+        if (node == NIL) {
+            return NIL;
+        }
+        while (left[node] != NIL) {
+            node = left[node];
+        }
+        return node;
+    }
+
+    /**
+     * @return Индекс узла с наибольшим ключом или {@link #NIL}
+     */
+    int last() {
+        int node = root;
+        if (node == NIL) {
+            return NIL;
+        }
+        while (right[node] != NIL) {
+            node = right[node];
+        }
+        return node;
+    }
+
+    /**
+     * Следующий узел симметричного обхода, по ссылкам на родителей
+     * @param node Индекс узла
+     * @return Индекс следующего узла или {@link #NIL}
+     */
+    int successor(int node) {
+        if (right[node] != NIL) {
+            node = right[node];
+            while (left[node] != NIL) {
+                node = left[node];
+            }
+            return node;
+        }
+        int child = node;
+        node = parent[node];
+        while (node != NIL && right[node] == child) {
+            child = node;
+            node = parent[node];
+        }
+        return node;
+    }
+}
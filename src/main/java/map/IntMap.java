@@ -0,0 +1,195 @@
+package map;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Ассоциативный массив на красно-черном дереве с ключами {@code int} без упаковки в объекты.
+ * Структура дерева общая с {@link ArrayRBTree} ({@link IndexRBTree}), но ключи хранятся
+ * в {@code int[]} и сравниваются напрямую, без вызова {@link Comparable#compareTo}.
+ * Как и в {@link Map}, {@link #put} не меняет значение существующего ключа.
+ * @param <V> Тип данных значения
+ */
+public class IntMap<V> extends IndexRBTree {
+    /**
+     * Функция, принимающая пару ключ-значение без упаковки
+     */
+    @FunctionalInterface
+    public interface IntObjectConsumer<V> {
+        void accept(int key, V value);
+    }
+
+    private int[] keys;
+    private Object[] values;
+
+    /**
+     * Конструктор по умолчанию
+     */
+    public IntMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Конструктор с начальной емкостью массивов
+     * @param capacity Ожидаемое количество пар
+     */
+    public IntMap(int capacity) {
+        super(capacity);
+        keys = new int[left.length];
+        values = new Object[left.length];
+    }
+
+    /**
+     * Помещает новую пару ключ-значение. Если ключ уже существует, значение не меняется.
+     * @param key Ключ
+     * @param value Значение
+     */
+    public void put(int key, V value) {
+        int cur = root;
+        int curParent = NIL;
+        boolean toLeft = false;
+        while (cur != NIL) {
+            int curKey = keys[cur];
+            if (key == curKey) {
+                return; // Duplicates not inserting
+            }
+            curParent = cur;
+            toLeft = key < curKey;
+            cur = toLeft ? left[cur] : right[cur];
+        }
+
+        int node = allocate();
+        keys[node] = key;
+        values[node] = value;
+        link(node, curParent, toLeft);
+    }
+
+    /**
+     * Достает значение соответсвующее ключу
+     * @param key Ключ
+     * @return Значение по ключу или null если такого ключа не существует
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int node = find(key);
+        return node != NIL ? (V) values[node] : null;
+    }
+
+    /**
+     * Проверяет наличие ключа
+     * @param key Ключ
+     * @return true, если ключ есть
+     */
+    public boolean containsKey(int key) {
+        return find(key) != NIL;
+    }
+
+    /**
+     * Удаляет пару по ключу
+     * @param key Ключ
+     * @return Значение удаленной пары или null, если такого ключа не существовало
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int node = find(key);
+        if (node == NIL) {
+            return null;
+        }
+        V value = (V) values[node];
+        delete(node);
+        return value;
+    }
+
+    /**
+     * Удаляет все элементы
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(values, 0, allocated, null);
+        super.clear();
+    }
+
+    /**
+     * Проверка на пустоту
+     * @return Результат проверки на пустоту
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Количество пар
+     * @return Количество пар
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Наименьший ключ
+     * @throws NoSuchElementException Если пар нет
+     */
+    public int firstKey() {
+        int node = first();
+        if (node == NIL) {
+            throw new NoSuchElementException();
+        }
+        return keys[node];
+    }
+
+    /**
+     * @return Наибольший ключ
+     * @throws NoSuchElementException Если пар нет
+     */
+    public int lastKey() {
+        int node = last();
+        if (node == NIL) {
+            throw new NoSuchElementException();
+        }
+        return keys[node];
+    }
+
+    /**
+     * Перебирает пары в порядке возрастания ключей. Изменение во время перебора не допускается.
+     * @param action Действие над парой
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(IntObjectConsumer<? super V> action) {
+        for (int node = first(); node != NIL; node = successor(node)) {
+            action.accept(keys[node], (V) values[node]);
+        }
+    }
+
+    private int find(int key) {
+        int node = root;
+        while (node != NIL) {
+            int nodeKey = keys[node];
+            if (key == nodeKey) {
+                return node;
+            }
+            node = key < nodeKey ? left[node] : right[node];
+        }
+        return NIL;
+    }
+
+    @Override
+    void growData(int capacity) {
+        keys = Arrays.copyOf(keys, capacity);
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    void swapData(int node, int other) {
+        int tempKey = keys[node];
+        keys[node] = keys[other];
+        keys[other] = tempKey;
+        Object temp = values[node];
+        values[node] = values[other];
+        values[other] = temp;
+    }
+
+    @Override
+    void releaseData(int node) {
+        values[node] = null;
+    }
+}
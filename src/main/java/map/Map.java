@@ -1,5 +1,8 @@
 package map;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -18,13 +21,63 @@ public class Map<K extends Comparable<K>, V> {
     }
 
     /**
-     * Конструктор копирования. Используется рекурентная реализация
+     * Конструктор копирования за O(1). Копия и исходный {@code map} разделяют узлы дерева, а последующие
+     * изменения любого из них копируют только затронутый путь от корня (O(log n) узлов). Копию можно снимать
+     * из другого потока, пока {@code other} изменяется.
      * @param other Другой {@code map}
      */
     public Map(Map<K, V> other) {
         tree = new RBTree<>(other.tree);
     }
 
+    /**
+     * Создает {@code map} из пар, упорядоченных по возрастанию ключей, за линейное время
+     * @param sorted Пары в строго возрастающем порядке ключей
+     * @return Новый {@code map}
+     * @throws IllegalArgumentException Если ключи не упорядочены или повторяются
+     */
+    public static <K extends Comparable<K>, V> Map<K, V> fromSorted(Iterator<Pair<K, V>> sorted) {
+        Map<K, V> map = new Map<>();
+        map.putAllSorted(sorted);
+        return map;
+    }
+
+    /**
+     * Добавляет пары, упорядоченные по возрастанию ключей. Существующие пары сливаются с новыми за один проход,
+     * и дерево перестраивается целиком за O(n + m). Как и в {@link #put}, значения существующих ключей не меняются.
+     * @param sorted Пары в строго возрастающем порядке ключей
+     * @throws IllegalArgumentException Если ключи не упорядочены или повторяются
+     */
+    public void putAllSorted(Iterator<Pair<K, V>> sorted) {
+        if (!sorted.hasNext()) {
+            return;
+        }
+        List<Pair<K, V>> merged = new ArrayList<>(tree.size());
+        Iterator<Pair<K, V>> existing = tree.iterator(null, null);
+        Pair<K, V> current = existing.hasNext() ? existing.next() : null;
+        Pair<K, V> previous = null;
+        while (sorted.hasNext()) {
+            Pair<K, V> pair = sorted.next();
+            Objects.requireNonNull(pair.first);
+            if (previous != null && previous.first.compareTo(pair.first) >= 0) {
+                throw new IllegalArgumentException("Keys are not strictly ascending: " + previous.first + ", " + pair.first);
+            }
+            previous = pair;
+            while (current != null && current.first.compareTo(pair.first) < 0) {
+                merged.add(current);
+                current = existing.hasNext() ? existing.next() : null;
+            }
+            if (current == null || current.first.compareTo(pair.first) > 0) {
+                merged.add(new Pair<>(pair.first, pair.second));
+            }
+        }
+        while (current != null) {
+            merged.add(current);
+            current = existing.hasNext() ? existing.next() : null;
+        }
+        tree.buildFromSorted(merged);
+    }
+
     /**
      * Помещает новую пару ключ-значение в {@code map}
      * @param key Ключ
@@ -64,6 +117,142 @@ public class Map<K extends Comparable<K>, V> {
          }
     }
 
+    /**
+     * Удаляет пару по ключу
+     * @param key Ключ
+     * @return Значение удаленной пары или null, если такого ключа не существовало
+     */
+    public V remove(K key) {
+        Pair<K, V> removed = tree.delete(probe(key));
+        return removed != null ? removed.second : null;
+    }
+
+    /**
+     * Удаляет и возвращает пару с наименьшим ключом
+     * @return Пара или {@code null}, если {@code map} пустой
+     */
+    public Pair<K, V> pollFirst() {
+        return tree.pollFirst();
+    }
+
+    /**
+     * Удаляет и возвращает пару с наибольшим ключом
+     * @return Пара или {@code null}, если {@code map} пустой
+     */
+    public Pair<K, V> pollLast() {
+        return tree.pollLast();
+    }
+
+    /**
+     * Количество пар в {@code map}
+     * @return Количество пар
+     */
+    public int size() {
+        return tree.size();
+    }
+
+    /**
+     * @return Наименьший ключ или {@code null}, если {@code map} пустой
+     */
+    public K firstKey() {
+        return keyOf(tree.first());
+    }
+
+    /**
+     * @return Наибольший ключ или {@code null}, если {@code map} пустой
+     */
+    public K lastKey() {
+        return keyOf(tree.last());
+    }
+
+    /**
+     * Возвращает наибольший ключ, меньший или равный {@code key}
+     * @param key Ключ
+     * @return Ключ или {@code null}, если такого ключа нет
+     */
+    public K floorKey(K key) {
+        return keyOf(tree.floor(probe(key)));
+    }
+
+    /**
+     * Возвращает наименьший ключ, больший или равный {@code key}
+     * @param key Ключ
+     * @return Ключ или {@code null}, если такого ключа нет
+     */
+    public K ceilingKey(K key) {
+        return keyOf(tree.ceiling(probe(key)));
+    }
+
+    /**
+     * Возвращает наибольший ключ, строго меньший {@code key}
+     * @param key Ключ
+     * @return Ключ или {@code null}, если такого ключа нет
+     */
+    public K lowerKey(K key) {
+        return keyOf(tree.lower(probe(key)));
+    }
+
+    /**
+     * Возвращает наименьший ключ, строго больший {@code key}
+     * @param key Ключ
+     * @return Ключ или {@code null}, если такого ключа нет
+     */
+    public K higherKey(K key) {
+        return keyOf(tree.higher(probe(key)));
+    }
+
+    /**
+     * Возвращает пары с ключами из диапазона [{@code from}, {@code to}) в порядке возрастания ключей.
+     * Пары не копируются: каждый вызов {@code iterator()} обходит дерево заново, начиная с {@code from}.
+     * Изменение {@code map} во время обхода не допускается.
+     * @param from Нижняя граница (включительно)
+     * @param to Верхняя граница (не включительно)
+     * @return Пары диапазона
+     */
+    public Iterable<Pair<K, V>> subMap(K from, K to) {
+        Pair<K, V> fromPair = probe(from);
+        Pair<K, V> toPair = probe(to);
+        return () -> tree.iterator(fromPair, toPair);
+    }
+
+    /**
+     * Возвращает количество ключей, строго меньших {@code key}, за O(log n)
+     * @param key Ключ (может отсутствовать в {@code map})
+     * @return Ранг ключа
+     */
+    public int rank(K key) {
+        return tree.rank(probe(key));
+    }
+
+    /**
+     * Возвращает пару с номером {@code index} в порядке возрастания ключей за O(log n).
+     * Например, ключ 99-го перцентиля - {@code select((int) (size() * 0.99))}.
+     * @param index Номер, начиная с 0
+     * @return Пара
+     * @throws IndexOutOfBoundsException Если номер не меньше количества пар или отрицательный
+     */
+    public Pair<K, V> select(int index) {
+        return tree.select(index);
+    }
+
+    /**
+     * Возвращает количество ключей из диапазона [{@code from}, {@code to}) за O(log n)
+     * @param from Нижняя граница (включительно)
+     * @param to Верхняя граница (не включительно)
+     * @return Количество ключей
+     */
+    public int countRange(K from, K to) {
+        return tree.countRange(probe(from), probe(to));
+    }
+
+    private static <K extends Comparable<K>, V> Pair<K, V> probe(K key) {
+        return new Pair<>(Objects.requireNonNull(key), null);
+    }
+
+    private static <K extends Comparable<K>, V> K keyOf(Pair<K, V> pair) {
+        return pair != null ? pair.first : null;
+    }
+
     /**
      * Сравнение {@code map}. Используется рекуррентный подход сравнения деревьев.
      * @param o Другой {@code map}
@@ -21,22 +21,30 @@ class Node <T extends Comparable<T>>{
     Node<T> parent = null;
     Node<T> leftChild = null;
     Node<T> rightChild = null;
+    // Количество узлов в поддереве с корнем в этом узле
+    int size = 1;
 
-    public Node(T data, Color color) {
+    // Владелец узла (см. RBTree): дерево меняет узел на месте, только если владеет им
+    Object owner;
+
+    public Node(T data, Color color, Object owner) {
         this.data = data;
         this.color = color;
+        this.owner = owner;
     }
 
-
-    public Node (Node<T> other, Color color)  {
+    /**
+     * Поверхностная копия узла для нового владельца: потомки общие с исходным узлом, родитель не заполняется
+     * @param other Копируемый узел
+     * @param owner Новый владелец
+     */
+    public Node(Node<T> other, Object owner) {
         this.data = other.data;
-        this.color = color;
-        if (other.leftChild != null) {
-            this.leftChild = new Node<>(other.leftChild, other.leftChild.color);
-        }
-        if (other.rightChild != null) {
-            this.rightChild = new Node<>(other.rightChild, other.rightChild.color);
-        }
+        this.color = other.color;
+        this.leftChild = other.leftChild;
+        this.rightChild = other.rightChild;
+        this.size = other.size;
+        this.owner = owner;
     }
 
     /**
@@ -7,7 +7,7 @@ import java.util.Objects;
  * @param <F> Тип первого элемента
  * @param <S> Тип второго элемента
  */
-class Pair <F extends Comparable<F>, S> implements Comparable<Pair<F, S>>{
+public class Pair <F extends Comparable<F>, S> implements Comparable<Pair<F, S>>{
     F first;
     S second;
 
@@ -21,6 +21,20 @@ class Pair <F extends Comparable<F>, S> implements Comparable<Pair<F, S>>{
         this.second = second;
     }
 
+    /**
+     * @return Первый элемент (ключ)
+     */
+    public F getFirst() {
+        return first;
+    }
+
+    /**
+     * @return Второй элемент (значение)
+     */
+    public S getSecond() {
+        return second;
+    }
+
     /**
      * Сравнение пар. Пара считается одинаковой, если совпадает первый элемент
      * @param other Сравниваемая пара
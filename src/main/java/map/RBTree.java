@@ -4,11 +4,25 @@ import java.util.*;
 
 /**
  * Реализация красно-черного дерева.
+ * <p>
+ * Копирование дерева выполняется за O(1): копия разделяет все узлы с исходным деревом. Каждый узел помечен
+ * владельцем, и дерево меняет на месте только свои узлы. Перед изменением чужого узла дерево копирует его
+ * (и весь путь от корня до него), поэтому изменение затрагивает O(log n) узлов, а другие копии его не видят.
+ * Ссылка на родителя достоверна только у собственных узлов: у общих узлов она не читается и не меняется.
+ * <p>
+ * Изменения дерева и его копирование выполняются под монитором дерева. Поэтому копию можно снимать из любого
+ * потока, пока другой поток изменяет исходное дерево: копия видит состояние между операциями, а писатель
+ * после копирования гарантированно видит новую метку владельца и больше не меняет общие узлы на месте.
+ * Чтение исходного дерева одновременно с его изменением по-прежнему не поддерживается.
  * @param <T> Тип данных, хранимых в дереве
  */
 class RBTree<T extends Comparable<T>> {
     private Node<T> root = null;
     private Comparator<T> comparator = Comparable::compareTo;
+    // Количество значений в дереве
+    private int size = 0;
+    // Метка владельца: узлы с этой меткой принадлежат только этому дереву
+    private Object owner = new Object();
 
     public RBTree() {
         // Default constructor.
@@ -17,21 +31,17 @@ class RBTree<T extends Comparable<T>> {
     }
 
     /**
-     * Конструктор копирования
+     * Конструктор копирования за O(1). Узлы становятся общими для обоих деревьев, поэтому исходное дерево
+     * тоже получает новую метку владельца. Метка меняется под монитором исходного дерева, под которым идут
+     * и все его изменения, поэтому копию можно снимать из другого потока во время записи в исходное дерево.
      * @param other Другое дерево
      */
     public RBTree(RBTree<T> other) {
-        comparator = other.comparator;
-        if (other.root == null) {
-            root = null;
-        } else {
-            root = new Node<>(other.root.data, Node.Color.BLACK);
-            if (other.root.leftChild != null) {
-                root.leftChild = new Node<>(other.root.leftChild, other.root.leftChild.color);
-            }
-            if (other.root.rightChild != null) {
-                root.rightChild = new Node<>(other.root.rightChild, other.root.rightChild.color);
-            }
+        synchronized (other) {
+            comparator = other.comparator;
+            size = other.size;
+            root = other.root;
+            other.owner = new Object();
         }
     }
 
@@ -46,8 +56,17 @@ class RBTree<T extends Comparable<T>> {
     /**
      * Удаление всех элементов дерева
      */
-    public void clear() {
+    public synchronized void clear() {
         root = null;
+        size = 0;
+    }
+
+    /**
+     * Возвращает количество значений в дереве
+     * @return Количество значений
+     */
+    public int size() {
+        return size;
     }
 
     /**
@@ -62,66 +81,581 @@ class RBTree<T extends Comparable<T>> {
      * Вставляет новую пару в дерево
      * @param value Новая пара
      */
-    public void insert(T value) {
-        insert(new Node<>(value, Node.Color.RED));
+    public synchronized void insert(T value) {
+        insert(new Node<>(value, Node.Color.RED, owner));
     }
 
     private void insert(Node<T> insertionNode) {
         if (root == null) { // Tree is empty, new key-value pair is new root
-            root = new Node<>(insertionNode.data, Node.Color.BLACK);
+            root = new Node<>(insertionNode.data, Node.Color.BLACK, owner);
+            size++;
+            return;
         }
 
-        Node<T> cur = root;
+        Node<T> cur = ownedRoot();
         while (true) {
-            if (comparator.compare(insertionNode.data, cur.data) < 0) { // Checking left child
-                if (cur.leftChild == null) {
-                    insertionNode.parent = cur;
-                    cur.leftChild = insertionNode; // Left child is NULL, we found place for new key-value pair
-                    rbBalance(cur.leftChild); // Balancing tree with Red-Black rules
-                    break;
+            int cmp = comparator.compare(insertionNode.data, cur.data); // One three-way compare per level
+            if (cmp == 0) {
+                return; // Duplicates not inserting
+            }
+            Node<T> next = cmp < 0 ? cur.leftChild : cur.rightChild;
+            if (next == null) {
+                insertionNode.parent = cur; // Child is NULL, we found place for new key-value pair
+                if (cmp < 0) {
+                    cur.leftChild = insertionNode;
                 } else {
-                    cur = cur.leftChild; // New parent is left child
-                    continue;
+                    cur.rightChild = insertionNode;
+                }
+                size++;
+                for (Node<T> node = cur; node != null; node = node.parent) {
+                    node.size++; // The whole path is owned, so parent links are valid
                 }
+                rbBalance(insertionNode); // Balancing tree with Red-Black rules
+                return;
             }
+            cur = cmp < 0 ? leftOf(cur) : rightOf(cur); // New parent is child
+        }
+    }
+
+    /**
+     * Проверяет наличие значения в дереве. Возвращает {@code null} если такого значения не существует и само значение из дерева, если оно было найдено.
+     * @param value Искомое значение
+     * @return Значение, если значение есть в дереве, {@code null} - в обратном случае.
+     */
+    public T contain(T value) {
+        Node<T> cur = root;
+
+        while (cur != null) {
+            // Only the comparator decides equality: equals of stored values may disagree with it
+            int cmp = comparator.compare(value, cur.data);
+            if (cmp == 0) {
+                return cur.data;
+            }
+            cur = cmp < 0 ? cur.leftChild : cur.rightChild;
+        }
+
+        return null;
+    }
+
+    /**
+     * Заменяет содержимое дерева значениями из {@code sorted} за линейное время без поворотов.
+     * Дерево строится идеально сбалансированным: все уровни, кроме последнего, заполнены и черные,
+     * а узлы неполного последнего уровня красные.
+     * @param sorted Значения в строго возрастающем порядке
+     * @throws IllegalArgumentException Если значения не упорядочены или повторяются
+     */
+    public synchronized void buildFromSorted(List<T> sorted) {
+        for (int i = 1; i < sorted.size(); i++) {
+            if (comparator.compare(sorted.get(i - 1), sorted.get(i)) >= 0) {
+                throw new IllegalArgumentException("Values are not strictly ascending at position " + i + ": " +
+                        sorted.get(i - 1) + ", " + sorted.get(i));
+            }
+        }
+        root = buildSubtree(sorted, 0, sorted.size() - 1, 0, redLevel(sorted.size()));
+        size = sorted.size();
+    }
+
+    private Node<T> buildSubtree(List<T> sorted, int from, int to, int level, int redLevel) {
+        if (from > to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        Node<T> node = new Node<>(sorted.get(middle), level == redLevel ? Node.Color.RED : Node.Color.BLACK, owner);
+        node.size = to - from + 1;
+        node.leftChild = buildSubtree(sorted, from, middle - 1, level + 1, redLevel);
+        node.rightChild = buildSubtree(sorted, middle + 1, to, level + 1, redLevel);
+        if (node.leftChild != null) {
+            node.leftChild.parent = node;
+        }
+        if (node.rightChild != null) {
+            node.rightChild.parent = node;
+        }
+        return node;
+    }
+
+    /**
+     * Возвращает глубину последнего уровня, если он заполнен не полностью (узлы на ней будут красными).
+     * Для полного дерева возвращает глубину, на которой узлов нет.
+     * @param size Количество узлов
+     * @return Глубина красного уровня
+     */
+    private static int redLevel(int size) {
+        int level = 0;
+        for (int m = size - 1; m >= 0; m = m / 2 - 1) {
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * Удаляет значение из дерева
+     * @param value Удаляемое значение
+     * @return Значение, которое хранилось в дереве, или {@code null}, если такого значения не было
+     */
+    public synchronized T delete(T value) {
+        Node<T> node = ownedRoot();
+        while (node != null) {
+            int cmp = comparator.compare(value, node.data);
+            if (cmp == 0) {
+                break;
+            }
+            node = cmp < 0 ? leftOf(node) : rightOf(node);
+        }
+        if (node == null) {
+            return null;
+        }
+
+        T removed = node.data;
+        if (node.leftChild != null && node.rightChild != null) {
+            // Two children: take data of the in-order successor and delete the successor instead
+            Node<T> successor = rightOf(node);
+            while (successor.leftChild != null) {
+                successor = leftOf(successor);
+            }
+            node.data = successor.data;
+            node = successor;
+        }
 
-            if (comparator.compare(insertionNode.data, cur.data) > 0) { // Checking right child
-                if (cur.rightChild == null) {
-                    insertionNode.parent = cur;
-                    cur.rightChild = insertionNode; // Right child is NULL, we found place for new key-value pair
-                    rbBalance(cur.rightChild); // Balancing tree with Red-Black rules
-                    break;
+        // Now the node has at most one child
+        Node<T> child = node.leftChild != null ? leftOf(node) : rightOf(node);
+        Node<T> parent = node.parent;
+        if (child != null) {
+            child.parent = parent;
+        }
+        if (parent == null) {
+            root = child;
+        } else if (parent.leftChild == node) {
+            parent.leftChild = child;
+        } else {
+            parent.rightChild = child;
+        }
+        node.parent = node.leftChild = node.rightChild = null;
+        size--;
+        for (Node<T> ancestor = parent; ancestor != null; ancestor = ancestor.parent) {
+            ancestor.size--;
+        }
+
+        if (node.color == Node.Color.BLACK) {
+            deleteBalance(child, parent);
+        }
+        return removed;
+    }
+
+    /**
+     * Удаляет и возвращает наименьшее значение
+     * @return Значение или {@code null}, если дерево пустое
+     */
+    public synchronized T pollFirst() {
+        T first = first();
+        return first != null ? delete(first) : null;
+    }
+
+    /**
+     * Удаляет и возвращает наибольшее значение
+     * @return Значение или {@code null}, если дерево пустое
+     */
+    public synchronized T pollLast() {
+        T last = last();
+        return last != null ? delete(last) : null;
+    }
+
+    /**
+     * Ребалансировка после удаления черного узла. На месте удаленного узла теперь {@code node} ("дважды черный"),
+     * он может быть {@code null}, поэтому родитель передается отдельно.
+     * @param node Узел, занявший место удаленного
+     * @param parent Родитель этого узла
+     */
+    private void deleteBalance(Node<T> node, Node<T> parent) {
+        while (node != root && colorOf(node) == Node.Color.BLACK) {
+            if (node == parent.leftChild) {
+                Node<T> sibling = rightOf(parent);
+                // Случай #1: Брат красный => Поворот, чтобы брат стал черным
+                if (colorOf(sibling) == Node.Color.RED) {
+                    sibling.color = Node.Color.BLACK;
+                    parent.color = Node.Color.RED;
+                    leftRotate(parent);
+                    sibling = rightOf(parent);
+                }
+                if (colorOf(sibling.leftChild) == Node.Color.BLACK && colorOf(sibling.rightChild) == Node.Color.BLACK) {
+                    // Случай #2: Оба потомка брата черные => Брат красный, проблема поднимается к родителю
+                    sibling.color = Node.Color.RED;
+                    node = parent;
+                    parent = node.parent;
                 } else {
-                    cur = cur.rightChild; // New parent is right child
+                    // Случай #3: Дальний потомок брата черный => Поворот брата
+                    if (colorOf(sibling.rightChild) == Node.Color.BLACK) {
+                        leftOf(sibling).color = Node.Color.BLACK;
+                        sibling.color = Node.Color.RED;
+                        rightRotate(sibling);
+                        sibling = rightOf(parent);
+                    }
+                    // Случай #4: Дальний потомок брата красный => Поворот родителя, балансировка закончена
+                    sibling.color = parent.color;
+                    parent.color = Node.Color.BLACK;
+                    rightOf(sibling).color = Node.Color.BLACK;
+                    leftRotate(parent);
+                    node = root;
+                }
+            } else {
+                Node<T> sibling = leftOf(parent);
+                if (colorOf(sibling) == Node.Color.RED) {
+                    sibling.color = Node.Color.BLACK;
+                    parent.color = Node.Color.RED;
+                    rightRotate(parent);
+                    sibling = leftOf(parent);
                 }
+                if (colorOf(sibling.leftChild) == Node.Color.BLACK && colorOf(sibling.rightChild) == Node.Color.BLACK) {
+                    sibling.color = Node.Color.RED;
+                    node = parent;
+                    parent = node.parent;
+                } else {
+                    if (colorOf(sibling.leftChild) == Node.Color.BLACK) {
+                        rightOf(sibling).color = Node.Color.BLACK;
+                        sibling.color = Node.Color.RED;
+                        leftRotate(sibling);
+                        sibling = leftOf(parent);
+                    }
+                    sibling.color = parent.color;
+                    parent.color = Node.Color.BLACK;
+                    leftOf(sibling).color = Node.Color.BLACK;
+                    rightRotate(parent);
+                    node = root;
+                }
+            }
+        }
+        if (node != null) {
+            node.color = Node.Color.BLACK;
+        }
+    }
+
+    private static Node.Color colorOf(Node<?> node) {
+        return node == null ? Node.Color.BLACK : node.color;
+    }
+
+    private static int sizeOf(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Пересчитывает размер поддерева узла по размерам его потомков
+     */
+    private static void updateSize(Node<?> node) {
+        node.size = sizeOf(node.leftChild) + sizeOf(node.rightChild) + 1;
+    }
+
+    /**
+     * Возвращает корень, предварительно скопировав его, если он чужой
+     * @return Собственный корень или {@code null}
+     */
+    private Node<T> ownedRoot() {
+        if (root != null && root.owner != owner) {
+            root = new Node<>(root, owner);
+        }
+        return root;
+    }
+
+    /**
+     * Возвращает левого потомка собственного узла {@code node}, предварительно скопировав его, если он чужой
+     * @param node Собственный узел
+     * @return Собственный левый потомок или {@code null}
+     */
+    private Node<T> leftOf(Node<T> node) {
+        Node<T> child = node.leftChild;
+        if (child != null && child.owner != owner) {
+            child = new Node<>(child, owner);
+            child.parent = node;
+            node.leftChild = child;
+        }
+        return child;
+    }
+
+    /**
+     * Возвращает правого потомка собственного узла {@code node}, предварительно скопировав его, если он чужой
+     * @param node Собственный узел
+     * @return Собственный правый потомок или {@code null}
+     */
+    private Node<T> rightOf(Node<T> node) {
+        Node<T> child = node.rightChild;
+        if (child != null && child.owner != owner) {
+            child = new Node<>(child, owner);
+            child.parent = node;
+            node.rightChild = child;
+        }
+        return child;
+    }
 
+    /**
+     * Обновляет ссылку на родителя, если узел собственный. У общих узлов ссылка не используется.
+     */
+    private void setParent(Node<T> node, Node<T> parent) {
+        if (node != null && node.owner == owner) {
+            node.parent = parent;
+        }
+    }
+
+    /**
+     * Проверяет свойства красно-черного дерева: порядок значений, корректность ссылок на родителей,
+     * черный корень, отсутствие двух красных узлов подряд, одинаковая черная высота всех путей,
+     * размеры поддеревьев и размер.
+     * @throws IllegalStateException Если свойство нарушено
+     */
+    void checkInvariants() {
+        if (colorOf(root) != Node.Color.BLACK) {
+            throw new IllegalStateException("Root is red");
+        }
+        if (root != null && root.owner == owner && root.parent != null) {
+            throw new IllegalStateException("Root has parent");
+        }
+        int[] count = new int[1];
+        checkSubtree(root, null, null, count);
+        if (count[0] != size) {
+            throw new IllegalStateException("Size is " + size + ", but tree has " + count[0] + " nodes");
+        }
+    }
+
+    /**
+     * @return Черная высота поддерева
+     */
+    private int checkSubtree(Node<T> node, T lowerBound, T upperBound, int[] count) {
+        if (node == null) {
+            return 1;
+        }
+        count[0]++;
+        if ((lowerBound != null && comparator.compare(node.data, lowerBound) <= 0) ||
+                (upperBound != null && comparator.compare(node.data, upperBound) >= 0)) {
+            throw new IllegalStateException("Order is broken at " + node);
+        }
+        for (Node<T> child : Arrays.asList(node.leftChild, node.rightChild)) {
+            if (child == null) {
+                continue;
+            }
+            if (child.owner == owner && node.owner != owner) {
+                throw new IllegalStateException("Own node " + child + " under shared node " + node);
+            }
+            if (child.owner == owner && child.parent != node) {
+                throw new IllegalStateException("Wrong parent of " + child);
+            }
+            if (node.color == Node.Color.RED && child.color == Node.Color.RED) {
+                throw new IllegalStateException("Red node " + node + " has red child " + child);
+            }
+        }
+        int left = checkSubtree(node.leftChild, lowerBound, node.data, count);
+        int right = checkSubtree(node.rightChild, node.data, upperBound, count);
+        if (node.size != sizeOf(node.leftChild) + sizeOf(node.rightChild) + 1) {
+            throw new IllegalStateException("Wrong subtree size at " + node);
+        }
+        if (left != right) {
+            throw new IllegalStateException("Black height differs at " + node);
+        }
+        return left + (node.color == Node.Color.BLACK ? 1 : 0);
+    }
+
+    /**
+     * Возвращает количество значений, строго меньших {@code value}, за O(log n)
+     * @param value Значение (может отсутствовать в дереве)
+     * @return Ранг значения
+     */
+    public int rank(T value) {
+        int rank = 0;
+        Node<T> cur = root;
+        while (cur != null) {
+            int cmp = comparator.compare(value, cur.data);
+            if (cmp <= 0) {
+                if (cmp == 0) {
+                    return rank + sizeOf(cur.leftChild);
+                }
+                cur = cur.leftChild;
             } else {
-                return; // Duplicates not inserting
+                rank += sizeOf(cur.leftChild) + 1;
+                cur = cur.rightChild;
             }
         }
+        return rank;
     }
 
     /**
-     * Проверяет наличие значения в дереве. Возвращает {@code null} если такого значения не существует и само значение из дерева, если оно было найдено.
-     * @param value Искомое значение
-     * @return Значение, если значение есть в дереве, {@code null} - в обратном случае.
+     * Возвращает значение с номером {@code index} в порядке возрастания за O(log n)
+     * @param index Номер, начиная с 0
+     * @return Значение
+     * @throws IndexOutOfBoundsException Если номер не меньше количества значений или отрицательный
      */
-    public T contain(T value) {
+    public T select(int index) {
+        Objects.checkIndex(index, size);
+        Node<T> cur = root;
+        while (true) {
+            int leftSize = sizeOf(cur.leftChild);
+            if (index == leftSize) {
+                return cur.data;
+            }
+            if (index < leftSize) {
+                cur = cur.leftChild;
+            } else {
+                index -= leftSize + 1;
+                cur = cur.rightChild;
+            }
+        }
+    }
+
+    /**
+     * Возвращает количество значений из диапазона [{@code from}, {@code to}) за O(log n)
+     * @param from Нижняя граница (включительно)
+     * @param to Верхняя граница (не включительно)
+     * @return Количество значений
+     */
+    public int countRange(T from, T to) {
+        return Math.max(0, rank(to) - rank(from));
+    }
+
+    /**
+     * Возвращает наименьшее значение в дереве
+     * @return Значение или {@code null}, если дерево пустое
+     */
+    public T first() {
         Node<T> cur = root;
+        if (cur == null) {
+            return null;
+        }
+        while (cur.leftChild != null) {
+            cur = cur.leftChild;
+        }
+        return cur.data;
+    }
 
+    /**
+     * Возвращает наибольшее значение в дереве
+     * @return Значение или {@code null}, если дерево пустое
+     */
+    public T last() {
+        Node<T> cur = root;
+        if (cur == null) {
+            return null;
+        }
+        while (cur.rightChild != null) {
+            cur = cur.rightChild;
+        }
+        return cur.data;
+    }
+
+    /**
+     * Возвращает наибольшее значение, меньшее или равное {@code value}
+     * @param value Значение
+     * @return Значение из дерева или {@code null}, если такого нет
+     */
+    public T floor(T value) {
+        return lowerNode(value, true);
+    }
+
+    /**
+     * Возвращает наибольшее значение, строго меньшее {@code value}
+     * @param value Значение
+     * @return Значение из дерева или {@code null}, если такого нет
+     */
+    public T lower(T value) {
+        return lowerNode(value, false);
+    }
+
+    /**
+     * Возвращает наименьшее значение, большее или равное {@code value}
+     * @param value Значение
+     * @return Значение из дерева или {@code null}, если такого нет
+     */
+    public T ceiling(T value) {
+        return higherNode(value, true);
+    }
+
+    /**
+     * Возвращает наименьшее значение, строго большее {@code value}
+     * @param value Значение
+     * @return Значение из дерева или {@code null}, если такого нет
+     */
+    public T higher(T value) {
+        return higherNode(value, false);
+    }
+
+    private T lowerNode(T value, boolean inclusive) {
+        Node<T> cur = root;
+        T result = null;
         while (cur != null) {
-            if (cur.data.equals(value)) {
+            int cmp = comparator.compare(value, cur.data);
+            if (cmp == 0 && inclusive) {
                 return cur.data;
             }
+            if (cmp > 0) {
+                result = cur.data; // Candidate, something bigger may be on the right
+                cur = cur.rightChild;
+            } else {
+                cur = cur.leftChild;
+            }
+        }
+        return result;
+    }
 
-            if (comparator.compare(value, cur.data) < 0) {
+    private T higherNode(T value, boolean inclusive) {
+        Node<T> cur = root;
+        T result = null;
+        while (cur != null) {
+            int cmp = comparator.compare(value, cur.data);
+            if (cmp == 0 && inclusive) {
+                return cur.data;
+            }
+            if (cmp < 0) {
+                result = cur.data; // Candidate, something smaller may be on the left
                 cur = cur.leftChild;
-            } else  {
+            } else {
                 cur = cur.rightChild;
             }
         }
+        return result;
+    }
 
-        return null;
+    /**
+     * Возвращает итератор по значениям из диапазона [{@code from}, {@code to}) в порядке возрастания.
+     * Диапазон не копируется: итератор хранит только стек узлов на пути от корня (высота дерева).
+     * Изменение дерева во время обхода не допускается.
+     * @param from Нижняя граница (включительно) или {@code null}, если граница не нужна
+     * @param to Верхняя граница (не включительно) или {@code null}, если граница не нужна
+     * @return Итератор
+     */
+    public Iterator<T> iterator(T from, T to) {
+        return new RangeIterator(from, to);
+    }
+
+    /**
+     * Симметричный обход диапазона на явном стеке
+     */
+    private final class RangeIterator implements Iterator<T> {
+        private final Deque<Node<T>> stack = new ArrayDeque<>();
+        private final T to;
+
+        RangeIterator(T from, T to) {
+            this.to = to;
+            Node<T> cur = root;
+            while (cur != null) {
+                if (from == null || comparator.compare(cur.data, from) >= 0) {
+                    stack.push(cur);
+                    cur = cur.leftChild;
+                } else {
+                    cur = cur.rightChild;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty() && (to == null || comparator.compare(stack.peek().data, to) < 0);
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Node<T> node = stack.pop();
+            for (Node<T> cur = node.rightChild; cur != null; cur = cur.leftChild) {
+                stack.push(cur);
+            }
+            return node.data;
+        }
     }
 
 
@@ -152,6 +686,7 @@ class RBTree<T extends Comparable<T>> {
         // Случай #3: Дядя (node.parent.parent.otherChild) и родитель - красные => Изменить цвет родителя, дедушки (node.parent.parent) и дяди (node.parent.parent.otherChild)
         Node<T> uncle = getUncle(node);
         if (uncle != null && uncle.color == Node.Color.RED) {
+            uncle = (parent == grandparent.leftChild) ? rightOf(grandparent) : leftOf(grandparent);
             parent.color = (Node.Color.BLACK);
             grandparent.color = (Node.Color.RED);
             uncle.color = (Node.Color.BLACK);
@@ -190,13 +725,13 @@ class RBTree<T extends Comparable<T>> {
      */
     private void leftRotate(Node<T> node) {
         Node<T> parent = node.parent;
-        Node<T> rightChild = node.rightChild;
+        Node<T> rightChild = rightOf(node);
         node.rightChild = rightChild.leftChild;
-        if (rightChild.leftChild != null) {
-            rightChild.leftChild.parent = node;
-        }
+        setParent(rightChild.leftChild, node);
         rightChild.leftChild = node;
         node.parent = rightChild;
+        rightChild.size = node.size;
+        updateSize(node);
 
         if (parent == null) {
             root = rightChild;
@@ -219,13 +754,13 @@ class RBTree<T extends Comparable<T>> {
      */
     private void rightRotate(Node<T> node) {
         Node<T> parent = node.parent;
-        Node<T> leftChild = node.leftChild;
+        Node<T> leftChild = leftOf(node);
         node.leftChild = leftChild.rightChild;
-        if (leftChild.rightChild != null) {
-            leftChild.rightChild.parent = node;
-        }
+        setParent(leftChild.rightChild, node);
         leftChild.rightChild = node;
         node.parent = leftChild;
+        leftChild.size = node.size;
+        updateSize(node);
 
         if (parent == null) {
             root = leftChild;
@@ -0,0 +1,138 @@
+import map.ArrayMap;
+import map.Map;
+import map.Pair;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+
+class ArrayMapTest {
+
+    @Test
+    @DisplayName("Should be true")
+    void ArrayMap_test_0() {
+    }
+
+    @Test
+    @DisplayName("Put does not overwrite, get, remove and size")
+    void ArrayMap_put_0() {
+        ArrayMap<Integer, String> map = new ArrayMap<>();
+        Assertions.assertTrue(map.isEmpty());
+        map.put(1, "One");
+        map.put(1, "Other");
+        map.put(2, null);
+        Assertions.assertEquals("One", map.get(1));
+        Assertions.assertNull(map.get(2));
+        Assertions.assertEquals(2, map.size());
+        Assertions.assertEquals("One", map.remove(1));
+        Assertions.assertNull(map.remove(1));
+        Assertions.assertEquals(1, map.size());
+        Assertions.assertThrows(NullPointerException.class, () -> map.put(null, "Null"));
+        map.clear();
+        Assertions.assertTrue(map.isEmpty());
+        Assertions.assertNull(map.firstKey());
+    }
+
+    @Test
+    @DisplayName("Random operations and navigation compared with TreeMap")
+    void ArrayMap_random_0() {
+        ArrayMap<Integer, Integer> map = new ArrayMap<>(4);
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < 100000; i++) {
+            int key = Utils.getRandom(0, 5000);
+            if (Utils.getRandom(0, 3) == 0) {
+                Assertions.assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                map.put(key, i);
+                expected.putIfAbsent(key, i);
+            }
+        }
+        Assertions.assertEquals(expected.size(), map.size());
+        Assertions.assertEquals(expected.firstKey(), map.firstKey());
+        Assertions.assertEquals(expected.lastKey(), map.lastKey());
+        for (int key = -10; key < 5010; key++) {
+            Assertions.assertEquals(expected.get(key), map.get(key));
+            Assertions.assertEquals(expected.floorKey(key), map.floorKey(key));
+            Assertions.assertEquals(expected.ceilingKey(key), map.ceilingKey(key));
+            Assertions.assertEquals(expected.lowerKey(key), map.lowerKey(key));
+            Assertions.assertEquals(expected.higherKey(key), map.higherKey(key));
+        }
+
+        int count = 0;
+        for (Pair<Integer, Integer> pair : map.subMap(1000, 2000)) {
+            Assertions.assertEquals(expected.get(pair.getFirst()), pair.getSecond());
+            count++;
+        }
+        Assertions.assertEquals(expected.subMap(1000, 2000).size(), count);
+
+        ArrayMap<Integer, Integer> copy = new ArrayMap<>(map);
+        Assertions.assertEquals(map, copy);
+        Assertions.assertEquals(map.hashCode(), copy.hashCode());
+        copy.pollFirst();
+        Assertions.assertNotEquals(map, copy);
+        Assertions.assertEquals(expected.size(), map.size());
+    }
+
+    @Test
+    @DisplayName("Benchmark: lookup latency and heap footprint compared with object-node Map")
+    void ArrayMap_benchmark_0() {
+        int count = 1000000;
+        int[] keys = new int[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = Utils.getRandom();
+        }
+
+        long before = usedMemory();
+        Map<Integer, Integer> objectMap = new Map<>();
+        for (int key : keys) {
+            objectMap.put(key, key);
+        }
+        long objectBytes = usedMemory() - before;
+        long objectNanos = lookupNanos(keys, key -> objectMap.get(key));
+        Assertions.assertEquals(keys[0], objectMap.get(keys[0]));
+
+        before = usedMemory();
+        ArrayMap<Integer, Integer> arrayMap = new ArrayMap<>();
+        for (int key : keys) {
+            arrayMap.put(key, key);
+        }
+        long arrayBytes = usedMemory() - before;
+        long arrayNanos = lookupNanos(keys, key -> arrayMap.get(key));
+        Assertions.assertEquals(keys[0], arrayMap.get(keys[0]));
+
+        System.out.printf("Map: %d entries, object nodes: %.1f ns/lookup, ~%d bytes/entry; " +
+                        "array nodes: %.1f ns/lookup, ~%d bytes/entry%n",
+                arrayMap.size(), (double) objectNanos / count, objectBytes / count,
+                (double) arrayNanos / count, arrayBytes / count);
+        Assertions.assertEquals(objectMap.size(), arrayMap.size());
+    }
+
+    /**
+     * Время поиска всех ключей. Каждый ключ отображается сам в себя, поэтому сумма найденных значений
+     * сверяется с суммой ключей (заодно не дает JIT выбросить цикл).
+     */
+    private static long lookupNanos(int[] keys, IntFunction<Integer> lookup) {
+        long expected = 0;
+        for (int key : keys) {
+            expected += key;
+        }
+        long start = System.nanoTime();
+        long sum = 0;
+        for (int key : keys) {
+            sum += lookup.apply(key);
+        }
+        long elapsed = System.nanoTime() - start;
+        Assertions.assertEquals(expected, sum);
+        return elapsed;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
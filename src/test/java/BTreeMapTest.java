@@ -1,6 +1,18 @@
+import btreemap.BTree;
+import btreemap.BTreeMap;
+import btreemap.Pair;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
 class BTreeMapTest {
 
     @Test
@@ -8,4 +20,378 @@ class BTreeMapTest {
     void BTreeMap_test_0() {
 
     }
+
+    @Test
+    @DisplayName("All modes: put, replace, get, range and forEach match TreeMap")
+    void BTreeMap_range_0() {
+        for (BTreeMap.Mode mode : BTreeMap.Mode.values()) {
+            for (int t : new int[]{1, 2, 3, 16}) {
+                Random random = new Random(t);
+                BTreeMap<Integer, Integer> map = new BTreeMap<>(t, mode);
+                TreeMap<Integer, Integer> expected = new TreeMap<>();
+                for (int i = 0; i < 3000; i++) {
+                    int key = random.nextInt(5000);
+                    map.put(key, i);
+                    expected.putIfAbsent(key, i);
+                }
+                map.replace(expected.firstKey(), -1);
+                expected.put(expected.firstKey(), -1);
+                map.replace(expected.lastKey(), 0, -2);
+                map.replace(expected.lastKey(), expected.lastEntry().getValue(), -3);
+                expected.put(expected.lastKey(), -3);
+
+                Assertions.assertEquals(mode, map.getMode());
+                Assertions.assertEquals(expected.size(), map.size());
+                for (int key = -1; key <= 5000; key++) {
+                    Assertions.assertEquals(expected.get(key), map.get(key));
+                }
+
+                for (int i = 0; i < 100; i++) {
+                    int from = random.nextInt(5100) - 50;
+                    int to = from + random.nextInt(300);
+                    List<Integer> keys = new ArrayList<>();
+                    for (Pair<Integer, Integer> pair : map.range(from, to)) {
+                        keys.add(pair.getFirst());
+                        Assertions.assertEquals(expected.get(pair.getFirst()), pair.getSecond());
+                    }
+                    Assertions.assertEquals(new ArrayList<>(expected.subMap(from, to).keySet()), keys);
+                }
+
+                List<Integer> all = new ArrayList<>();
+                map.forEach((key, value) -> all.add(key));
+                Assertions.assertEquals(new ArrayList<>(expected.keySet()), all);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("All modes: 'remove' returns old value and later puts reuse the key")
+    void BTreeMap_remove_0() {
+        for (BTreeMap.Mode mode : BTreeMap.Mode.values()) {
+            BTreeMap<String, Integer> map = new BTreeMap<>(2, mode);
+            for (int i = 0; i < 1000; i++) {
+                map.put("key" + i, i);
+            }
+            for (int i = 0; i < 1000; i += 2) {
+                Assertions.assertEquals(i, map.remove("key" + i));
+            }
+            Assertions.assertNull(map.remove("key0"));
+            Assertions.assertEquals(500, map.size());
+            Assertions.assertNull(map.get("key10"));
+            Assertions.assertEquals(11, map.get("key11"));
+
+            map.put("key10", -10);
+            Assertions.assertEquals(-10, map.get("key10"));
+            Assertions.assertEquals(501, map.size());
+        }
+    }
+
+    private static Integer countUp(Integer counter) {
+        if (counter == null) {
+            return 1;
+        }
+        return (counter + 1) % 7 == 0 ? null : counter + 1;
+    }
+
+    @Test
+    @DisplayName("All modes: null values are stored, replaced and removed")
+    void BTreeMap_null_0() {
+        for (BTreeMap.Mode mode : BTreeMap.Mode.values()) {
+            BTreeMap<Integer, String> map = new BTreeMap<>(2, mode);
+            for (int i = 0; i < 100; i++) {
+                map.put(i, i % 2 == 0 ? null : Integer.toString(i));
+            }
+            Assertions.assertEquals(100, map.size(), mode.name());
+            Assertions.assertNull(map.get(10));
+            map.replace(11, null);
+            map.replace(10, "ten");
+            Assertions.assertNull(map.get(11));
+            Assertions.assertEquals("ten", map.get(10));
+            Assertions.assertNull(map.remove(12));
+            Assertions.assertEquals(99, map.size(), mode.name());
+
+            // Conditional replace matches a stored null, but not an absent key
+            map.replace(14, null, "fourteen");
+            Assertions.assertEquals("fourteen", map.get(14), mode.name());
+            map.replace(15, null, "fifteen");
+            Assertions.assertEquals("15", map.get(15), mode.name());
+            map.replace(15, "15", null);
+            Assertions.assertNull(map.get(15), mode.name());
+            map.replace(1000, null, "absent");
+            Assertions.assertNull(map.get(1000), mode.name());
+            Assertions.assertEquals(99, map.size(), mode.name());
+        }
+    }
+
+    @Test
+    @DisplayName("All modes: 'putIfAbsent' and 'compute' insert, update and remove")
+    void BTreeMap_compute_0() {
+        for (BTreeMap.Mode mode : BTreeMap.Mode.values()) {
+            BTreeMap<Integer, Integer> map = new BTreeMap<>(2, mode);
+            TreeMap<Integer, Integer> expected = new TreeMap<>();
+            Random random = new Random(23);
+            for (int i = 0; i < 20000; i++) {
+                int key = random.nextInt(1000);
+                if (random.nextBoolean()) {
+                    Assertions.assertEquals(expected.putIfAbsent(key, i), map.putIfAbsent(key, i));
+                } else {
+                    // Count up, and remove the pair once the counter is a multiple of 7
+                    Integer result = map.compute(key, (k, v) -> countUp(v));
+                    Assertions.assertEquals(expected.compute(key, (k, v) -> countUp(v)), result);
+                }
+            }
+            Assertions.assertEquals(expected.size(), map.size());
+            List<Integer> keys = new ArrayList<>();
+            map.forEach((key, value) -> {
+                keys.add(key);
+                Assertions.assertEquals(expected.get(key), value);
+            });
+            Assertions.assertEquals(new ArrayList<>(expected.keySet()), keys);
+        }
+    }
+
+    @Test
+    @DisplayName("Benchmark: 'search' then 'add' compared with single-descent 'addIfAbsent'")
+    void BTreeMap_put_1() {
+        int count = 500000;
+        Random random = new Random(23);
+        Integer[] values = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = random.nextInt(count);
+        }
+        for (int round = 0; round < 2; round++) {
+            BTree<Integer> twoPass = new BTree<>(32);
+            long start = System.nanoTime();
+            for (Integer value : values) {
+                if (twoPass.search(value) == null) {
+                    twoPass.add(value);
+                }
+            }
+            long twoPassNanos = System.nanoTime() - start;
+
+            BTree<Integer> onePass = new BTree<>(32);
+            start = System.nanoTime();
+            for (Integer value : values) {
+                onePass.addIfAbsent(value);
+            }
+            long onePassNanos = System.nanoTime() - start;
+
+            System.out.printf("%d inserts with duplicates: search + add %d ms, addIfAbsent %d ms%n",
+                    count, twoPassNanos / 1000000, onePassNanos / 1000000);
+            Assertions.assertEquals(twoPass.size(), onePass.size());
+        }
+    }
+
+    @Test
+    @DisplayName("Benchmark: full scan and range scans in all modes")
+    void BTreeMap_range_1() {
+        int count = 1 << 19;
+        Random random = new Random(19);
+        List<Integer> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add(random.nextInt());
+        }
+        for (BTreeMap.Mode mode : BTreeMap.Mode.values()) {
+            BTreeMap<Integer, Integer> map = new BTreeMap<>(32, mode);
+            for (int key : keys) {
+                map.put(key, key);
+            }
+
+            long start = System.nanoTime();
+            long[] sum = new long[1];
+            for (int round = 0; round < 5; round++) {
+                map.forEach((key, value) -> sum[0] += value);
+            }
+            long scanNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int found = 0;
+            for (int i = 0; i < 2000; i++) {
+                int from = keys.get(i);
+                for (Pair<Integer, Integer> ignored : map.range(from, from + (1 << 22))) {
+                    found++;
+                }
+            }
+            long rangeNanos = System.nanoTime() - start;
+
+            System.out.printf("%s: %d keys, 5 full scans %d ms, 2000 range scans (%d pairs) %d ms%n",
+                    mode, map.size(), scanNanos / 1000000, found, rangeNanos / 1000000);
+            Assertions.assertNotEquals(0, sum[0]);
+        }
+    }
+
+    @Test
+    @DisplayName("Benchmark: put and get with tree parameter from 2 to 512")
+    void BTreeMap_put_0() {
+        int count = 200000;
+        Random random = new Random(20);
+        Integer[] keys = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = random.nextInt();
+        }
+        for (int t = 2; t <= 512; t *= 2) {
+            BTreeMap<Integer, Integer> map = new BTreeMap<>(t);
+            long start = System.nanoTime();
+            for (Integer key : keys) {
+                map.put(key, key);
+            }
+            long putNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (Integer key : keys) {
+                Assertions.assertEquals(key, map.get(key));
+            }
+            long getNanos = System.nanoTime() - start;
+
+            System.out.printf("t = %3d: %d puts %d ms, %d gets %d ms%n",
+                    t, count, putNanos / 1000000, count, getNanos / 1000000);
+        }
+    }
+
+    @Test
+    @DisplayName("'fromSorted' builds a map from a sorted stream; benchmark against one 'put' per key")
+    void BTreeMap_fromSorted_0() {
+        int count = 1000000;
+        List<Pair<Integer, Integer>> pairs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            pairs.add(new Pair<>(i, i));
+        }
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            BTreeMap<Integer, Integer> byPut = new BTreeMap<>(32);
+            for (Pair<Integer, Integer> pair : pairs) {
+                byPut.put(pair.getFirst(), pair.getSecond());
+            }
+            long putNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            BTreeMap<Integer, Integer> bulk = BTreeMap.fromSorted(32, pairs.stream(), 1.0);
+            long bulkNanos = System.nanoTime() - start;
+
+            System.out.printf("BTreeMap: %d sorted keys, put: %d ms, fromSorted: %d ms%n",
+                    count, putNanos / 1000000, bulkNanos / 1000000);
+            Assertions.assertEquals(byPut.size(), bulk.size());
+            for (int i = 0; i < count; i += 997) {
+                Assertions.assertEquals(i, bulk.get(i));
+            }
+        }
+
+        BTreeMap<Integer, Integer> map = BTreeMap.fromSorted(2, pairs.subList(0, 100).iterator(), 0.75);
+        map.replace(0, -1);
+        Assertions.assertEquals(0, pairs.get(0).getSecond());
+        Assertions.assertEquals(-1, map.get(0));
+        map.put(1000, 1000);
+        Assertions.assertEquals(99, map.remove(99));
+        Assertions.assertEquals(100, map.size());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> BTreeMap.fromSorted(2, List.of(new Pair<>(2, 0), new Pair<>(1, 0)).iterator(), 1.0));
+    }
+
+    @Test
+    @DisplayName("Snapshots in COPY_ON_WRITE mode stay consistent while a writer keeps inserting")
+    void BTreeMap_snapshot_0() throws InterruptedException {
+        BTreeMap<Integer, Integer> map = new BTreeMap<>(4, BTreeMap.Mode.COPY_ON_WRITE);
+        int count = 50000;
+        // Thread 0 inserts keys in ascending order, so every snapshot must hold exactly keys 0 .. size - 1
+        Utils.runConcurrently(4, t -> {
+            if (t == 0) {
+                for (int i = 0; i < count; i++) {
+                    map.put(i, i);
+                }
+                return;
+            }
+            for (int round = 0; round < 200; round++) {
+                BTreeMap<Integer, Integer> snapshot = map.snapshot();
+                int size = snapshot.size();
+                int[] next = {0};
+                snapshot.forEach((key, value) -> {
+                    Assertions.assertEquals(next[0], key);
+                    Assertions.assertEquals(key, value);
+                    next[0]++;
+                });
+                Assertions.assertEquals(size, next[0]);
+                Assertions.assertNull(snapshot.get(size));
+            }
+        });
+        Assertions.assertEquals(count, map.size());
+
+        BTreeMap<Integer, Integer> snapshot = map.snapshot();
+        map.remove(0);
+        map.replace(1, -1);
+        snapshot.put(count, count);
+        Assertions.assertEquals(0, snapshot.get(0));
+        Assertions.assertEquals(1, snapshot.get(1));
+        Assertions.assertNull(map.get(count));
+        Assertions.assertEquals(count - 1, map.size());
+        Assertions.assertEquals(count + 1, snapshot.size());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> new BTreeMap<Integer, Integer>(2).snapshot());
+    }
+
+    @Test
+    @DisplayName("Benchmark: readers with an active writer, COPY_ON_WRITE compared with BTREE behind ReentrantReadWriteLock")
+    void BTreeMap_snapshot_1() throws InterruptedException {
+        int keys = 1 << 16;
+        int totalReads = 1 << 20;
+        for (int readers : new int[]{1, 2, 4, 8}) {
+            int perReader = totalReads / readers;
+
+            BTreeMap<Integer, Integer> cowMap = new BTreeMap<>(16, BTreeMap.Mode.COPY_ON_WRITE);
+            for (int i = 0; i < keys; i += 2) {
+                cowMap.put(i, i);
+            }
+            AtomicBoolean cowDone = new AtomicBoolean();
+            long cowNanos = Utils.runConcurrently(readers + 1, t -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                if (t == readers) {
+                    while (!cowDone.get()) {
+                        int key = random.nextInt(keys);
+                        if (cowMap.remove(key) == null) {
+                            cowMap.put(key, key);
+                        }
+                    }
+                    return;
+                }
+                for (int i = 0; i < perReader; i++) {
+                    cowMap.get(random.nextInt(keys));
+                }
+                cowDone.set(true);
+            });
+
+            BTreeMap<Integer, Integer> lockedMap = new BTreeMap<>(16);
+            for (int i = 0; i < keys; i += 2) {
+                lockedMap.put(i, i);
+            }
+            ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+            AtomicBoolean lockedDone = new AtomicBoolean();
+            long lockedNanos = Utils.runConcurrently(readers + 1, t -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                if (t == readers) {
+                    while (!lockedDone.get()) {
+                        int key = random.nextInt(keys);
+                        lock.writeLock().lock();
+                        try {
+                            if (lockedMap.remove(key) == null) {
+                                lockedMap.put(key, key);
+                            }
+                        } finally {
+                            lock.writeLock().unlock();
+                        }
+                    }
+                    return;
+                }
+                for (int i = 0; i < perReader; i++) {
+                    lock.readLock().lock();
+                    try {
+                        lockedMap.get(random.nextInt(keys));
+                    } finally {
+                        lock.readLock().unlock();
+                    }
+                }
+                lockedDone.set(true);
+            });
+
+            System.out.printf("%d readers + 1 writer, %d reads: COPY_ON_WRITE %d ms, BTREE + lock %d ms%n",
+                    readers, totalReads, cowNanos / 1000000, lockedNanos / 1000000);
+        }
+    }
 }
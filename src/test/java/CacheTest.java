@@ -0,0 +1,98 @@
+import hashmap.Cache;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+
+class CacheTest {
+
+    @Test
+    @DisplayName("Should be true")
+    void Cache_test_0() {
+    }
+
+    @Test
+    @DisplayName("LRU: the least recently used entry is evicted")
+    void Cache_lru_0() {
+        Cache<Integer, String> cache = new Cache<>(3);
+        cache.put(1, "1");
+        cache.put(2, "2");
+        cache.put(3, "3");
+        Assertions.assertEquals("1", cache.getOrNull(1));
+        cache.put(4, "4");
+
+        Assertions.assertEquals(3, cache.getSize());
+        Assertions.assertTrue(cache.isContain(1));
+        Assertions.assertFalse(cache.isContain(2));
+        Assertions.assertTrue(cache.isContain(3));
+        Assertions.assertTrue(cache.isContain(4));
+        Assertions.assertEquals(1, cache.getEvictionCount());
+        Assertions.assertNull(cache.getOrNull(2));
+        Assertions.assertEquals(1, cache.getHitCount());
+        Assertions.assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    @DisplayName("'computeIfAbsent' calls loader only on a miss")
+    void Cache_computeIfAbsent_0() {
+        Cache<Integer, Integer> cache = new Cache<>(100, Cache.Policy.TINY_LFU);
+        int[] loads = new int[1];
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 50; i++) {
+                Assertions.assertEquals(i * i, cache.computeIfAbsent(i, key -> {
+                    loads[0]++;
+                    return key * key;
+                }));
+            }
+        }
+        Assertions.assertEquals(50, loads[0]);
+        Assertions.assertEquals(50, cache.getMissCount());
+        Assertions.assertEquals(100, cache.getHitCount());
+        Assertions.assertNull(cache.computeIfAbsent(1000, key -> null));
+        Assertions.assertFalse(cache.isContain(1000));
+    }
+
+    @Test
+    @DisplayName("Weighted cache never exceeds maximum weight")
+    void Cache_weight_0() {
+        for (Cache.Policy policy : Cache.Policy.values()) {
+            Cache<Integer, String> cache = new Cache<>(1000, policy, (key, value) -> value.length());
+            for (int i = 0; i < 10000; i++) {
+                int key = Utils.getRandom(0, 500);
+                cache.put(key, "x".repeat(Utils.getRandom(1, 50)));
+                Assertions.assertTrue(cache.getWeight() <= 1000);
+                if (i % 5 == 0) {
+                    cache.remove(Utils.getRandom(0, 500));
+                }
+            }
+            Assertions.assertTrue(cache.getEvictionCount() > 0);
+        }
+        Cache<Integer, String> negative = new Cache<>(10, Cache.Policy.LRU, (key, value) -> -1);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> negative.put(1, "1"));
+    }
+
+    @Test
+    @DisplayName("TinyLFU keeps frequent keys under a scan, LRU loses them")
+    void Cache_tinyLfu_0() {
+        Cache<Integer, Integer> lru = new Cache<>(100, Cache.Policy.LRU);
+        Cache<Integer, Integer> tinyLfu = new Cache<>(100, Cache.Policy.TINY_LFU);
+        int scanKey = 1000;
+        for (int round = 0; round < 200; round++) {
+            for (int hot = 0; hot < 50; hot++) {
+                lru.computeIfAbsent(hot, key -> key);
+                tinyLfu.computeIfAbsent(hot, key -> key);
+            }
+            // A scan of keys that are used once
+            for (int i = 0; i < 200; i++, scanKey++) {
+                lru.computeIfAbsent(scanKey, key -> key);
+                tinyLfu.computeIfAbsent(scanKey, key -> key);
+            }
+        }
+        System.out.printf("Cache hit rate under scan: LRU %.3f, TinyLFU %.3f%n", lru.getHitRate(), tinyLfu.getHitRate());
+        Assertions.assertTrue(tinyLfu.getHitRate() > lru.getHitRate());
+        for (int hot = 0; hot < 50; hot++) {
+            Assertions.assertTrue(tinyLfu.isContain(hot));
+        }
+        Assertions.assertEquals(100, tinyLfu.getSize());
+    }
+}
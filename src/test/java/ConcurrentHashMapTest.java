@@ -0,0 +1,152 @@
+import hashmap.ConcurrentHashMap;
+import hashmap.HashMap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+class ConcurrentHashMapTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    @DisplayName("Should be true")
+    void ConcurrentHashMap_test_0() {
+    }
+
+    @Test
+    @DisplayName("Single thread behaviour matches HashMap")
+    void ConcurrentHashMap_put_0() {
+        ConcurrentHashMap<Integer, String> hashMap = new ConcurrentHashMap<>(2);
+        for (int i = -500; i < 500; i++) {
+            hashMap.put(i, Integer.toString(i));
+        }
+        hashMap.put(1, "one");
+        hashMap.putIfNotExist(2, "two");
+
+        Assertions.assertEquals(1000, hashMap.getSize());
+        Assertions.assertEquals("one", hashMap.get(1));
+        Assertions.assertEquals("2", hashMap.get(2));
+        Assertions.assertNull(hashMap.getOrNull(1000));
+        Assertions.assertThrows(RuntimeException.class, () -> hashMap.get(1000));
+        Assertions.assertTrue(hashMap.remove(-500));
+        Assertions.assertFalse(hashMap.remove(-500));
+        Assertions.assertFalse(hashMap.isContain(-500));
+        Assertions.assertEquals(999, hashMap.getSize());
+    }
+
+    @Test
+    @DisplayName("'computeIfAbsent' and 'merge' in single thread")
+    void ConcurrentHashMap_compute_0() {
+        ConcurrentHashMap<String, Integer> hashMap = new ConcurrentHashMap<>();
+        Assertions.assertEquals(3, hashMap.computeIfAbsent("abc", String::length));
+        Assertions.assertEquals(3, hashMap.computeIfAbsent("abc", key -> 100));
+        Assertions.assertNull(hashMap.computeIfAbsent("none", key -> null));
+        Assertions.assertFalse(hashMap.isContain("none"));
+
+        Assertions.assertEquals(1, hashMap.merge("x", 1, Integer::sum));
+        Assertions.assertEquals(3, hashMap.merge("x", 2, Integer::sum));
+        Assertions.assertNull(hashMap.merge("x", 0, (a, b) -> null));
+        Assertions.assertFalse(hashMap.isContain("x"));
+        Assertions.assertEquals(1, hashMap.getSize());
+    }
+
+    @Test
+    @DisplayName("Recursive update from 'computeIfAbsent' is detected")
+    void ConcurrentHashMap_compute_1() {
+        ConcurrentHashMap<Integer, Integer> hashMap = new ConcurrentHashMap<>();
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> hashMap.computeIfAbsent(1, key -> hashMap.computeIfAbsent(1, other -> 2)));
+        Assertions.assertFalse(hashMap.isContain(1));
+    }
+
+    @Test
+    @DisplayName("Stress: concurrent inserts and removals of disjoint ranges while table grows")
+    void ConcurrentHashMap_stress_0() throws InterruptedException {
+        ConcurrentHashMap<Integer, Integer> hashMap = new ConcurrentHashMap<>(2);
+        int perThread = 50000;
+        Utils.runConcurrently(THREADS, thread -> {
+            int from = thread * perThread;
+            for (int i = from; i < from + perThread; i++) {
+                hashMap.put(i, i);
+            }
+            for (int i = from; i < from + perThread; i += 2) {
+                Assertions.assertTrue(hashMap.remove(i));
+            }
+        });
+
+        Assertions.assertEquals(THREADS * perThread / 2, hashMap.getSize());
+        for (int i = 0; i < THREADS * perThread; i++) {
+            Assertions.assertEquals(i % 2 == 1 ? Integer.valueOf(i) : null, hashMap.getOrNull(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Stress: 'merge' counters and 'computeIfAbsent' on shared keys are atomic")
+    void ConcurrentHashMap_stress_1() throws InterruptedException {
+        ConcurrentHashMap<Integer, Integer> counters = new ConcurrentHashMap<>();
+        ConcurrentHashMap<Integer, Integer> computed = new ConcurrentHashMap<>();
+        AtomicInteger calls = new AtomicInteger();
+        int keys = 1000;
+        int rounds = 20;
+        Utils.runConcurrently(THREADS, thread -> {
+            for (int round = 0; round < rounds; round++) {
+                for (int key = 0; key < keys; key++) {
+                    counters.merge(key, 1, Integer::sum);
+                    computed.computeIfAbsent(key, k -> {
+                        calls.incrementAndGet();
+                        return k * 2;
+                    });
+                }
+            }
+        });
+
+        Assertions.assertEquals(keys, calls.get());
+        Assertions.assertEquals(keys, counters.getSize());
+        for (int key = 0; key < keys; key++) {
+            Assertions.assertEquals(THREADS * rounds, counters.get(key));
+            Assertions.assertEquals(key * 2, computed.get(key));
+        }
+    }
+
+    @Test
+    @DisplayName("Throughput of mixed workload compared to HashMap behind a global lock")
+    void ConcurrentHashMap_throughput_0() throws InterruptedException {
+        int operations = 200000;
+        int keys = 1 << 16;
+
+        ConcurrentHashMap<Integer, Integer> concurrent = new ConcurrentHashMap<>();
+        long concurrentTime = Utils.runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < operations; i++) {
+                int key = (i * 31 + thread) & (keys - 1);
+                if (i % 4 == 0) {
+                    concurrent.put(key, i);
+                } else {
+                    concurrent.getOrNull(key);
+                }
+            }
+        });
+
+        HashMap<Integer, Integer> locked = new HashMap<>();
+        Object lock = new Object();
+        long lockedTime = Utils.runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < operations; i++) {
+                int key = (i * 31 + thread) & (keys - 1);
+                synchronized (lock) {
+                    if (i % 4 == 0) {
+                        locked.put(key, i);
+                    } else {
+                        locked.getOrNull(key);
+                    }
+                }
+            }
+        });
+
+        long total = (long) THREADS * operations;
+        System.out.printf("ConcurrentHashMap: %d ops/ms, HashMap with global lock: %d ops/ms (%d threads)%n",
+                total * 1_000_000 / Math.max(concurrentTime, 1), total * 1_000_000 / Math.max(lockedTime, 1), THREADS);
+        Assertions.assertEquals(locked.getSize(), concurrent.getSize());
+    }
+}
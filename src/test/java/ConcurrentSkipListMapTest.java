@@ -0,0 +1,207 @@
+import map.ConcurrentSkipListMap;
+import map.Map;
+import map.Pair;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+
+class ConcurrentSkipListMapTest {
+
+    @Test
+    @DisplayName("Should be true")
+    void ConcurrentSkipListMap_test_0() {
+    }
+
+    @Test
+    @DisplayName("Single thread behaviour matches TreeMap")
+    void ConcurrentSkipListMap_put_0() {
+        Random random = new Random(3);
+        ConcurrentSkipListMap<Integer, Integer> map = new ConcurrentSkipListMap<>();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        Assertions.assertTrue(map.isEmpty());
+        Assertions.assertNull(map.firstKey());
+        Assertions.assertNull(map.lastKey());
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(1000);
+            if (random.nextInt(3) == 0) {
+                Assertions.assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                Assertions.assertEquals(!expected.containsKey(key), map.put(key, i));
+                expected.putIfAbsent(key, i);
+            }
+        }
+        Assertions.assertEquals(expected.size(), map.size());
+        Assertions.assertEquals(expected.firstKey(), map.firstKey());
+        Assertions.assertEquals(expected.lastKey(), map.lastKey());
+        for (int key = -1; key <= 1000; key++) {
+            Assertions.assertEquals(expected.get(key), map.get(key));
+            Assertions.assertEquals(expected.floorKey(key), map.floorKey(key));
+            Assertions.assertEquals(expected.lowerKey(key), map.lowerKey(key));
+            Assertions.assertEquals(expected.ceilingKey(key), map.ceilingKey(key));
+            Assertions.assertEquals(expected.higherKey(key), map.higherKey(key));
+        }
+
+        List<Integer> keys = new ArrayList<>();
+        for (Pair<Integer, Integer> pair : map.subMap(100, 200)) {
+            keys.add(pair.getFirst());
+            Assertions.assertEquals(expected.get(pair.getFirst()), pair.getSecond());
+        }
+        Assertions.assertEquals(new ArrayList<>(expected.subMap(100, 200).keySet()), keys);
+    }
+
+    @Test
+    @DisplayName("Concurrent puts and removes of disjoint keys lose nothing")
+    void ConcurrentSkipListMap_concurrent_0() throws InterruptedException {
+        ConcurrentSkipListMap<Integer, Integer> map = new ConcurrentSkipListMap<>();
+        int threads = 8;
+        int perThread = 5000;
+        Utils.runConcurrently(threads, t -> {
+            for (int i = 0; i < perThread; i++) {
+                map.put(i * threads + t, t);
+            }
+            for (int i = 0; i < perThread; i += 2) {
+                Assertions.assertEquals(t, map.remove(i * threads + t));
+            }
+        });
+
+        Assertions.assertEquals(threads * perThread / 2, map.size());
+        Integer previous = null;
+        int count = 0;
+        for (Pair<Integer, Integer> pair : map.subMap(Integer.MIN_VALUE, Integer.MAX_VALUE)) {
+            int key = pair.getFirst();
+            Assertions.assertTrue(previous == null || previous < key);
+            Assertions.assertEquals(1, (key / threads) % 2);
+            Assertions.assertEquals(key % threads, pair.getSecond());
+            previous = key;
+            count++;
+        }
+        Assertions.assertEquals(threads * perThread / 2, count);
+    }
+
+    @Test
+    @DisplayName("Contended put and remove of the same keys: exactly one winner per operation")
+    void ConcurrentSkipListMap_concurrent_1() throws InterruptedException {
+        ConcurrentSkipListMap<Integer, Integer> map = new ConcurrentSkipListMap<>();
+        AtomicInteger inserted = new AtomicInteger();
+        AtomicInteger removed = new AtomicInteger();
+        Utils.runConcurrently(8, t -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 20000; i++) {
+                int key = random.nextInt(64);
+                if (random.nextBoolean()) {
+                    if (map.put(key, key)) {
+                        inserted.incrementAndGet();
+                    }
+                } else if (map.remove(key) != null) {
+                    removed.incrementAndGet();
+                }
+                Integer floor = map.floorKey(key);
+                Assertions.assertTrue(floor == null || floor <= key);
+            }
+        });
+
+        int remaining = 0;
+        for (Pair<Integer, Integer> ignored : map.subMap(0, 64)) {
+            remaining++;
+        }
+        Assertions.assertEquals(inserted.get() - removed.get(), remaining);
+        Assertions.assertEquals(remaining, map.size());
+    }
+
+    @Test
+    @DisplayName("A key is visible to 'get' and 'ceilingKey' right after its 'put', while neighbours are re-inserted")
+    void ConcurrentSkipListMap_concurrent_2() throws InterruptedException {
+        ConcurrentSkipListMap<Integer, Integer> map = new ConcurrentSkipListMap<>();
+        Utils.runConcurrently(8, t -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 20000; i++) {
+                if (t % 2 == 0) {
+                    // Even keys are removed and put back, so searches often descend through deleted nodes
+                    int key = random.nextInt(32) * 2;
+                    map.put(key, key);
+                    map.remove(key);
+                } else {
+                    // Odd keys are owned by one thread each and land between the churned even keys
+                    int key = (random.nextInt(8) * 4 + t / 2) * 2 + 1;
+                    Assertions.assertTrue(map.put(key, key));
+                    Assertions.assertEquals(key, map.get(key));
+                    Assertions.assertEquals(key, map.ceilingKey(key));
+                    Assertions.assertEquals(key, map.remove(key));
+                }
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("Benchmark: skip list compared with Map behind ReentrantReadWriteLock")
+    void ConcurrentSkipListMap_benchmark_0() throws InterruptedException {
+        int keys = 1 << 16;
+        int totalOperations = 1 << 20;
+        for (int threads : new int[]{1, 4, 16, 64}) {
+            int perThread = totalOperations / threads;
+
+            ConcurrentSkipListMap<Integer, Integer> skipList = new ConcurrentSkipListMap<>();
+            for (int i = 0; i < keys; i += 2) {
+                skipList.put(i, i);
+            }
+            long skipListNanos = Utils.runConcurrently(threads, t -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < perThread; i++) {
+                    int key = random.nextInt(keys);
+                    int operation = random.nextInt(10);
+                    if (operation == 0) {
+                        skipList.put(key, key);
+                    } else if (operation == 1) {
+                        skipList.remove(key);
+                    } else {
+                        skipList.get(key);
+                    }
+                }
+            });
+
+            Map<Integer, Integer> map = new Map<>();
+            for (int i = 0; i < keys; i += 2) {
+                map.put(i, i);
+            }
+            ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+            long lockedNanos = Utils.runConcurrently(threads, t -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < perThread; i++) {
+                    int key = random.nextInt(keys);
+                    int operation = random.nextInt(10);
+                    if (operation < 2) {
+                        lock.writeLock().lock();
+                        try {
+                            if (operation == 0) {
+                                map.put(key, key);
+                            } else {
+                                map.remove(key);
+                            }
+                        } finally {
+                            lock.writeLock().unlock();
+                        }
+                    } else {
+                        lock.readLock().lock();
+                        try {
+                            map.get(key);
+                        } finally {
+                            lock.readLock().unlock();
+                        }
+                    }
+                }
+            });
+
+            System.out.printf("%2d threads, 80%% reads: ConcurrentSkipListMap %.1f Mops/s, Map + ReadWriteLock %.1f Mops/s%n",
+                    threads, totalOperations * 1000.0 / skipListNanos, totalOperations * 1000.0 / lockedNanos);
+        }
+    }
+}
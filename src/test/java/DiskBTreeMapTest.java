@@ -0,0 +1,94 @@
+import btreemap.DiskBTreeMap;
+import btreemap.Pair;
+import hashmap.Codec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+
+class DiskBTreeMapTest {
+
+    @Test
+    @DisplayName("Should be true")
+    void DiskBTreeMap_test_0() {
+    }
+
+    @Test
+    @DisplayName("Small pages and a small buffer pool: random operations match TreeMap")
+    void DiskBTreeMap_put_0(@TempDir Path directory) throws IOException {
+        Random random = new Random(22);
+        TreeMap<Integer, Long> expected = new TreeMap<>();
+        try (DiskBTreeMap<Integer, Long> map = DiskBTreeMap.open(directory.resolve("tree.bin"), Codec.INT, Codec.LONG, 128, 4)) {
+            for (int i = 0; i < 30000; i++) {
+                int key = random.nextInt(10000);
+                int operation = random.nextInt(10);
+                if (operation == 0) {
+                    Assertions.assertEquals(expected.remove(key), map.remove(key));
+                } else if (operation == 1) {
+                    map.replace(key, -1L);
+                    expected.computeIfPresent(key, (k, v) -> -1L);
+                } else {
+                    map.put(key, (long) i);
+                    expected.putIfAbsent(key, (long) i);
+                }
+            }
+            Assertions.assertEquals(expected.size(), map.size());
+            Assertions.assertTrue(map.height() > 3);
+            for (int key = -1; key <= 10000; key++) {
+                Assertions.assertEquals(expected.get(key), map.get(key));
+            }
+
+            List<Integer> keys = new ArrayList<>();
+            for (Pair<Integer, Long> pair : map.range(2500, 5000)) {
+                keys.add(pair.getFirst());
+                Assertions.assertEquals(expected.get(pair.getFirst()), pair.getSecond());
+            }
+            Assertions.assertEquals(new ArrayList<>(expected.subMap(2500, 5000).keySet()), keys);
+
+            List<Integer> all = new ArrayList<>();
+            map.forEach((key, value) -> all.add(key));
+            Assertions.assertEquals(new ArrayList<>(expected.keySet()), all);
+        }
+    }
+
+    @Test
+    @DisplayName("Reopened file is usable without rebuild and keeps all pairs")
+    void DiskBTreeMap_file_0(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("tree.bin");
+        try (DiskBTreeMap<String, Integer> map = DiskBTreeMap.open(path, Codec.string(16), Codec.INT)) {
+            for (int i = 0; i < 20000; i++) {
+                map.put("key-" + i, i);
+            }
+            map.remove("key-0");
+        }
+
+        try (DiskBTreeMap<String, Integer> map = DiskBTreeMap.open(path, Codec.string(16), Codec.INT, 4096, 16)) {
+            Assertions.assertEquals(0, map.getPageReads());
+            Assertions.assertEquals(19999, map.size());
+            Assertions.assertEquals(123, map.get("key-123"));
+            Assertions.assertNull(map.get("key-0"));
+            Assertions.assertTrue(map.getPageReads() <= 2L * map.height()); // Two lookups, no full scan
+            map.put("key-0", -1);
+        }
+
+        try (DiskBTreeMap<String, Integer> map = DiskBTreeMap.open(path, Codec.string(16), Codec.INT)) {
+            Assertions.assertEquals(20000, map.size());
+            Assertions.assertEquals(-1, map.get("key-0"));
+            int[] count = new int[1];
+            map.forEach((key, value) -> {
+                Assertions.assertEquals("key-" + value, value == -1 ? "key--1" : key);
+                count[0]++;
+            });
+            Assertions.assertEquals(20000, count[0]);
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> DiskBTreeMap.open(path, Codec.INT, Codec.INT));
+    }
+}
@@ -1,8 +1,21 @@
 import hashmap.HashMap;
+import hashmap.HashMapStatistics;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
 
 class HashMapTest {
 
@@ -136,4 +149,492 @@ class HashMapTest {
         Assertions.assertEquals(7, hashMap.getSize());
         Assertions.assertEquals(7, hashMap.getAllNodes().size());
     }
+
+    @Test
+    @DisplayName("Negative hash codes")
+    void HashMap_put_4() {
+        HashMap<Integer, String> hashMap = new HashMap<>(3);
+        for (int i = -1000; i < 0; i++) {
+            hashMap.put(i, Integer.toString(i));
+        }
+
+        Assertions.assertEquals(1000, hashMap.getSize());
+        Assertions.assertEquals("-500", hashMap.get(-500));
+    }
+
+    @Test
+    @DisplayName("Duplicate of the last node in bucket is not added twice")
+    void HashMap_put_5() {
+        HashMap<Integer, String> hashMap = new HashMap<>(1000f, 1);
+        hashMap.put(1, "1");
+        hashMap.put(2, "2");
+        hashMap.put(3, "3");
+        hashMap.put(3, "33");
+
+        Assertions.assertEquals(3, hashMap.getSize());
+        Assertions.assertEquals("33", hashMap.get(3));
+        Assertions.assertEquals(3, hashMap.getAllNodes().size());
+    }
+
+    @Test
+    @DisplayName("Incremental rehashing keeps all keys reachable during migration")
+    void HashMap_incrementalRehashing_0() {
+        HashMap<Integer, String> hashMap = new HashMap<>(1.0f, 16);
+        hashMap.setIncrementalRehashing(true);
+        boolean migrationSeen = false;
+        for (int i = 0; i < 10000; i++) {
+            hashMap.put(i, Integer.toString(i));
+            migrationSeen |= hashMap.isRehashing();
+            if (i % 7 == 0) {
+                Assertions.assertEquals(Integer.toString(i / 2), hashMap.get(i / 2));
+            }
+        }
+
+        Assertions.assertTrue(migrationSeen);
+        Assertions.assertEquals(10000, hashMap.getSize());
+        Assertions.assertEquals(10000, hashMap.getAllNodes().size());
+        for (int i = 0; i < 10000; i += 3) {
+            Assertions.assertTrue(hashMap.remove(i));
+        }
+        Assertions.assertFalse(hashMap.remove(0));
+        for (int i = 0; i < 10000; i++) {
+            Assertions.assertEquals(i % 3 != 0, hashMap.isContain(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Disabling incremental rehashing finishes migration at once")
+    void HashMap_incrementalRehashing_1() {
+        HashMap<Integer, String> hashMap = new HashMap<>(1.0f, 1000);
+        hashMap.setIncrementalRehashing(true);
+        for (int i = 0; i <= 1000; i++) {
+            hashMap.put(i, Integer.toString(i));
+        }
+
+        Assertions.assertTrue(hashMap.isRehashing());
+        hashMap.setIncrementalRehashing(false);
+        Assertions.assertFalse(hashMap.isRehashing());
+        Assertions.assertEquals(1001, hashMap.getAllNodes().size());
+        Assertions.assertEquals("1000", hashMap.get(1000));
+    }
+
+    @Test
+    @DisplayName("Key with null value is contained and removable")
+    void HashMap_isContain_0() {
+        HashMap<Integer, String> hashMap = new HashMap<>(1000f, 4);
+        for (int i = 0; i < 20; i++) {
+            hashMap.put(i, i % 2 == 0 ? null : Integer.toString(i));
+        }
+
+        Assertions.assertTrue(hashMap.isContain(4));
+        Assertions.assertNull(hashMap.getOrNull(4));
+        Assertions.assertNull(hashMap.get(4));
+        Assertions.assertFalse(hashMap.isContain(20));
+        Assertions.assertTrue(hashMap.remove(4));
+        Assertions.assertFalse(hashMap.remove(4));
+        Assertions.assertFalse(hashMap.remove(20));
+        Assertions.assertEquals(19, hashMap.getSize());
+    }
+
+    @Test
+    @DisplayName("Misses in 'getOrNull', 'isContain' and 'remove' do not allocate; hit and miss timings are printed")
+    void HashMap_getOrNull_0() {
+        HashMap<Integer, String> hashMap = new HashMap<>();
+        Integer[] presentKeys = new Integer[1000];
+        Integer[] missingKeys = new Integer[1000];
+        for (int i = 0; i < 1000; i++) {
+            hashMap.put(i, Integer.toString(i));
+            presentKeys[i] = i;
+            missingKeys[i] = -i - 1;
+        }
+
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        int misses = 0;
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int round = 0; round < 100; round++) {
+            for (Integer key : missingKeys) {
+                if (hashMap.getOrNull(key) == null && !hashMap.isContain(key) && !hashMap.remove(key)) {
+                    misses++;
+                }
+            }
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        Assertions.assertEquals(100000, misses);
+        // An exception per miss would take tens of megabytes here
+        Assertions.assertTrue(allocated < 1_000_000, "Allocated " + allocated + " bytes on misses");
+
+        // Benchmark only: best of several rounds, after the loops above have warmed up both paths
+        double hitNanos = Double.MAX_VALUE;
+        double missNanos = Double.MAX_VALUE;
+        int found = 0;
+        for (int round = 0; round < 20; round++) {
+            long start = System.nanoTime();
+            for (int repeat = 0; repeat < 100; repeat++) {
+                for (Integer key : presentKeys) {
+                    if (hashMap.getOrNull(key) != null) {
+                        found++;
+                    }
+                }
+            }
+            hitNanos = Math.min(hitNanos, (System.nanoTime() - start) / 100000.0);
+            start = System.nanoTime();
+            for (int repeat = 0; repeat < 100; repeat++) {
+                for (Integer key : missingKeys) {
+                    if (hashMap.getOrNull(key) != null) {
+                        found++;
+                    }
+                }
+            }
+            missNanos = Math.min(missNanos, (System.nanoTime() - start) / 100000.0);
+        }
+        System.out.printf("getOrNull: hit %.1f ns, miss %.1f ns%n", hitNanos, missNanos);
+        Assertions.assertEquals(20 * 100000, found);
+    }
+
+    @Test
+    @DisplayName("'forEach', iterators and 'for' loop visit every pair once")
+    void HashMap_iteration_0() {
+        HashMap<Integer, Integer> hashMap = new HashMap<>(1.0f, 4);
+        hashMap.setIncrementalRehashing(true);
+        for (int i = 0; i < 1000; i++) {
+            hashMap.put(i, i * 2);
+        }
+
+        long[] sums = new long[2];
+        hashMap.forEach((key, value) -> {
+            sums[0] += key;
+            sums[1] += value;
+        });
+        Assertions.assertEquals(499500, sums[0]);
+        Assertions.assertEquals(999000, sums[1]);
+
+        long keySum = 0;
+        for (Iterator<Integer> keys = hashMap.keyIterator(); keys.hasNext(); ) {
+            keySum += keys.next();
+        }
+        long valueSum = 0;
+        for (Iterator<Integer> values = hashMap.valueIterator(); values.hasNext(); ) {
+            valueSum += values.next();
+        }
+        int count = 0;
+        for (Map.Entry<Integer, Integer> entry : hashMap) {
+            Assertions.assertEquals(entry.getKey() * 2, entry.getValue());
+            entry.setValue(-1);
+            count++;
+        }
+        Assertions.assertEquals(499500, keySum);
+        Assertions.assertEquals(999000, valueSum);
+        Assertions.assertEquals(1000, count);
+        Assertions.assertEquals(-1, hashMap.get(500));
+    }
+
+    @Test
+    @DisplayName("Iterators are fail-fast, but 'Iterator.remove' is allowed")
+    void HashMap_iteration_1() {
+        HashMap<Integer, String> hashMap = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            hashMap.put(i, Integer.toString(i));
+        }
+
+        Iterator<Map.Entry<Integer, String>> iterator = hashMap.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getKey() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        Assertions.assertEquals(50, hashMap.getSize());
+        Assertions.assertFalse(hashMap.isContain(10));
+
+        Iterator<Integer> keys = hashMap.keyIterator();
+        keys.next();
+        hashMap.put(1000, "1000");
+        Assertions.assertThrows(ConcurrentModificationException.class, keys::next);
+        Assertions.assertThrows(ConcurrentModificationException.class,
+                () -> hashMap.forEach((key, value) -> hashMap.remove(key)));
+    }
+
+    @Test
+    @DisplayName("'Iterator.remove' and 'setValue' in a tree bucket: every pair is visited, kept pairs are updated")
+    void HashMap_iteration_2() {
+        // 128 keys with one hash code make one tree bucket; removals shrink it below the untreeify size
+        List<String> keys = collidingStrings(7);
+        Random random = new Random(7);
+        for (int trial = 0; trial < 500; trial++) {
+            Collections.shuffle(keys, random);
+            HashMap<String, Integer> hashMap = new HashMap<>();
+            for (String key : keys) {
+                hashMap.put(key, 0);
+            }
+
+            Set<String> kept = new HashSet<>();
+            int visited = 0;
+            Iterator<Map.Entry<String, Integer>> iterator = hashMap.iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Integer> entry = iterator.next();
+                visited++;
+                if (random.nextInt(4) != 0) {
+                    iterator.remove();
+                } else {
+                    entry.setValue(1);
+                    kept.add(entry.getKey());
+                }
+            }
+
+            Assertions.assertEquals(keys.size(), visited);
+            Assertions.assertEquals(kept.size(), hashMap.getSize());
+            for (String key : keys) {
+                Assertions.assertEquals(kept.contains(key) ? 1 : null, hashMap.getOrNull(key));
+            }
+            hashMap.put(keys.get(0), 2);
+            Assertions.assertEquals(2, hashMap.getOrNull(keys.get(0)));
+        }
+    }
+
+    @Test
+    @DisplayName("'putAll' and 'removeIf'")
+    void HashMap_bulk_0() {
+        HashMap<Integer, String> first = new HashMap<>();
+        HashMap<Integer, String> second = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            first.put(i, "first");
+            second.put(i + 50, "second");
+        }
+
+        first.putAll(second);
+        Assertions.assertEquals(150, first.getSize());
+        Assertions.assertEquals("first", first.get(49));
+        Assertions.assertEquals("second", first.get(50));
+
+        Assertions.assertTrue(first.removeIf((key, value) -> value.equals("second") || key % 10 == 0));
+        Assertions.assertFalse(first.removeIf((key, value) -> key > 1000));
+        Assertions.assertEquals(45, first.getSize());
+        Assertions.assertEquals(45, first.getAllNodes().size());
+        Assertions.assertFalse(first.isContain(10));
+    }
+
+    @Test
+    @DisplayName("Sequential and parallel streams see the same pairs")
+    void HashMap_stream_0() {
+        HashMap<Integer, Integer> hashMap = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            hashMap.put(i, i % 7);
+        }
+
+        long sequential = hashMap.stream().mapToLong(Map.Entry::getValue).sum();
+        long parallel = hashMap.parallelStream().mapToLong(Map.Entry::getValue).sum();
+        long parallelKeys = hashMap.parallelStream().mapToLong(Map.Entry::getKey).sum();
+        Assertions.assertEquals(sequential, parallel);
+        Assertions.assertEquals(4999950000L, parallelKeys);
+        Assertions.assertEquals(100000, hashMap.parallelStream().count());
+    }
+
+    /**
+     * Строки из блоков "Aa" и "BB" имеют одинаковый хеш-код
+     */
+    private static List<String> collidingStrings(int blocks) {
+        List<String> result = new ArrayList<>();
+        for (int mask = 0; mask < (1 << blocks); mask++) {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < blocks; i++) {
+                builder.append((mask & (1 << i)) != 0 ? "BB" : "Aa");
+            }
+            result.add(builder.toString());
+        }
+        return result;
+    }
+
+    /**
+     * Среднее время поиска отсутствующих ключей после прогрева
+     * @return Наносекунды на поиск
+     */
+    private static double missNanos(HashMap<String, Integer> hashMap, List<String> misses) {
+        for (int round = 0; round < 20; round++) {
+            for (String miss : misses) {
+                Assertions.assertNull(hashMap.getOrNull(miss));
+            }
+        }
+        int rounds = 20;
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (String miss : misses) {
+                Assertions.assertNull(hashMap.getOrNull(miss));
+            }
+        }
+        return (double) (System.nanoTime() - start) / (rounds * misses.size());
+    }
+
+    @Test
+    @DisplayName("Collision attack: hits and misses in one bucket stay logarithmic, also after 'rehashing'")
+    void HashMap_treeify_0() {
+        // All strings have the same hash code; keys start with "Aa", misses with "BB"
+        List<String> strings = collidingStrings(15);
+        List<String> keys = new ArrayList<>();
+        List<String> misses = new ArrayList<>();
+        for (int i = 0; i < strings.size(); i++) {
+            (i % 2 == 0 ? keys : misses).add(strings.get(i));
+        }
+        Assertions.assertEquals(keys.get(0).hashCode(), misses.get(misses.size() - 1).hashCode());
+
+        HashMap<String, Integer> hashMap = new HashMap<>();
+        HashMap<String, Integer> smallMap = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            hashMap.put(keys.get(i), i);
+            if (i < 64) {
+                smallMap.put(keys.get(i), i);
+            }
+        }
+        Assertions.assertEquals(keys.size(), hashMap.getSize());
+        // Resize moves every bucket: the colliding keys must not end up in a plain list again
+        hashMap.rehashing();
+        hashMap.rehashing();
+        smallMap.rehashing();
+        smallMap.rehashing();
+        for (int i = 0; i < keys.size(); i++) {
+            Assertions.assertEquals(i, hashMap.get(keys.get(i)));
+        }
+
+        // A list would look through all 16384 keys on a miss, a red-black tree - through at most 2 * log2(n + 1)
+        hashMap.setStatisticsEnabled(true);
+        for (String miss : misses.subList(0, 1024)) {
+            Assertions.assertNull(hashMap.getOrNull(miss));
+        }
+        HashMapStatistics statistics = hashMap.getStatistics();
+        Assertions.assertEquals(1, statistics.getTreeBucketCount());
+        Assertions.assertEquals(1024, statistics.getMissCount());
+        Assertions.assertTrue(statistics.getAverageProbesPerMiss() <= 2 * 15,
+                "Miss looks through " + statistics.getAverageProbesPerMiss() + " nodes");
+        hashMap.setStatisticsEnabled(false);
+
+        double smallNanos = missNanos(smallMap, misses.subList(0, 1024));
+        double largeNanos = missNanos(hashMap, misses.subList(0, 1024));
+        System.out.printf("HashMap: miss among %d colliding keys after rehashing: %.1f ns, among 64 keys: %.1f ns%n",
+                keys.size(), largeNanos, smallNanos);
+
+        for (int i = 0; i < keys.size(); i += 2) {
+            Assertions.assertTrue(hashMap.remove(keys.get(i)));
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            Assertions.assertEquals(i % 2 == 1, hashMap.isContain(keys.get(i)));
+        }
+        int count = 0;
+        for (Map.Entry<String, Integer> ignored : hashMap) {
+            count++;
+        }
+        Assertions.assertEquals(keys.size() / 2, count);
+    }
+
+    /**
+     * Ключ без {@link Comparable} с управляемым хеш-кодом
+     */
+    private static final class CollidingKey {
+        private final int id;
+        private final int hash;
+
+        CollidingKey(int id, int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CollidingKey && ((CollidingKey) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    @Test
+    @DisplayName("Tree buckets with non-comparable keys: random operations compared with java.util.HashMap")
+    void HashMap_treeify_1() {
+        HashMap<CollidingKey, Integer> hashMap = new HashMap<>(4.0f, 4);
+        hashMap.setIncrementalRehashing(true);
+        java.util.HashMap<Integer, Integer> expected = new java.util.HashMap<>();
+        for (int i = 0; i < 200000; i++) {
+            int id = Utils.getRandom(0, 2000);
+            CollidingKey key = new CollidingKey(id, id % 3);
+            int operation = Utils.getRandom(0, 3);
+            if (operation == 0) {
+                Assertions.assertEquals(expected.remove(id) != null, hashMap.remove(key));
+            } else if (operation == 1) {
+                Assertions.assertEquals(expected.get(id), hashMap.getOrNull(key));
+            } else {
+                hashMap.put(key, i);
+                expected.put(id, i);
+            }
+        }
+        Assertions.assertEquals(expected.size(), hashMap.getSize());
+
+        hashMap.removeIf((key, value) -> key.id % 2 == 0);
+        expected.keySet().removeIf(id -> id % 2 == 0);
+        Assertions.assertEquals(expected.size(), hashMap.getSize());
+        for (int id = 0; id < 2000; id++) {
+            Assertions.assertEquals(expected.get(id), hashMap.getOrNull(new CollidingKey(id, id % 3)));
+        }
+        hashMap.forEach((key, value) -> Assertions.assertEquals(expected.get(key.id), value));
+    }
+
+    @Test
+    @DisplayName("Statistics: probes, resizes and bucket histogram")
+    void HashMap_statistics_0() {
+        HashMap<Integer, Integer> hashMap = new HashMap<>();
+        Assertions.assertFalse(hashMap.isStatisticsEnabled());
+        hashMap.setStatisticsEnabled(true);
+        for (int i = 0; i < 10000; i++) {
+            hashMap.put(i, i);
+        }
+        for (int i = 0; i < 20000; i++) {
+            hashMap.getOrNull(i);
+        }
+
+        HashMapStatistics statistics = hashMap.getStatistics();
+        Assertions.assertEquals(10000, statistics.getHitCount());
+        Assertions.assertEquals(10000, statistics.getMissCount());
+        Assertions.assertTrue(statistics.getAverageProbesPerHit() >= 1.0);
+        Assertions.assertTrue(statistics.getAverageProbesPerHit() <= statistics.getMaxChainLength());
+        Assertions.assertTrue(statistics.getResizeCount() > 0);
+        Assertions.assertTrue(statistics.getResizeTimeNanos() > 0);
+        Assertions.assertTrue(statistics.getAllocatedBytes() > 10000L * 16);
+
+        int[] histogram = statistics.getBucketLengthHistogram();
+        int buckets = 0;
+        int nodes = 0;
+        for (int length = 0; length < histogram.length; length++) {
+            buckets += histogram[length];
+            nodes += length * histogram[length];
+        }
+        Assertions.assertEquals(statistics.getBucketCount(), buckets);
+        Assertions.assertEquals(10000, nodes);
+        Assertions.assertTrue(histogram[statistics.getMaxChainLength()] > 0);
+
+        hashMap.setStatisticsEnabled(false);
+        hashMap.getOrNull(1);
+        Assertions.assertEquals(0, hashMap.getStatistics().getHitCount());
+        Assertions.assertEquals(10000, hashMap.getStatistics().getSize());
+    }
+
+    @Test
+    @DisplayName("Statistics: collisions show up as a long tree bucket")
+    void HashMap_statistics_1() {
+        HashMap<String, Integer> hashMap = new HashMap<>();
+        hashMap.setStatisticsEnabled(true);
+        List<String> keys = collidingStrings(10);
+        for (String key : keys) {
+            hashMap.put(key, 0);
+        }
+        for (String key : keys) {
+            Assertions.assertTrue(hashMap.isContain(key));
+        }
+        Assertions.assertFalse(hashMap.isContain("AaAaAaAaAaAaAaAaAaAB"));
+
+        HashMapStatistics statistics = hashMap.getStatistics();
+        Assertions.assertEquals(keys.size(), statistics.getMaxChainLength());
+        Assertions.assertEquals(1, statistics.getTreeBucketCount());
+        Assertions.assertTrue(statistics.getAverageProbesPerHit() < 20);
+        Assertions.assertEquals(1, statistics.getMissCount());
+    }
 }
@@ -1,9 +1,14 @@
 import map.Map;
+import map.Pair;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
 class MapTest {
 
     // Prepared map with 1.000.000  random generated elements and one guaranteed pair key-value (100-100)
@@ -158,4 +163,85 @@ class MapTest {
         Assertions.assertEquals(100, sharedMap.get(100));
     }
 
+    @Test
+    @DisplayName("Navigation on empty map returns null")
+    void Map_Navigation_0() {
+        Map<Integer, Integer> map = new Map<>();
+        Assertions.assertNull(map.firstKey());
+        Assertions.assertNull(map.lastKey());
+        Assertions.assertNull(map.floorKey(1));
+        Assertions.assertNull(map.ceilingKey(1));
+        Assertions.assertNull(map.lowerKey(1));
+        Assertions.assertNull(map.higherKey(1));
+        Assertions.assertFalse(map.subMap(0, 10).iterator().hasNext());
+    }
+
+    @Test
+    @DisplayName("floor/ceiling/lower/higher compared with TreeMap")
+    void Map_Navigation_1() {
+        Map<Integer, Integer> map = new Map<>();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < 10000; i++) {
+            int key = Utils.getRandom(-50000, 50000);
+            map.put(key, i);
+            expected.putIfAbsent(key, i);
+        }
+
+        Assertions.assertEquals(expected.firstKey(), map.firstKey());
+        Assertions.assertEquals(expected.lastKey(), map.lastKey());
+        for (int key = -51000; key < 51000; key += 7) {
+            Assertions.assertEquals(expected.floorKey(key), map.floorKey(key));
+            Assertions.assertEquals(expected.ceilingKey(key), map.ceilingKey(key));
+            Assertions.assertEquals(expected.lowerKey(key), map.lowerKey(key));
+            Assertions.assertEquals(expected.higherKey(key), map.higherKey(key));
+        }
+    }
+
+    @Test
+    @DisplayName("'subMap' iterates half-open range in order")
+    void Map_SubMap_0() {
+        Map<Integer, String> map = new Map<>();
+        for (int i = 0; i < 1000; i += 2) {
+            map.put(i, Integer.toString(i));
+        }
+
+        int expectedKey = 100;
+        for (Pair<Integer, String> pair : map.subMap(99, 200)) {
+            Assertions.assertEquals(expectedKey, pair.getFirst());
+            Assertions.assertEquals(Integer.toString(expectedKey), pair.getSecond());
+            expectedKey += 2;
+        }
+        Assertions.assertEquals(200, expectedKey);
+
+        Iterable<Pair<Integer, String>> range = map.subMap(10, 12);
+        for (int round = 0; round < 2; round++) {
+            Iterator<Pair<Integer, String>> iterator = range.iterator();
+            Assertions.assertEquals(10, iterator.next().getFirst());
+            Assertions.assertFalse(iterator.hasNext());
+            Assertions.assertThrows(NoSuchElementException.class, iterator::next);
+        }
+        Assertions.assertFalse(map.subMap(5000, 6000).iterator().hasNext());
+        Assertions.assertFalse(map.subMap(20, 20).iterator().hasNext());
+    }
+
+    @Test
+    @DisplayName("'subMap' on random keys compared with TreeMap")
+    void Map_SubMap_1() {
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        Map<Integer, Integer> map = new Map<>();
+        for (int i = 0; i < 100000; i++) {
+            int key = Utils.getRandom(0, 1000000);
+            map.put(key, key);
+            expected.put(key, key);
+        }
+        for (int round = 0; round < 100; round++) {
+            int from = Utils.getRandom(0, 1000000);
+            int to = from + Utils.getRandom(0, 50000);
+            Iterator<Integer> expectedKeys = expected.subMap(from, to).keySet().iterator();
+            for (Pair<Integer, Integer> pair : map.subMap(from, to)) {
+                Assertions.assertEquals(expectedKeys.next(), pair.getFirst());
+            }
+            Assertions.assertFalse(expectedKeys.hasNext());
+        }
+    }
 }
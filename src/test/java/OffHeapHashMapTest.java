@@ -0,0 +1,86 @@
+import hashmap.Codec;
+import hashmap.OffHeapHashMap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+
+class OffHeapHashMapTest {
+
+    @Test
+    @DisplayName("Should be true")
+    void OffHeapHashMap_test_0() {
+    }
+
+    @Test
+    @DisplayName("Put, rewrite and get with fixed-width codecs")
+    void OffHeapHashMap_put_0() {
+        OffHeapHashMap<Integer, Long> hashMap = new OffHeapHashMap<>(Codec.INT, Codec.LONG, 0.5f, 2);
+        for (int i = -5000; i < 5000; i++) {
+            hashMap.put(i, (long) i * i);
+        }
+        hashMap.put(7, -1L);
+        hashMap.putIfNotExist(8, -1L);
+
+        Assertions.assertEquals(10000, hashMap.getSize());
+        Assertions.assertEquals(-1L, hashMap.get(7));
+        Assertions.assertEquals(64L, hashMap.get(8));
+        Assertions.assertEquals(25000000L, hashMap.get(-5000));
+        Assertions.assertNull(hashMap.getOrNull(5000));
+        Assertions.assertThrows(RuntimeException.class, () -> hashMap.get(5000));
+        Assertions.assertTrue(hashMap.getActualLoad() <= hashMap.getInitLoad());
+    }
+
+    @Test
+    @DisplayName("String keys, random puts and removes compared with java.util.HashMap")
+    void OffHeapHashMap_remove_0() {
+        OffHeapHashMap<String, Integer> hashMap = new OffHeapHashMap<>(Codec.string(12), Codec.INT, 0.9f, 16);
+        Map<String, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 50000; i++) {
+            String key = "key-" + Utils.getRandom(0, 1500);
+            if (Utils.getRandom(0, 3) == 0) {
+                Assertions.assertEquals(expected.remove(key) != null, hashMap.remove(key));
+            } else {
+                hashMap.put(key, i);
+                expected.put(key, i);
+            }
+        }
+
+        Assertions.assertEquals(expected.size(), hashMap.getSize());
+        for (int i = 0; i < 1500; i++) {
+            Assertions.assertEquals(expected.get("key-" + i), hashMap.getOrNull("key-" + i));
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> hashMap.put("too long string key", 1));
+    }
+
+    @Test
+    @DisplayName("File-backed map is usable after reopening")
+    void OffHeapHashMap_file_0(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("map.bin");
+        try (OffHeapHashMap<Long, Double> hashMap = OffHeapHashMap.open(file, Codec.LONG, Codec.DOUBLE)) {
+            for (long i = 0; i < 20000; i++) {
+                hashMap.put(i, i / 2.0);
+            }
+            hashMap.remove(10L);
+        }
+
+        try (OffHeapHashMap<Long, Double> hashMap = OffHeapHashMap.open(file, Codec.LONG, Codec.DOUBLE)) {
+            Assertions.assertEquals(19999, hashMap.getSize());
+            Assertions.assertEquals(5000.0, hashMap.get(10000L));
+            Assertions.assertFalse(hashMap.isContain(10L));
+            hashMap.put(10L, 1.0);
+        }
+
+        try (OffHeapHashMap<Long, Double> hashMap = OffHeapHashMap.open(file, Codec.LONG, Codec.DOUBLE)) {
+            Assertions.assertEquals(20000, hashMap.getSize());
+            Assertions.assertEquals(1.0, hashMap.get(10L));
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> OffHeapHashMap.open(file, Codec.INT, Codec.DOUBLE));
+    }
+}
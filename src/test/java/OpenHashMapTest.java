@@ -0,0 +1,112 @@
+import hashmap.OpenHashMap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+class OpenHashMapTest {
+
+    @Test
+    @DisplayName("Should be true")
+    void OpenHashMap_test_0() {
+    }
+
+    @Test
+    void OpenHashMap_constructor_0() {
+        OpenHashMap<Integer, String> hashMap0 = new OpenHashMap<>(10);
+        OpenHashMap<Integer, String> hashMap1 = new OpenHashMap<>(0.5f);
+        OpenHashMap<Integer, String> hashMap2 = new OpenHashMap<>(0.5f, 10);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new OpenHashMap<Integer, String>(2.0f));
+    }
+
+    @Test
+    void OpenHashMap_put_0() {
+        OpenHashMap<Integer, String> hashMap = new OpenHashMap<>();
+        for (int i = 1; i <= 9; i++) {
+            hashMap.put(i, Integer.toString(i));
+        }
+
+        Assertions.assertEquals(9, hashMap.getSize());
+        Assertions.assertEquals("2", hashMap.get(2));
+        Assertions.assertNull(hashMap.getOrNull(10));
+        Assertions.assertEquals(9, hashMap.getAllNodes().size());
+    }
+
+    @Test
+    @DisplayName("Rewrite and keep value of existing key")
+    void OpenHashMap_put_1() {
+        OpenHashMap<Integer, String> hashMap = new OpenHashMap<>();
+        for (int i = 1; i <= 9; i++) {
+            hashMap.put(1, Integer.toString(i));
+            hashMap.putIfNotExist(2, Integer.toString(i));
+        }
+
+        Assertions.assertEquals(2, hashMap.getSize());
+        Assertions.assertEquals("9", hashMap.get(1));
+        Assertions.assertEquals("1", hashMap.get(2));
+    }
+
+    @Test
+    @DisplayName("Growing table with negative keys")
+    void OpenHashMap_put_2() {
+        OpenHashMap<Integer, String> hashMap = new OpenHashMap<>(2);
+        for (int i = -5000; i < 5000; i++) {
+            hashMap.put(i, Integer.toString(i));
+        }
+
+        Assertions.assertEquals(10000, hashMap.getSize());
+        Assertions.assertEquals("-2022", hashMap.get(-2022));
+        Assertions.assertTrue(hashMap.getActualLoad() <= hashMap.getInitLoad());
+    }
+
+    @Test
+    @DisplayName("Missing key throws exception in 'get'")
+    void OpenHashMap_get_0() {
+        OpenHashMap<Integer, String> hashMap = new OpenHashMap<>();
+        hashMap.put(1, "1");
+        Assertions.assertThrows(RuntimeException.class, () -> hashMap.get(2));
+        Assertions.assertFalse(hashMap.isContain(2));
+        Assertions.assertTrue(hashMap.isContain(1));
+    }
+
+    @Test
+    @DisplayName("Backward-shift deletion keeps probe chains reachable")
+    void OpenHashMap_remove_0() {
+        OpenHashMap<Integer, Integer> hashMap = new OpenHashMap<>(0.9f, 16);
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            int key = Utils.getRandom(0, 2000);
+            if (Utils.getRandom(0, 3) == 0) {
+                Assertions.assertEquals(expected.remove(key) != null, hashMap.remove(key));
+            } else {
+                hashMap.put(key, i);
+                expected.put(key, i);
+            }
+        }
+
+        Assertions.assertEquals(expected.size(), hashMap.getSize());
+        for (int key = 0; key < 2000; key++) {
+            Assertions.assertEquals(expected.get(key), hashMap.getOrNull(key));
+        }
+    }
+
+    @Test
+    @DisplayName("Test load factor manipulation and forced rehashing")
+    void OpenHashMap_loadFactor_0() {
+        OpenHashMap<Integer, String> hashMap = new OpenHashMap<>(0.5f, 1024);
+        Assertions.assertEquals(0.5f, hashMap.getInitLoad());
+        Assertions.assertEquals(0f, hashMap.getActualLoad());
+        for (int i = 0; i < 10; i++) {
+            hashMap.put(i, Integer.toString(i));
+        }
+        hashMap.rehashing();
+        Assertions.assertTrue(hashMap.getActualLoad() > 0.1f);
+        hashMap.setLoadFactor(0.25f);
+        Assertions.assertEquals(0.25f, hashMap.getInitLoad());
+        Assertions.assertTrue(hashMap.getActualLoad() <= 0.25f);
+        Assertions.assertEquals("7", hashMap.get(7));
+    }
+}
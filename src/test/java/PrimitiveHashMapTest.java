@@ -0,0 +1,175 @@
+import hashmap.IntIntHashMap;
+import hashmap.IntObjectHashMap;
+import hashmap.LongLongHashMap;
+import hashmap.LongObjectHashMap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+class PrimitiveHashMapTest {
+
+    @Test
+    @DisplayName("Should be true")
+    void PrimitiveHashMap_test_0() {
+    }
+
+    @Test
+    @DisplayName("IntIntHashMap: put, get, rewrite and key 0")
+    void IntIntHashMap_put_0() {
+        IntIntHashMap hashMap = new IntIntHashMap(2);
+        for (int i = -1000; i <= 1000; i++) {
+            hashMap.put(i, i * 2);
+        }
+        hashMap.put(0, 7);
+        hashMap.putIfNotExist(5, 100);
+
+        Assertions.assertEquals(2001, hashMap.getSize());
+        Assertions.assertEquals(7, hashMap.get(0));
+        Assertions.assertEquals(10, hashMap.get(5));
+        Assertions.assertEquals(-2000, hashMap.get(-1000));
+        Assertions.assertEquals(-1, hashMap.getOrDefault(5000, -1));
+        Assertions.assertThrows(RuntimeException.class, () -> hashMap.get(5000));
+        Assertions.assertTrue(hashMap.getActualLoad() <= hashMap.getInitLoad());
+    }
+
+    @Test
+    @DisplayName("IntIntHashMap: 'addTo' counters")
+    void IntIntHashMap_addTo_0() {
+        IntIntHashMap counters = new IntIntHashMap();
+        for (int i = 0; i < 1000; i++) {
+            counters.addTo(i % 10, 1);
+        }
+
+        Assertions.assertEquals(10, counters.getSize());
+        for (int key = 0; key < 10; key++) {
+            Assertions.assertEquals(100, counters.get(key));
+        }
+    }
+
+    @Test
+    @DisplayName("IntIntHashMap: random puts and removes compared with java.util.HashMap")
+    void IntIntHashMap_remove_0() {
+        IntIntHashMap hashMap = new IntIntHashMap(0.9f, 2);
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            int key = Utils.getRandom(-1000, 1000);
+            if (Utils.getRandom(0, 3) == 0) {
+                Assertions.assertEquals(expected.remove(key) != null, hashMap.remove(key));
+            } else {
+                hashMap.put(key, i);
+                expected.put(key, i);
+            }
+        }
+
+        Assertions.assertEquals(expected.size(), hashMap.getSize());
+        for (int key = -1000; key < 1000; key++) {
+            Assertions.assertEquals(expected.containsKey(key), hashMap.isContain(key));
+            Assertions.assertEquals(expected.getOrDefault(key, -1), hashMap.getOrDefault(key, -1));
+        }
+    }
+
+    @Test
+    @DisplayName("IntIntHashMap: 'forEach' and cursor visit every pair once")
+    void IntIntHashMap_forEach_0() {
+        IntIntHashMap hashMap = new IntIntHashMap();
+        for (int i = 0; i < 100; i++) {
+            hashMap.put(i, i + 1);
+        }
+        long[] sums = new long[2];
+        hashMap.forEach((key, value) -> {
+            sums[0] += key;
+            sums[1] += value;
+        });
+        Assertions.assertEquals(4950, sums[0]);
+        Assertions.assertEquals(5050, sums[1]);
+
+        int count = 0;
+        long keySum = 0;
+        IntIntHashMap.Cursor cursor = hashMap.cursor();
+        while (cursor.next()) {
+            Assertions.assertEquals(cursor.key() + 1, cursor.value());
+            keySum += cursor.key();
+            count++;
+        }
+        Assertions.assertEquals(100, count);
+        Assertions.assertEquals(4950, keySum);
+
+        hashMap.clear();
+        Assertions.assertEquals(0, hashMap.getSize());
+        Assertions.assertFalse(hashMap.cursor().next());
+    }
+
+    @Test
+    @DisplayName("IntObjectHashMap: values, nulls and removal")
+    void IntObjectHashMap_put_0() {
+        IntObjectHashMap<String> hashMap = new IntObjectHashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            hashMap.put(i, Integer.toString(i));
+        }
+        Assertions.assertEquals("0", hashMap.get(0));
+        Assertions.assertEquals("9999", hashMap.getOrNull(9999));
+        Assertions.assertNull(hashMap.getOrNull(10000));
+        for (int i = 0; i < 10000; i += 2) {
+            Assertions.assertTrue(hashMap.remove(i));
+        }
+        Assertions.assertEquals(5000, hashMap.getSize());
+        Assertions.assertFalse(hashMap.isContain(0));
+        Assertions.assertEquals("1", hashMap.get(1));
+
+        int[] count = new int[1];
+        hashMap.forEach((key, value) -> {
+            Assertions.assertEquals(Integer.toString(key), value);
+            count[0]++;
+        });
+        Assertions.assertEquals(5000, count[0]);
+    }
+
+    @Test
+    @DisplayName("LongLongHashMap: keys beyond int range")
+    void LongLongHashMap_put_0() {
+        LongLongHashMap hashMap = new LongLongHashMap();
+        for (long i = 0; i < 10000; i++) {
+            hashMap.put(i << 32, i);
+        }
+        hashMap.addTo(1L << 32, 10);
+
+        Assertions.assertEquals(10000, hashMap.getSize());
+        Assertions.assertEquals(0, hashMap.get(0));
+        Assertions.assertEquals(11, hashMap.get(1L << 32));
+        Assertions.assertEquals(9999, hashMap.get(9999L << 32));
+        Assertions.assertFalse(hashMap.isContain(1));
+        Assertions.assertTrue(hashMap.remove(0));
+        Assertions.assertFalse(hashMap.remove(0));
+
+        LongLongHashMap.Cursor cursor = hashMap.cursor();
+        int count = 0;
+        while (cursor.next()) {
+            Assertions.assertEquals(cursor.key() >>> 32, cursor.value() - (cursor.key() == 1L << 32 ? 10 : 0));
+            count++;
+        }
+        Assertions.assertEquals(9999, count);
+    }
+
+    @Test
+    @DisplayName("LongObjectHashMap: put, rewrite and remove")
+    void LongObjectHashMap_put_0() {
+        LongObjectHashMap<String> hashMap = new LongObjectHashMap<>(0.5f, 4);
+        hashMap.put(Long.MAX_VALUE, "max");
+        hashMap.put(Long.MIN_VALUE, "min");
+        hashMap.put(0, "zero");
+        hashMap.putIfNotExist(0, "other");
+        hashMap.put(Long.MIN_VALUE, "MIN");
+
+        Assertions.assertEquals(3, hashMap.getSize());
+        Assertions.assertEquals("max", hashMap.get(Long.MAX_VALUE));
+        Assertions.assertEquals("MIN", hashMap.get(Long.MIN_VALUE));
+        Assertions.assertEquals("zero", hashMap.get(0));
+        Assertions.assertTrue(hashMap.remove(Long.MAX_VALUE));
+        Assertions.assertNull(hashMap.getOrNull(Long.MAX_VALUE));
+        Assertions.assertEquals(2, hashMap.getSize());
+    }
+}
@@ -0,0 +1,133 @@
+import map.IntMap;
+import map.LongMap;
+import map.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+
+
+class PrimitiveMapTest {
+
+    @Test
+    @DisplayName("Should be true")
+    void PrimitiveMap_test_0() {
+    }
+
+    @Test
+    @DisplayName("IntMap: random puts and removes match TreeMap")
+    void IntMap_put_0() {
+        Random random = new Random(5);
+        IntMap<String> map = new IntMap<>(2);
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        Assertions.assertThrows(NoSuchElementException.class, map::firstKey);
+        for (int i = 0; i < 30000; i++) {
+            int key = random.nextInt(2000) - 1000;
+            if (random.nextInt(3) == 0) {
+                Assertions.assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                map.put(key, Integer.toString(i));
+                expected.putIfAbsent(key, Integer.toString(i));
+            }
+        }
+        Assertions.assertEquals(expected.size(), map.size());
+        Assertions.assertEquals(expected.firstKey(), map.firstKey());
+        Assertions.assertEquals(expected.lastKey(), map.lastKey());
+        for (int key = -1001; key <= 1000; key++) {
+            Assertions.assertEquals(expected.get(key), map.get(key));
+            Assertions.assertEquals(expected.containsKey(key), map.containsKey(key));
+        }
+
+        List<Integer> keys = new ArrayList<>();
+        map.forEach((key, value) -> {
+            keys.add(key);
+            Assertions.assertEquals(expected.get(key), value);
+        });
+        Assertions.assertEquals(new ArrayList<>(expected.keySet()), keys);
+
+        map.clear();
+        Assertions.assertTrue(map.isEmpty());
+        Assertions.assertNull(map.get(expected.firstKey()));
+    }
+
+    @Test
+    @DisplayName("LongMap: keys beyond int range, negative keys and value is not overwritten")
+    void LongMap_put_0() {
+        LongMap<Integer> map = new LongMap<>();
+        long[] keys = {Long.MIN_VALUE, -1L << 40, -1, 0, 1, 1L << 40, Long.MAX_VALUE};
+        for (int i = keys.length - 1; i >= 0; i--) {
+            map.put(keys[i], i);
+        }
+        map.put(0, 100);
+
+        Assertions.assertEquals(keys.length, map.size());
+        Assertions.assertEquals(3, map.get(0));
+        Assertions.assertNull(map.get(1L << 41));
+        Assertions.assertEquals(Long.MIN_VALUE, map.firstKey());
+        Assertions.assertEquals(Long.MAX_VALUE, map.lastKey());
+        List<Long> ordered = new ArrayList<>();
+        map.forEach((key, value) -> ordered.add(key));
+        for (int i = 0; i < keys.length; i++) {
+            Assertions.assertEquals(keys[i], ordered.get(i));
+        }
+        Assertions.assertEquals(6, map.remove(Long.MAX_VALUE));
+        Assertions.assertNull(map.remove(Long.MAX_VALUE));
+        Assertions.assertEquals(1L << 40, map.lastKey());
+    }
+
+    @Test
+    @DisplayName("Benchmark: Map with Integer and String keys compared with IntMap")
+    void PrimitiveMap_benchmark_0() {
+        int count = 1 << 18;
+        Random random = new Random(1);
+        int[] keys = new int[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = random.nextInt();
+        }
+
+        for (int round = 0; round < 2; round++) {
+            Map<Integer, Integer> boxed = new Map<>();
+            long start = System.nanoTime();
+            for (int key : keys) {
+                boxed.put(key, key);
+            }
+            for (int key : keys) {
+                boxed.get(key);
+            }
+            long boxedNanos = System.nanoTime() - start;
+
+            Map<String, Integer> strings = new Map<>();
+            String[] stringKeys = new String[count];
+            for (int i = 0; i < count; i++) {
+                stringKeys[i] = "key-" + keys[i];
+            }
+            start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                strings.put(stringKeys[i], i);
+            }
+            for (String key : stringKeys) {
+                strings.get(key);
+            }
+            long stringNanos = System.nanoTime() - start;
+
+            IntMap<Integer> primitive = new IntMap<>();
+            start = System.nanoTime();
+            for (int key : keys) {
+                primitive.put(key, key);
+            }
+            for (int key : keys) {
+                primitive.get(key);
+            }
+            long primitiveNanos = System.nanoTime() - start;
+
+            System.out.printf("%d puts and gets: Map<Integer> %d ms, Map<String> %d ms, IntMap %d ms%n",
+                    count, boxedNanos / 1000000, stringNanos / 1000000, primitiveNanos / 1000000);
+            Assertions.assertEquals(boxed.size(), primitive.size());
+        }
+    }
+}
@@ -1,4 +1,10 @@
+import org.junit.jupiter.api.Assertions;
+
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.IntConsumer;
 
 /**
  * Класс с различными функциями и генераторами для проведения тестирования функций.
@@ -18,6 +24,44 @@ public class Utils {
     }
 
 
+    /**
+     * Запускает {@code action} в {@code threadCount} потоках одновременно и ждет их завершения.
+     * Исключения из потоков пробрасываются в тест.
+     * @param threadCount Количество потоков
+     * @param action Действие, получающее номер потока
+     * @return Время работы в наносекундах
+     */
+    public static long runConcurrently(int threadCount, IntConsumer action) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            int threadNumber = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    action.accept(threadNumber);
+                } catch (Throwable ex) {
+                    synchronized (errors) {
+                        errors.add(ex);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+        if (!errors.isEmpty()) {
+            Assertions.fail(errors.get(0));
+        }
+        return elapsed;
+    }
+
     static class TestCases {
         String string;
         String pattern;
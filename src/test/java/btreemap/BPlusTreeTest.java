@@ -0,0 +1,88 @@
+package btreemap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Тесты, которым нужен доступ к внутреннему устройству B+-дерева (проверка его свойств)
+ */
+class BPlusTreeTest {
+
+    @Test
+    @DisplayName("Random inserts keep B+-tree invariants for any tree parameter")
+    void BPlusTree_add_0() {
+        for (int t = 1; t <= 8; t++) {
+            Random random = new Random(t);
+            BPlusTree<Integer, Integer> tree = new BPlusTree<>(t);
+            TreeMap<Integer, Integer> expected = new TreeMap<>();
+            tree.checkInvariants();
+            for (int i = 0; i < 3000; i++) {
+                int key = random.nextInt(4000);
+                Assertions.assertEquals(!expected.containsKey(key), tree.add(key, i));
+                expected.putIfAbsent(key, i);
+                if (i % 50 == 0) {
+                    tree.checkInvariants();
+                }
+            }
+            tree.checkInvariants();
+            Assertions.assertEquals(expected.size(), tree.size());
+            for (int key = 0; key < 4000; key++) {
+                Assertions.assertEquals(expected.get(key), tree.get(key));
+                Assertions.assertEquals(expected.containsKey(key), tree.contains(key));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Ascending inserts: height grows logarithmically, clear resets the tree")
+    void BPlusTree_add_1() {
+        BPlusTree<Integer, String> tree = new BPlusTree<>(2);
+        for (int i = 0; i < 10000; i++) {
+            tree.add(i, Integer.toString(i));
+        }
+        tree.checkInvariants();
+        Assertions.assertTrue(tree.height() <= 1 + (int) Math.ceil(Math.log(10000) / Math.log(3)));
+        Assertions.assertTrue(tree.set(5, "five"));
+        Assertions.assertFalse(tree.set(10000, "none"));
+        Assertions.assertEquals("five", tree.get(5));
+
+        tree.clear();
+        tree.checkInvariants();
+        Assertions.assertEquals(0, tree.size());
+        Assertions.assertNull(tree.get(5));
+        Assertions.assertFalse(tree.range(0, 10).iterator().hasNext());
+    }
+
+    @Test
+    @DisplayName("Random adds and removes keep B+-tree invariants after every step")
+    void BPlusTree_remove_0() {
+        for (int t = 1; t <= 5; t++) {
+            Random random = new Random(t);
+            BPlusTree<Integer, Integer> tree = new BPlusTree<>(t);
+            TreeMap<Integer, Integer> expected = new TreeMap<>();
+            for (int i = 0; i < 6000; i++) {
+                int key = random.nextInt(600);
+                if (random.nextInt(5) < 2) {
+                    Assertions.assertEquals(expected.remove(key), tree.remove(key));
+                } else {
+                    tree.add(key, i);
+                    expected.putIfAbsent(key, i);
+                }
+                tree.checkInvariants();
+            }
+            Assertions.assertEquals(expected.size(), tree.size());
+            for (int key = 0; key < 600; key++) {
+                Assertions.assertEquals(expected.get(key), tree.get(key));
+            }
+            for (int key = 0; key < 600; key++) {
+                tree.remove(key);
+            }
+            tree.checkInvariants();
+            Assertions.assertEquals(0, tree.height());
+        }
+    }
+}
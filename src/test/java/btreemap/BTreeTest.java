@@ -0,0 +1,146 @@
+package btreemap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Тесты, которым нужен доступ к внутреннему устройству B-дерева (проверка его свойств)
+ */
+class BTreeTest {
+
+    @Test
+    @DisplayName("Random adds and removes keep B-tree invariants after every step")
+    void BTree_remove_0() {
+        for (int t = 1; t <= 5; t++) {
+            Random random = new Random(t);
+            BTree<Integer> tree = new BTree<>(t);
+            TreeSet<Integer> expected = new TreeSet<>();
+            for (int i = 0; i < 6000; i++) {
+                int value = random.nextInt(600);
+                if (random.nextInt(5) < 2) {
+                    Assertions.assertEquals(expected.remove(value) ? value : null, tree.remove(value));
+                } else if (expected.add(value)) {
+                    tree.add(value);
+                }
+                tree.checkInvariants();
+                Assertions.assertEquals(expected.size(), tree.size());
+            }
+            for (int value = 0; value < 600; value++) {
+                Assertions.assertEquals(expected.contains(value), tree.contains(value));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Removing everything collapses the root down to an empty tree")
+    void BTree_remove_1() {
+        for (int order = 0; order < 2; order++) {
+            BTree<Integer> tree = new BTree<>(2);
+            for (int i = 0; i < 2000; i++) {
+                tree.add(i);
+            }
+            for (int i = 0; i < 2000; i++) {
+                Assertions.assertEquals(order == 0 ? i : 1999 - i, tree.remove(order == 0 ? i : 1999 - i));
+                tree.checkInvariants();
+            }
+            Assertions.assertEquals(0, tree.size());
+            Assertions.assertNull(tree.remove(0));
+            tree.add(5);
+            Assertions.assertTrue(tree.contains(5));
+        }
+    }
+
+    @Test
+    @DisplayName("Single-descent 'addIfAbsent', 'addOrReplace' and 'compute' keep B-tree invariants")
+    void BTree_upsert_0() {
+        for (int t = 1; t <= 4; t++) {
+            Random random = new Random(t);
+            BTree<Pair<Integer, Integer>> tree = new BTree<>(t);
+            java.util.TreeMap<Integer, Integer> expected = new java.util.TreeMap<>();
+            for (int i = 0; i < 5000; i++) {
+                int key = random.nextInt(500);
+                int operation = random.nextInt(4);
+                if (operation == 0) {
+                    Pair<Integer, Integer> existing = tree.addIfAbsent(new Pair<>(key, i));
+                    Assertions.assertEquals(expected.putIfAbsent(key, i), existing != null ? existing.second : null);
+                } else if (operation == 1) {
+                    Pair<Integer, Integer> replaced = tree.addOrReplace(new Pair<>(key, i));
+                    Assertions.assertEquals(expected.put(key, i), replaced != null ? replaced.second : null);
+                } else {
+                    int value = i;
+                    tree.compute(key, Pair::getFirst, pair -> pair == null ? new Pair<>(key, value) : null);
+                    expected.compute(key, (k, v) -> v == null ? value : null);
+                }
+                tree.checkInvariants();
+            }
+            Assertions.assertEquals(expected.size(), tree.size());
+            for (int key = 0; key < 500; key++) {
+                Pair<Integer, Integer> pair = tree.get(key, Pair::getFirst);
+                Assertions.assertEquals(expected.get(key), pair != null ? pair.second : null);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Bulk load from sorted input keeps B-tree invariants for any size and fill factor")
+    void BTree_buildFromSorted_0() {
+        double[] fillFactors = {0.01, 0.5, 0.7, 1.0};
+        for (int t = 1; t <= 5; t++) {
+            for (double fillFactor : fillFactors) {
+                for (int size = 0; size < 400; size++) {
+                    List<Integer> values = new ArrayList<>();
+                    for (int i = 0; i < size; i++) {
+                        values.add(i * 2);
+                    }
+                    BTree<Integer> tree = new BTree<>(t);
+                    tree.add(-5);
+                    tree.buildFromSorted(values.iterator(), fillFactor);
+                    tree.checkInvariants();
+                    Assertions.assertEquals(size, tree.size());
+                    Assertions.assertFalse(tree.contains(-5));
+                    for (int i = 0; i < size; i++) {
+                        Assertions.assertTrue(tree.contains(i * 2));
+                        Assertions.assertFalse(tree.contains(i * 2 + 1));
+                    }
+                    // The tree must stay valid for ordinary updates
+                    tree.add(-1);
+                    tree.remove(0);
+                    tree.checkInvariants();
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Bulk load rejects unsorted input, duplicates and fill factor out of (0, 1]")
+    void BTree_buildFromSorted_1() {
+        BTree<Integer> tree = new BTree<>(2);
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> tree.buildFromSorted(List.of(1, 3, 2).iterator(), 1.0));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> tree.buildFromSorted(List.of(1, 1).iterator(), 1.0));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> tree.buildFromSorted(List.of(1).iterator(), 0.0));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> tree.buildFromSorted(List.of(1).iterator(), 1.5));
+
+        // Full nodes give a lower tree than half-filled ones
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            values.add(i);
+        }
+        BTree<Integer> full = new BTree<>(4);
+        full.buildFromSorted(values.iterator(), 1.0);
+        BTree<Integer> half = new BTree<>(4);
+        half.buildFromSorted(values.iterator(), 0.5);
+        full.checkInvariants();
+        half.checkInvariants();
+        Assertions.assertTrue(full.height() < half.height());
+    }
+}
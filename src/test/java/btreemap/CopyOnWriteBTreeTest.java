@@ -0,0 +1,114 @@
+package btreemap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Тесты, которым нужен доступ к внутреннему устройству B-дерева с копированием при записи
+ */
+class CopyOnWriteBTreeTest {
+
+    @Test
+    @DisplayName("Random puts, replaces and removes keep B-tree invariants and match TreeMap")
+    void CopyOnWriteBTree_update_0() {
+        for (int t = 1; t <= 4; t++) {
+            Random random = new Random(t);
+            CopyOnWriteBTree<Integer, Integer> tree = new CopyOnWriteBTree<>(t);
+            TreeMap<Integer, Integer> expected = new TreeMap<>();
+            for (int i = 0; i < 6000; i++) {
+                int key = random.nextInt(600);
+                int operation = random.nextInt(5);
+                if (operation < 2) {
+                    Assertions.assertEquals(expected.remove(key), tree.remove(key));
+                } else if (operation == 2) {
+                    Assertions.assertEquals(expected.replace(key, i) != null, tree.replace(key, i));
+                } else {
+                    Assertions.assertEquals(expected.putIfAbsent(key, i), tree.putIfAbsent(key, i));
+                }
+                tree.checkInvariants();
+                Assertions.assertEquals(expected.size(), tree.size());
+            }
+            for (int key = 0; key < 600; key++) {
+                Assertions.assertEquals(expected.get(key), tree.get(key));
+            }
+            List<Integer> keys = new ArrayList<>();
+            tree.forEach((key, value) -> keys.add(key));
+            Assertions.assertEquals(new ArrayList<>(expected.keySet()), keys);
+        }
+    }
+
+    @Test
+    @DisplayName("Snapshots are isolated: random changes of original and snapshots do not leak")
+    void CopyOnWriteBTree_snapshot_0() {
+        Random random = new Random(25);
+        List<CopyOnWriteBTree<Integer, Integer>> trees = new ArrayList<>();
+        List<TreeMap<Integer, Integer>> expected = new ArrayList<>();
+        trees.add(new CopyOnWriteBTree<>(2));
+        expected.add(new TreeMap<>());
+        for (int i = 0; i < 30000; i++) {
+            int index = random.nextInt(trees.size());
+            CopyOnWriteBTree<Integer, Integer> tree = trees.get(index);
+            TreeMap<Integer, Integer> model = expected.get(index);
+            int key = random.nextInt(500);
+            int operation = random.nextInt(10);
+            if (operation == 0 && trees.size() < 20) {
+                trees.add(tree.snapshot());
+                expected.add(new TreeMap<>(model));
+            } else if (operation < 4) {
+                Assertions.assertEquals(model.remove(key), tree.remove(key));
+            } else if (operation < 6) {
+                Integer value = tree.compute(key, (k, old) -> old == null ? 0 : old + 1);
+                Assertions.assertEquals(model.merge(key, 0, (old, zero) -> old + 1), value);
+            } else {
+                tree.putIfAbsent(key, i);
+                model.putIfAbsent(key, i);
+            }
+        }
+        for (int index = 0; index < trees.size(); index++) {
+            CopyOnWriteBTree<Integer, Integer> tree = trees.get(index);
+            tree.checkInvariants();
+            Assertions.assertEquals(expected.get(index).size(), tree.size());
+            for (int key = 0; key < 500; key++) {
+                Assertions.assertEquals(expected.get(index).get(key), tree.get(key));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Null values are stored, replaced and removed like other values")
+    void CopyOnWriteBTree_null_0() {
+        CopyOnWriteBTree<Integer, String> tree = new CopyOnWriteBTree<>(1);
+        Assertions.assertNull(tree.putIfAbsent(1, null));
+        Assertions.assertNull(tree.putIfAbsent(2, "two"));
+        Assertions.assertEquals(2, tree.size());
+        Assertions.assertNull(tree.get(1));
+        // The key exists, so the pair is not replaced
+        Assertions.assertNull(tree.putIfAbsent(1, "one"));
+        Assertions.assertNull(tree.get(1));
+
+        Assertions.assertTrue(tree.replace(1, null, "one"));
+        Assertions.assertEquals("one", tree.get(1));
+        Assertions.assertTrue(tree.replace(2, null));
+        Assertions.assertFalse(tree.replace(2, "two", "again"));
+        Assertions.assertFalse(tree.replace(3, null));
+        Assertions.assertEquals(2, tree.size());
+
+        List<String> values = new ArrayList<>();
+        tree.forEach((key, value) -> values.add(value));
+        Assertions.assertEquals(Arrays.asList("one", null), values);
+
+        Assertions.assertNull(tree.remove(2));
+        Assertions.assertEquals(1, tree.size());
+        Assertions.assertEquals("one!", tree.compute(1, (key, value) -> value + "!"));
+        Assertions.assertNull(tree.compute(1, (key, value) -> null));
+        Assertions.assertEquals(0, tree.size());
+        tree.checkInvariants();
+    }
+}
@@ -0,0 +1,44 @@
+package hashmap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Тесты, которым нужен доступ к переносу таблицы {@link ConcurrentHashMap}
+ */
+class ConcurrentHashMapTransferTest {
+
+    @Test
+    @DisplayName("Stale transfer of an already moved table changes nothing and is removed")
+    void ConcurrentHashMap_transfer_0() {
+        ConcurrentHashMap<Integer, Integer> map = new ConcurrentHashMap<>(16);
+        var oldTable = map.table;
+        int count = 0;
+        while (map.table == oldTable) {
+            map.put(count, count);
+            count++;
+        }
+        var newTable = map.table;
+        Assertions.assertNull(map.transfer.get());
+
+        // Thread A installs a transfer for the table it read before the resize, thread C runs it
+        ConcurrentHashMap.Transfer<Integer, Integer> stale = new ConcurrentHashMap.Transfer<>(oldTable);
+        Assertions.assertTrue(map.transfer.compareAndSet(null, stale));
+        map.runTransfer(stale);
+
+        Assertions.assertSame(newTable, map.table);
+        Assertions.assertNull(map.transfer.get());
+        Assertions.assertEquals(count, map.getSize());
+        for (int i = 0; i < count; i++) {
+            Assertions.assertEquals(i, map.get(i));
+        }
+        // Later resizes still work
+        for (int i = count; i < 1000; i++) {
+            map.put(i, i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            Assertions.assertEquals(i, map.get(i));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeMap;
+
+class ArrayRBTreeTest {
+
+    @Test
+    @DisplayName("Should be true")
+    void ArrayRBTree_test_0() {
+    }
+
+    @Test
+    @DisplayName("Random inserts and deletes keep red-black invariants, free slots are reused")
+    void ArrayRBTree_delete_0() {
+        Random random = new Random(13);
+        ArrayMap<Integer, Integer> map = new ArrayMap<>();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        int maxSize = 0;
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(1000);
+            if (random.nextInt(2) == 0) {
+                Assertions.assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                map.put(key, i);
+                expected.putIfAbsent(key, i);
+            }
+            maxSize = Math.max(maxSize, expected.size());
+            if (i % 100 == 0) {
+                map.tree.checkInvariants();
+            }
+        }
+        map.tree.checkInvariants();
+        Assertions.assertEquals(expected.size(), map.size());
+        // New slots are taken only when the free list is empty
+        Assertions.assertEquals(maxSize, map.tree.allocated);
+
+        while (!map.isEmpty()) {
+            Assertions.assertEquals(expected.pollFirstEntry().getKey(), map.pollFirst().getFirst());
+            if (!map.isEmpty()) {
+                Assertions.assertEquals(expected.pollLastEntry().getKey(), map.pollLast().getFirst());
+            }
+            map.tree.checkInvariants();
+        }
+        for (int i = 0; i < maxSize; i++) {
+            map.put(i, i);
+        }
+        map.tree.checkInvariants();
+        Assertions.assertEquals(maxSize, map.tree.allocated);
+    }
+}
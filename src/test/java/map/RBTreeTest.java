@@ -0,0 +1,340 @@
+package map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Тесты, которым нужен доступ к внутреннему устройству дерева (проверка свойств красно-черного дерева)
+ */
+class RBTreeTest {
+
+    @Test
+    @DisplayName("Should be true")
+    void RBTree_test_0() {
+    }
+
+    @Test
+    @DisplayName("Random inserts and deletes keep red-black invariants and match TreeMap")
+    void RBTree_delete_0() {
+        Random random = new Random(12);
+        Map<Integer, Integer> map = new Map<>();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(2000);
+            if (random.nextInt(3) == 0) {
+                Assertions.assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                map.put(key, i);
+                expected.putIfAbsent(key, i);
+            }
+            if (i % 100 == 0) {
+                map.tree.checkInvariants();
+            }
+            Assertions.assertEquals(expected.size(), map.size());
+        }
+        map.tree.checkInvariants();
+        for (int key = 0; key < 2000; key++) {
+            Assertions.assertEquals(expected.get(key), map.get(key));
+        }
+    }
+
+    @Test
+    @DisplayName("Deleting everything in ascending, descending and random order")
+    void RBTree_delete_1() {
+        Random random = new Random(7);
+        for (int order = 0; order < 3; order++) {
+            Map<Integer, Integer> map = new Map<>();
+            for (int i = 0; i < 1000; i++) {
+                map.put(i, i);
+            }
+            for (int i = 0; i < 1000; i++) {
+                int key = order == 0 ? i : order == 1 ? 999 - i : random.nextInt(1000);
+                map.remove(key);
+                map.tree.checkInvariants();
+            }
+            for (int i = 0; i < 1000; i++) {
+                map.remove(i);
+            }
+            map.tree.checkInvariants();
+            Assertions.assertTrue(map.isEmpty());
+            Assertions.assertEquals(0, map.size());
+            Assertions.assertNull(map.remove(1));
+        }
+    }
+
+    @Test
+    @DisplayName("'pollFirst' and 'pollLast' drain map in order")
+    void RBTree_poll_0() {
+        Map<Integer, String> map = new Map<>();
+        for (int i = 0; i < 500; i++) {
+            map.put((i * 7919) % 500, Integer.toString(i));
+        }
+        for (int i = 0; i < 250; i++) {
+            Assertions.assertEquals(i, map.pollFirst().getFirst());
+            Assertions.assertEquals(499 - i, map.pollLast().getFirst());
+            map.tree.checkInvariants();
+        }
+        Assertions.assertNull(map.pollFirst());
+        Assertions.assertNull(map.pollLast());
+    }
+
+    @Test
+    @DisplayName("Copy keeps parent links: both copies can be modified independently")
+    void RBTree_copy_0() {
+        Map<Integer, Integer> original = new Map<>();
+        for (int i = 0; i < 1000; i++) {
+            original.put(i, i);
+        }
+        Map<Integer, Integer> copy = new Map<>(original);
+        copy.tree.checkInvariants();
+        for (int i = 0; i < 1000; i += 2) {
+            copy.remove(i);
+            copy.put(i + 1000, i);
+        }
+        copy.tree.checkInvariants();
+        original.tree.checkInvariants();
+        Assertions.assertEquals(1000, original.size());
+        Assertions.assertEquals(1000, copy.size());
+        Assertions.assertEquals(0, original.get(0));
+        Assertions.assertNull(copy.get(0));
+    }
+
+    @Test
+    @DisplayName("Bulk load from sorted input builds a valid red-black tree of any size")
+    void RBTree_fromSorted_0() {
+        for (int size = 0; size < 300; size++) {
+            List<Pair<Integer, Integer>> pairs = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                pairs.add(new Pair<>(i * 2, i));
+            }
+            Map<Integer, Integer> map = Map.fromSorted(pairs.iterator());
+            map.tree.checkInvariants();
+            Assertions.assertEquals(size, map.size());
+            for (int i = 0; i < size; i++) {
+                Assertions.assertEquals(i, map.get(i * 2));
+            }
+            // The tree must stay valid for ordinary updates
+            map.put(-1, -1);
+            map.remove(0);
+            map.tree.checkInvariants();
+        }
+    }
+
+    @Test
+    @DisplayName("'putAllSorted' merges with existing pairs and rejects unsorted input")
+    void RBTree_putAllSorted_0() {
+        Map<Integer, String> map = new Map<>();
+        for (int i = 0; i < 100; i += 3) {
+            map.put(i, "old");
+        }
+        List<Pair<Integer, String>> pairs = new ArrayList<>();
+        for (int i = 0; i < 100; i += 2) {
+            pairs.add(new Pair<>(i, "new"));
+        }
+        map.putAllSorted(pairs.iterator());
+        map.tree.checkInvariants();
+
+        for (int i = 0; i < 100; i++) {
+            String expected = i % 3 == 0 ? "old" : i % 2 == 0 ? "new" : null;
+            Assertions.assertEquals(expected, map.get(i));
+        }
+        Assertions.assertEquals(34 + 50 - 17, map.size());
+
+        List<Pair<Integer, String>> unsorted = List.of(new Pair<>(5, "a"), new Pair<>(5, "b"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> map.putAllSorted(unsorted.iterator()));
+        Assertions.assertEquals(67, map.size());
+        map.tree.checkInvariants();
+    }
+
+    @Test
+    @DisplayName("Benchmark: bulk load compared with one 'put' per key")
+    void RBTree_fromSorted_1() {
+        int count = 2000000;
+        List<Pair<Integer, Integer>> pairs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            pairs.add(new Pair<>(i, i));
+        }
+
+        long start = System.nanoTime();
+        Map<Integer, Integer> byPut = new Map<>();
+        for (Pair<Integer, Integer> pair : pairs) {
+            byPut.put(pair.first, pair.second);
+        }
+        long putNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        Map<Integer, Integer> bulk = Map.fromSorted(pairs.iterator());
+        long bulkNanos = System.nanoTime() - start;
+
+        System.out.printf("Map: %d sorted keys, put: %d ms, fromSorted: %d ms%n",
+                count, putNanos / 1000000, bulkNanos / 1000000);
+        Assertions.assertEquals(byPut.size(), bulk.size());
+        Assertions.assertEquals(count - 1, bulk.lastKey());
+    }
+
+    @Test
+    @DisplayName("Snapshots are isolated: random changes of original and copies do not leak")
+    void RBTree_snapshot_0() {
+        Random random = new Random(21);
+        List<Map<Integer, Integer>> maps = new ArrayList<>();
+        List<TreeMap<Integer, Integer>> expected = new ArrayList<>();
+        maps.add(new Map<>());
+        expected.add(new TreeMap<>());
+        for (int i = 0; i < 30000; i++) {
+            int index = random.nextInt(maps.size());
+            Map<Integer, Integer> map = maps.get(index);
+            TreeMap<Integer, Integer> model = expected.get(index);
+            int key = random.nextInt(500);
+            int operation = random.nextInt(10);
+            if (operation == 0 && maps.size() < 20) {
+                maps.add(new Map<>(map));
+                expected.add(new TreeMap<>(model));
+            } else if (operation < 4) {
+                Assertions.assertEquals(model.remove(key), map.remove(key));
+            } else {
+                map.put(key, i);
+                model.putIfAbsent(key, i);
+            }
+        }
+        for (int index = 0; index < maps.size(); index++) {
+            Map<Integer, Integer> map = maps.get(index);
+            map.tree.checkInvariants();
+            Assertions.assertEquals(expected.get(index).size(), map.size());
+            for (int key = 0; key < 500; key++) {
+                Assertions.assertEquals(expected.get(index).get(key), map.get(key));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Snapshot of a large map is constant time")
+    void RBTree_snapshot_1() {
+        List<Pair<Integer, Integer>> pairs = new ArrayList<>();
+        for (int i = 0; i < 1000000; i++) {
+            pairs.add(new Pair<>(i, i));
+        }
+        Map<Integer, Integer> original = Map.fromSorted(pairs.iterator());
+
+        long start = System.nanoTime();
+        List<Map<Integer, Integer>> snapshots = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            snapshots.add(new Map<>(original));
+            original.put(-i - 1, i);
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("Map: 1000 snapshots of 1000000 entries with a put after each: %.1f us/snapshot%n",
+                elapsed / 1000.0 / 1000);
+
+        Assertions.assertEquals(1001000, original.size());
+        Assertions.assertEquals(1000000, snapshots.get(0).size());
+        Assertions.assertNull(snapshots.get(0).get(-1));
+        Assertions.assertEquals(0, snapshots.get(1).get(-1));
+        original.tree.checkInvariants();
+        snapshots.get(500).tree.checkInvariants();
+    }
+
+    @Test
+    @DisplayName("Subtree sizes survive inserts, deletes, snapshots and bulk load; rank and select match TreeMap")
+    void RBTree_rank_0() {
+        Random random = new Random(18);
+        List<Pair<Integer, Integer>> pairs = new ArrayList<>();
+        for (int i = 0; i < 500; i += 2) {
+            pairs.add(new Pair<>(i, i));
+        }
+        Map<Integer, Integer> map = Map.fromSorted(pairs.iterator());
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        pairs.forEach(pair -> expected.put(pair.first, pair.second));
+        Map<Integer, Integer> snapshot = null;
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(1000);
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                map.put(key, i);
+                expected.putIfAbsent(key, i);
+            }
+            if (i % 5000 == 0) {
+                snapshot = new Map<>(map);
+            }
+            if (i % 500 == 0) {
+                map.tree.checkInvariants();
+            }
+        }
+        map.tree.checkInvariants();
+        snapshot.tree.checkInvariants();
+
+        List<Integer> keys = new ArrayList<>(expected.keySet());
+        for (int index = 0; index < keys.size(); index++) {
+            Assertions.assertEquals(keys.get(index), map.select(index).getFirst());
+        }
+        for (int key = -1; key <= 1000; key++) {
+            Assertions.assertEquals(expected.headMap(key).size(), map.rank(key));
+            int to = key + random.nextInt(100);
+            Assertions.assertEquals(expected.subMap(key, to).size(), map.countRange(key, to));
+        }
+        Assertions.assertEquals(0, map.countRange(100, 50));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> map.select(expected.size()));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> map.select(-1));
+    }
+
+    @Test
+    @DisplayName("Snapshots taken by other threads during writes stay consistent and are not changed by the writer")
+    void RBTree_snapshot_2() throws InterruptedException {
+        Map<Integer, Integer> map = new Map<>();
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, i);
+        }
+        AtomicBoolean done = new AtomicBoolean();
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        Thread writer = new Thread(() -> {
+            Random random = new Random(15);
+            for (int i = 0; i < 300000; i++) {
+                int key = random.nextInt(2000);
+                if (map.remove(key) == null) {
+                    map.put(key, key);
+                }
+            }
+            done.set(true);
+        });
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < 3; t++) {
+            readers.add(new Thread(() -> {
+                try {
+                    while (!done.get()) {
+                        Map<Integer, Integer> snapshot = new Map<>(map);
+                        List<Integer> keys = new ArrayList<>();
+                        snapshot.subMap(-1, 2000).forEach(pair -> keys.add(pair.getFirst()));
+                        Assertions.assertEquals(snapshot.size(), keys.size());
+                        Thread.yield();
+                        // The writer keeps going, but the snapshot must not change
+                        snapshot.tree.checkInvariants();
+                        List<Integer> again = new ArrayList<>();
+                        snapshot.subMap(-1, 2000).forEach(pair -> again.add(pair.getFirst()));
+                        Assertions.assertEquals(keys, again);
+                    }
+                } catch (Throwable ex) {
+                    errors.add(ex);
+                }
+            }));
+        }
+        writer.start();
+        readers.forEach(Thread::start);
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        if (!errors.isEmpty()) {
+            Assertions.fail(errors.get(0));
+        }
+        map.tree.checkInvariants();
+    }
+}